@@ -0,0 +1,28 @@
+package binarySearch;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The final scan of {@link KarySearch} written with the Vector API. Each iteration loads one
+ * vector of ints, compares every lane with the key in a single instruction and adds the number of
+ * smaller lanes. The few ints past the last whole vector are counted by the scalar loop.
+ * <p>
+ * This class needs {@code --add-modules jdk.incubator.vector} to compile and to run. KarySearch
+ * loads it reflectively, so a build without it still works.
+ */
+final class VectorScan implements KarySearch.Scan {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    public int countLess(int[] arr, int from, int to, int key) {
+        int smaller = 0;
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            smaller += IntVector.fromArray(SPECIES, arr, i).compare(VectorOperators.LT, key).trueCount();
+        }
+        return smaller + KarySearch.countLess(arr, i, to, key);
+    }
+}
@@ -0,0 +1,51 @@
+package benchmark;
+
+import java.util.SplittableRandom;
+
+import binarySearch.BPlusTreeIndex;
+import binarySearch.BinarySearch;
+
+/**
+ * Compares {@link BinarySearch#binarySearch(int[], int)} with {@link BPlusTreeIndex#search(int)}
+ * on large sorted arrays. Sizes can be passed as arguments; the 100M default needs about 2 GB of heap.
+ */
+public class BPlusTreeIndexBenchmark {
+
+    private static final int PROBES = 1 << 20;
+
+    public static void main(String[] args) {
+        for (int size : Bench.sizes(args, 1_000_000, 10_000_000, 100_000_000)) {
+            // Even keys only, so odd probes are guaranteed misses
+            int[] sorted = new int[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = 2 * i;
+            }
+            BPlusTreeIndex index = new BPlusTreeIndex(sorted);
+
+            // Random probes, roughly half hits and half misses
+            SplittableRandom random = new SplittableRandom(42);
+            int[] probes = new int[PROBES];
+            for (int i = 0; i < PROBES; i++) {
+                probes[i] = random.nextInt(2 * size);
+            }
+
+            double binary = Bench.nanosPerOperation(PROBES, () -> {
+                long sum = 0;
+                for (int probe : probes) {
+                    sum += BinarySearch.binarySearch(sorted, probe);
+                }
+                return sum;
+            });
+            double tree = Bench.nanosPerOperation(PROBES, () -> {
+                long sum = 0;
+                for (int probe : probes) {
+                    sum += index.search(probe);
+                }
+                return sum;
+            });
+
+            System.out.printf("size=%,d binarySearch=%.1f ns/op bPlusTree=%.1f ns/op speedup=%.2fx%n",
+                    size, binary, tree, binary / tree);
+        }
+    }
+}
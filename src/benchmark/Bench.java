@@ -0,0 +1,116 @@
+package benchmark;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * A small wall-clock harness for the benchmark programs in this package.
+ * <p>
+ * Each measurement runs the workload a few times untimed so the JIT compiles it, then reports
+ * the best of several timed runs. Workloads return a value that is folded into {@link #sink} so
+ * the JIT cannot remove them as dead code.
+ * <p>
+ * {@link #report} also profiles the timed runs the way JMH's {@code -prof gc} does: bytes allocated
+ * per operation by the benchmark thread, plus the number of collections and the GC time. Allocation
+ * made by other threads, such as ForkJoin workers, is not counted per operation but still shows up
+ * in the GC numbers.
+ */
+public final class Bench {
+
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 5;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final List<GarbageCollectorMXBean> COLLECTORS = ManagementFactory.getGarbageCollectorMXBeans();
+
+    // Consumes workload results so their computation stays observable
+    public static volatile long sink;
+
+    private Bench() {
+    }
+
+    /**
+     * Measures the average time of one operation in a workload.
+     *
+     * @param operations The number of operations a single call of the workload performs.
+     * @param workload   The workload to time; its result is consumed to keep it alive.
+     * @return The best observed time per operation in nanoseconds.
+     */
+    public static double nanosPerOperation(long operations, LongSupplier workload) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            sink += workload.getAsLong();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long startTime = System.nanoTime();
+            sink += workload.getAsLong();
+            best = Math.min(best, System.nanoTime() - startTime);
+        }
+        return (double) best / operations;
+    }
+
+    /**
+     * Measures a workload with {@link #nanosPerOperation} and the GC/allocation profile, then prints
+     * one result line.
+     *
+     * @param label      The name of the benchmark, printed first on the line.
+     * @param operations The number of operations a single call of the workload performs.
+     * @param workload   The workload to time; its result is consumed to keep it alive.
+     * @return The best observed time per operation in nanoseconds.
+     */
+    public static double report(String label, long operations, LongSupplier workload) {
+        double nanos = nanosPerOperation(operations, workload);
+
+        // Profile a separate set of runs so the counters do not disturb the timings
+        long gcCount = -collectionCount();
+        long gcMillis = -collectionMillis();
+        long allocated = -THREADS.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            sink += workload.getAsLong();
+        }
+        allocated += THREADS.getCurrentThreadAllocatedBytes();
+        gcCount += collectionCount();
+        gcMillis += collectionMillis();
+
+        System.out.printf("%-50s %14.1f ns/op %14.1f B/op %6d gc %8d gc-ms%n",
+                label, nanos, (double) allocated / (operations * MEASURED_RUNS), gcCount, gcMillis);
+        return nanos;
+    }
+
+    private static long collectionCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : COLLECTORS) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long collectionMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : COLLECTORS) {
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return millis;
+    }
+
+    /**
+     * Parses benchmark sizes from the command line, falling back to defaults when none are given.
+     *
+     * @param args     The command line arguments.
+     * @param defaults The sizes to use when no arguments are given.
+     * @return The sizes to benchmark.
+     */
+    public static int[] sizes(String[] args, int... defaults) {
+        if (args.length == 0) {
+            return defaults;
+        }
+        int[] sizes = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+        return sizes;
+    }
+}
@@ -0,0 +1,650 @@
+package benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+
+import binarySearch.BatchEvaluator;
+import binarySearch.BinarySearch;
+import binarySearch.CompiledExpression;
+import binarySearch.ExpressionCompiler;
+import binarySearch.ExpressionParser;
+import binarySearch.FormulaGraph;
+import binarySearch.SearchStrategy;
+import binarySearch.SumOfDigits;
+import filesearch.FileNameIndex;
+import filesearch.FileNameMatcher;
+import filesearch.FileSearchEnhanced;
+import filesearch.StringPermutations;
+import filesearch.StringPermutationsEnhanced;
+
+/**
+ * Runs a benchmark for every algorithm in the project and prints one line per benchmark with the
+ * time, allocation and GC profile of {@link Bench#report}.
+ * <p>
+ * Usage: {@code BenchmarkSuite [filter]}. Only benchmarks whose name contains the filter run. Array
+ * sizes come from {@code -Dbench.sizes} (default {@code 1000,1000000,10000000}). Add
+ * {@code 100000000} for the largest int arrays, which needs about 1 GB of heap; String arrays are
+ * capped at 1M elements.
+ */
+public class BenchmarkSuite {
+
+    private static final int PROBES = 1 << 16;
+    private static final int MAX_STRING_ARRAY = 1_000_000;
+
+    private static String filter = "";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0) {
+            filter = args[0];
+        }
+        int[] sizes = Arrays.stream(System.getProperty("bench.sizes", "1000,1000000,10000000").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+
+        for (int size : sizes) {
+            binarySearchInt(size);
+            binarySearchString(Math.min(size, MAX_STRING_ARRAY));
+            findAllIndices(size);
+        }
+        expressionParser();
+        expressionColumns();
+        expressionBytecode();
+        expressionGenerated();
+        expressionBatch();
+        formulaGraph();
+        sumOfDigits();
+        permutations();
+        fileSearch();
+        fileTraversal();
+        fileNameIndex();
+        fileNameMatcher();
+    }
+
+    private static boolean selected(String name) {
+        return name.contains(filter);
+    }
+
+    private static void binarySearchInt(int size) {
+        if (!selected("binarySearch.int")) {
+            return;
+        }
+        // Even keys only: even probes hit, odd probes miss
+        int[] sorted = new int[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = 2 * i;
+        }
+        SplittableRandom random = new SplittableRandom(1);
+        int[] hits = new int[PROBES];
+        int[] misses = new int[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            hits[i] = 2 * random.nextInt(size);
+            misses[i] = hits[i] + 1;
+        }
+        if (selected("binarySearch.int.hit")) {
+            Bench.report("binarySearch.int.hit size=" + size, PROBES, () -> searchAll(sorted, hits));
+        }
+        if (selected("binarySearch.int.miss")) {
+            Bench.report("binarySearch.int.miss size=" + size, PROBES, () -> searchAll(sorted, misses));
+        }
+        // K_ARY uses the Vector API scan when src-vector is compiled in; compare with -DbinarySearch.vector=false
+        for (SearchStrategy strategy : new SearchStrategy[] {SearchStrategy.BRANCHLESS, SearchStrategy.K_ARY}) {
+            String name = "binarySearch.int." + strategy.name().toLowerCase();
+            if (selected(name)) {
+                Bench.report(name + " size=" + size, PROBES, () -> searchAll(sorted, hits, strategy));
+            }
+        }
+    }
+
+    private static long searchAll(int[] sorted, int[] probes) {
+        long sum = 0;
+        for (int probe : probes) {
+            sum += BinarySearch.binarySearch(sorted, probe);
+        }
+        return sum;
+    }
+
+    private static long searchAll(int[] sorted, int[] probes, SearchStrategy strategy) {
+        long sum = 0;
+        for (int probe : probes) {
+            sum += BinarySearch.binarySearch(sorted, probe, strategy);
+        }
+        return sum;
+    }
+
+    private static void binarySearchString(int size) {
+        if (!selected("binarySearch.string")) {
+            return;
+        }
+        // Zero-padded keys sort numerically; the "x" suffix makes a key that sorts between two stored keys
+        String[] sorted = new String[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = String.format("key-%09d", i);
+        }
+        SplittableRandom random = new SplittableRandom(2);
+        String[] hits = new String[PROBES];
+        String[] misses = new String[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            hits[i] = sorted[random.nextInt(size)];
+            misses[i] = hits[i] + "x";
+        }
+        if (selected("binarySearch.string.hit")) {
+            Bench.report("binarySearch.string.hit size=" + size, PROBES, () -> {
+                long sum = 0;
+                for (String probe : hits) {
+                    sum += BinarySearch.binarySearch(sorted, probe);
+                }
+                return sum;
+            });
+        }
+        if (selected("binarySearch.string.miss")) {
+            Bench.report("binarySearch.string.miss size=" + size, PROBES, () -> {
+                long sum = 0;
+                for (String probe : misses) {
+                    sum += BinarySearch.binarySearch(sorted, probe);
+                }
+                return sum;
+            });
+        }
+    }
+
+    private static void findAllIndices(int size) {
+        if (!selected("findAllIndices.duplicates")) {
+            return;
+        }
+        // Runs of 100 equal keys
+        int[] sorted = new int[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = i / 100;
+        }
+        SplittableRandom random = new SplittableRandom(3);
+        int[] probes = new int[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            probes[i] = random.nextInt(sorted[size - 1] + 1);
+        }
+        Bench.report("findAllIndices.duplicates size=" + size, PROBES, () -> {
+            long sum = 0;
+            for (int probe : probes) {
+                sum += BinarySearch.indicesOf(sorted, probe).length;
+            }
+            return sum;
+        });
+    }
+
+    private static void expressionParser() {
+        StringBuilder longExpression = new StringBuilder("1");
+        for (int i = 2; i <= 500; i++) {
+            longExpression.append(i % 3 == 0 ? " * " : " + ").append(i).append(".5");
+        }
+        StringBuilder nested = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            nested.append("(1 + ");
+        }
+        nested.append('1');
+        for (int i = 0; i < 200; i++) {
+            nested.append(')');
+        }
+        String[][] cases = {
+                {"short", "3 + 5 * (2 - 4) / 7"},
+                {"long", longExpression.toString()},
+                {"nested", nested.toString()},
+        };
+        for (String[] expression : cases) {
+            String name = "expressionParser." + expression[0];
+            if (selected(name)) {
+                Bench.report(name + " chars=" + expression[1].length(), 1000, () -> {
+                    double sum = 0;
+                    for (int i = 0; i < 1000; i++) {
+                        sum += ExpressionParser.evaluateExpression(expression[1]);
+                    }
+                    return (long) sum;
+                });
+            }
+            // Parses every time, bypassing the expression cache
+            if (selected(name + ".compile")) {
+                Bench.report(name + ".compile chars=" + expression[1].length(), 1000, () -> {
+                    double sum = 0;
+                    for (int i = 0; i < 1000; i++) {
+                        sum += ExpressionParser.compile(expression[1]).evaluate();
+                    }
+                    return (long) sum;
+                });
+            }
+        }
+    }
+
+    private static void expressionColumns() {
+        int rows = 100_000;
+        SplittableRandom random = new SplittableRandom(5);
+        double[] price = new double[rows];
+        double[] cost = new double[rows];
+        double[] qty = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            price[i] = random.nextInt(10_000) / 100.0;
+            cost[i] = random.nextInt(10_000) / 100.0;
+            qty[i] = random.nextInt(100);
+        }
+        CompiledExpression formula = ExpressionParser.compile("(price - cost) * qty");
+        double[] results = new double[rows];
+        if (selected("expressionColumns.parsePerRow")) {
+            Bench.report("expressionColumns.parsePerRow rows=" + rows, rows, () -> {
+                double sum = 0;
+                for (int i = 0; i < rows; i++) {
+                    sum += ExpressionParser.evaluateExpression("(" + price[i] + " - " + cost[i] + ") * " + qty[i]);
+                }
+                return (long) sum;
+            });
+        }
+        if (selected("expressionColumns.compiledPerRow")) {
+            Bench.report("expressionColumns.compiledPerRow rows=" + rows, rows, () -> {
+                double sum = 0;
+                for (int i = 0; i < rows; i++) {
+                    sum += formula.evaluate(price[i], cost[i], qty[i]);
+                }
+                return (long) sum;
+            });
+        }
+        if (selected("expressionColumns.columnar")) {
+            Bench.report("expressionColumns.columnar rows=" + rows, rows, () -> {
+                formula.evaluateColumns(new double[][] {price, cost, qty}, results);
+                return (long) results[rows - 1];
+            });
+        }
+    }
+
+    private static void expressionBytecode() {
+        if (!selected("expressionBytecode")) {
+            return;
+        }
+        int rows = 100_000;
+        SplittableRandom random = new SplittableRandom(6);
+        double[][] values = new double[rows][];
+        for (int i = 0; i < rows; i++) {
+            values[i] = new double[] {random.nextDouble(100), random.nextDouble(100), random.nextInt(100),
+                    random.nextDouble()};
+        }
+        CompiledExpression formula = ExpressionParser.compile("((price - cost) * qty - (price * rate + 2.5)) / (qty + 1)");
+        ToDoubleFunction<double[]> generated = ExpressionCompiler.toFunction(formula);
+        Bench.report("expressionBytecode.interpreted rows=" + rows, rows, () -> {
+            double sum = 0;
+            for (double[] row : values) {
+                sum += formula.evaluate(row);
+            }
+            return (long) sum;
+        });
+        Bench.report("expressionBytecode.generated rows=" + rows, rows, () -> {
+            double sum = 0;
+            for (double[] row : values) {
+                sum += generated.applyAsDouble(row);
+            }
+            return (long) sum;
+        });
+    }
+
+    private static void expressionGenerated() {
+        // Typical machine output: constant sub-trees, multiplications by one and repeated terms
+        String source = "((a * b + c) * (a * b + c) + (a * b + c) / (2 * 4)) * (1 * 1 + 2 * 3) - d * 1"
+                + " + (a * b + c) * (60 / 60) + (3 - 1) * (a * b + c) * d";
+        CompiledExpression formula = ExpressionParser.compile(source);
+        int rows = 100_000;
+        SplittableRandom random = new SplittableRandom(7);
+        double[][] columns = new double[4][rows];
+        double[][] values = new double[rows][4];
+        for (int i = 0; i < rows; i++) {
+            for (int v = 0; v < 4; v++) {
+                columns[v][i] = values[i][v] = random.nextDouble(100);
+            }
+        }
+        double[] results = new double[rows];
+        if (selected("expressionGenerated.perRow")) {
+            Bench.report("expressionGenerated.perRow rows=" + rows, rows, () -> {
+                double sum = 0;
+                for (double[] row : values) {
+                    sum += formula.evaluate(row);
+                }
+                return (long) sum;
+            });
+        }
+        if (selected("expressionGenerated.columnar")) {
+            Bench.report("expressionGenerated.columnar rows=" + rows, rows, () -> {
+                formula.evaluateColumns(columns, results);
+                return (long) results[rows - 1];
+            });
+        }
+    }
+
+    private static void expressionBatch() throws IOException {
+        if (!selected("expressionBatch")) {
+            return;
+        }
+        int lines = 2_000_000;
+        SplittableRandom random = new SplittableRandom(8);
+        Path input = Files.createTempFile("expressions", ".txt");
+        try {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < lines; i++) {
+                text.append(random.nextInt(1000)).append(" * (").append(random.nextInt(100)).append(".25 - ")
+                        .append(random.nextInt(50)).append(") / ").append(random.nextInt(9) + 1).append('\n');
+            }
+            Files.writeString(input, text);
+            if (selected("expressionBatch.lineByLine")) {
+                Bench.report("expressionBatch.lineByLine lines=" + lines, lines, () -> {
+                    double sum = 0;
+                    try (BufferedReader reader = Files.newBufferedReader(input)) {
+                        for (String line; (line = reader.readLine()) != null; ) {
+                            sum += ExpressionParser.compile(line).evaluate();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return (long) sum;
+                });
+            }
+            if (selected("expressionBatch.mapped")) {
+                Bench.report("expressionBatch.mapped lines=" + lines, lines, () -> {
+                    try {
+                        return BatchEvaluator.evaluate(input).lineCount();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        } finally {
+            Files.delete(input);
+        }
+    }
+
+    private static void formulaGraph() {
+        if (!selected("formulaGraph")) {
+            return;
+        }
+        // 100 independent columns of 1000 chained formulas each
+        FormulaGraph graph = new FormulaGraph();
+        int columns = 100;
+        int rows = 1000;
+        for (int c = 0; c < columns; c++) {
+            graph.set("in" + c, c);
+            for (int r = 0; r < rows; r++) {
+                graph.define("c" + c + "r" + r, (r == 0 ? "in" + c : "c" + c + "r" + (r - 1)) + " * 1.0001 + " + r);
+            }
+        }
+        graph.recalculate();
+        int[] counter = new int[1];
+        Bench.report("formulaGraph.oneInput formulas=" + columns * rows, 1, () -> {
+            graph.set("in0", counter[0]++);
+            return graph.recalculate();
+        });
+        Bench.report("formulaGraph.allInputs formulas=" + columns * rows, 1, () -> {
+            counter[0]++;
+            for (int c = 0; c < columns; c++) {
+                graph.set("in" + c, counter[0] + c);
+            }
+            return graph.recalculate();
+        });
+    }
+
+    private static void sumOfDigits() {
+        if (!selected("sumOfDigits")) {
+            return;
+        }
+        SplittableRandom random = new SplittableRandom(4);
+        int[] numbers = new int[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            numbers[i] = random.nextInt();
+        }
+        Bench.report("sumOfDigits.int", PROBES, () -> {
+            long sum = 0;
+            for (int number : numbers) {
+                sum += SumOfDigits.sumOfDigits(number);
+            }
+            return sum;
+        });
+        long[] longs = new long[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            longs[i] = random.nextLong();
+        }
+        Bench.report("sumOfDigits.long", PROBES, () -> {
+            long sum = 0;
+            for (long number : longs) {
+                sum += SumOfDigits.sumOfDigits(number);
+            }
+            return sum;
+        });
+        int[] ids = random.ints(1 << 22).toArray();
+        Bench.report("sumOfDigits.intArray size=" + ids.length, ids.length, () -> SumOfDigits.sumOfDigits(ids)[0]);
+
+        BigInteger big = new BigInteger(1 << 20, new Random(4));
+        Bench.report("sumOfDigits.bigInteger.toString bits=" + big.bitLength(), 1, () -> {
+            long sum = 0;
+            for (char c : big.toString().toCharArray()) {
+                sum += c - '0';
+            }
+            return sum;
+        });
+        Bench.report("sumOfDigits.bigInteger bits=" + big.bitLength(), 1, () -> SumOfDigits.sumOfDigits(big));
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 10_000_000; i++) {
+            text.append((char) ('0' + random.nextInt(10)));
+        }
+        Bench.report("sumOfDigits.text digits=" + text.length(), text.length(), () -> SumOfDigits.sumOfDigits(text));
+    }
+
+    private static void permutations() {
+        String input = "abcdefgh";
+        StringPermutations recursive = new StringPermutations();
+        StringPermutationsEnhanced iterative = new StringPermutationsEnhanced();
+        if (selected("permutations.recursive")) {
+            Bench.report("permutations.recursive length=" + input.length(), 1,
+                    () -> recursive.generatePermutations(input).size());
+        }
+        if (selected("permutations.iterative")) {
+            Bench.report("permutations.iterative length=" + input.length(), 1,
+                    () -> iterative.generatePermutations(input).size());
+        }
+    }
+
+    private static void fileSearch() throws IOException {
+        if (!selected("fileSearchEnhanced")) {
+            return;
+        }
+        // 20 x 20 directories with 10 files each
+        Path root = Files.createTempDirectory("benchTree");
+        try {
+            for (int i = 0; i < 20; i++) {
+                for (int j = 0; j < 20; j++) {
+                    Path directory = Files.createDirectories(root.resolve("dir" + i).resolve("sub" + j));
+                    for (int k = 0; k < 10; k++) {
+                        Files.createFile(directory.resolve("file" + k + ".txt"));
+                    }
+                }
+            }
+            List<String> names = List.of("file3.txt", "FILE7.TXT", "missing.txt");
+            File directory = root.toFile();
+            Bench.report("fileSearchEnhanced.searchFiles files=4000", 1,
+                    () -> FileSearchEnhanced.searchFiles(directory, names, false).get("file3.txt").size());
+            Bench.report("fileSearchEnhanced.countFileOccurrences files=4000", 1,
+                    () -> FileSearchEnhanced.countFileOccurrences(directory, names, true).get("file3.txt"));
+            int threads = Runtime.getRuntime().availableProcessors();
+            Bench.report("fileSearchEnhanced.searchFiles.parallel threads=" + threads + " files=4000", 1,
+                    () -> FileSearchEnhanced.searchFiles(directory, names, false, threads).get("file3.txt").size());
+            Bench.report("fileSearchEnhanced.countFileOccurrences.parallel threads=" + threads + " files=4000", 1,
+                    () -> FileSearchEnhanced.countFileOccurrences(directory, names, true, threads).get("file3.txt"));
+        } finally {
+            deleteTree(root);
+        }
+    }
+
+    private static void fileTraversal() throws IOException {
+        if (!selected("fileTraversal")) {
+            return;
+        }
+        int files = Integer.getInteger("bench.treeFiles", 100_000);
+        Path root = createTree(files);
+        try {
+            List<String> names = List.of("file7.log");
+            File directory = root.toFile();
+            // The java.io walk the filesearch classes used to do: listFiles, then isDirectory on every entry
+            Bench.report("fileTraversal.listFiles files=" + files, files, () -> listFilesWalk(directory, "file7.log"));
+            Bench.report("fileTraversal.walkFileTree files=" + files, files,
+                    () -> FileSearchEnhanced.searchFiles(directory, names, true).get("file7.log").size());
+            Bench.report("fileTraversal.streamFirst files=" + files, 1, () -> {
+                try (Stream<Path> found = FileSearchEnhanced.streamFiles(directory, names, true)) {
+                    return found.findFirst().isPresent() ? 1 : 0;
+                }
+            });
+            Bench.report("fileTraversal.streamAll files=" + files, files, () -> {
+                try (Stream<Path> found = FileSearchEnhanced.streamFiles(directory, names, true)) {
+                    return found.count();
+                }
+            });
+        } finally {
+            deleteTree(root);
+        }
+    }
+
+    private static void fileNameIndex() throws IOException {
+        if (!selected("fileNameIndex")) {
+            return;
+        }
+        int files = Integer.getInteger("bench.treeFiles", 100_000);
+        Path root = createTree(files);
+        Path indexFile = Files.createTempFile("benchIndex", ".idx");
+        try {
+            List<String> names = List.of("file7.log", "FILE8.LOG", "missing.log");
+            Bench.report("fileNameIndex.walk files=" + files, 1,
+                    () -> FileSearchEnhanced.searchFiles(root.toFile(), names, false).get("file7.log").size());
+            Bench.report("fileNameIndex.build files=" + files, 1, () -> {
+                try (FileNameIndex index = FileNameIndex.build(root)) {
+                    return index.size();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            try (FileNameIndex index = FileNameIndex.build(root)) {
+                index.save(indexFile);
+            }
+            try (FileNameIndex index = FileNameIndex.open(indexFile)) {
+                Bench.report("fileNameIndex.search files=" + files, 1,
+                        () -> index.searchFiles(names, false).get("file7.log").size());
+                Bench.report("fileNameIndex.refresh files=" + files, 1, index::refresh);
+            }
+        } finally {
+            Files.deleteIfExists(indexFile);
+            deleteTree(root);
+        }
+    }
+
+    private static void fileNameMatcher() {
+        if (!selected("fileNameMatcher")) {
+            return;
+        }
+        // 500 target names against 100 000 candidate names, a fifth of which match
+        List<String> targets = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            targets.add("Report-" + i + ".TXT");
+        }
+        String[] candidates = new String[100_000];
+        for (int i = 0; i < candidates.length; i++) {
+            candidates[i] = "report-" + (i % 2500) + ".txt";
+        }
+        if (selected("fileNameMatcher.loop")) {
+            Bench.report("fileNameMatcher.loop names=" + targets.size(), candidates.length, () -> {
+                int found = 0;
+                for (String candidate : candidates) {
+                    for (String target : targets) {
+                        if (candidate.equalsIgnoreCase(target)) {
+                            found++;
+                        }
+                    }
+                }
+                return found;
+            });
+        }
+        FileNameMatcher exact = FileNameMatcher.exactNames(targets, false);
+        Bench.report("fileNameMatcher.exactNames names=" + targets.size(), candidates.length, () -> {
+            int found = 0;
+            for (String candidate : candidates) {
+                found += exact.match(candidate).length;
+            }
+            return found;
+        });
+        List<String> globs = List.of("glob:*.log", "glob:report-1??.txt", "glob:*-[0-4]9.{txt,md}", "glob:backup-*");
+        FileNameMatcher dfa = FileNameMatcher.compile(globs, true);
+        Bench.report("fileNameMatcher.globs patterns=" + globs.size(), candidates.length, () -> {
+            int found = 0;
+            for (String candidate : candidates) {
+                found += dfa.match(candidate).length;
+            }
+            return found;
+        });
+        List<PathMatcher> pathMatchers = new ArrayList<>();
+        for (String glob : globs) {
+            pathMatchers.add(FileSystems.getDefault().getPathMatcher(glob));
+        }
+        Path[] paths = new Path[candidates.length];
+        for (int i = 0; i < paths.length; i++) {
+            paths[i] = Path.of(candidates[i]);
+        }
+        // One java.nio PathMatcher per glob, each a regex of its own
+        Bench.report("fileNameMatcher.pathMatchers patterns=" + globs.size(), candidates.length, () -> {
+            int found = 0;
+            for (Path path : paths) {
+                for (PathMatcher matcher : pathMatchers) {
+                    if (matcher.matches(path)) {
+                        found++;
+                    }
+                }
+            }
+            return found;
+        });
+    }
+
+    /**
+     * Creates a tree of empty files: directories of 100 files, 100 directories per parent, with
+     * 1000 distinct names.
+     */
+    private static Path createTree(int files) throws IOException {
+        Path root = Files.createTempDirectory("benchTree");
+        for (int i = 0; i < files; i += 100) {
+            Path directory = Files.createDirectories(root.resolve("d" + i / 10_000).resolve("s" + i / 100 % 100));
+            for (int k = 0; k < 100 && i + k < files; k++) {
+                Files.createFile(directory.resolve("file" + (i + k) % 1000 + ".log"));
+            }
+        }
+        return root;
+    }
+
+    private static void deleteTree(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private static int listFilesWalk(File directory, String name) {
+        if (!directory.isDirectory()) {
+            return 0;
+        }
+        int found = 0;
+        for (File file : directory.listFiles()) {
+            if (file.isDirectory()) {
+                found += listFilesWalk(file, name);
+            } else if (file.getName().equals(name)) {
+                found += file.getAbsolutePath().length() > 0 ? 1 : 0;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,60 @@
+package benchmark;
+
+import java.util.SplittableRandom;
+
+import binarySearch.BinarySearch;
+import binarySearch.FrontCodedDictionary;
+
+/**
+ * Compares the memory footprint and lookup time of {@link FrontCodedDictionary} with
+ * {@link BinarySearch#binarySearch(String[], String)} on a synthetic sorted vocabulary.
+ */
+public class FrontCodedDictionaryBenchmark {
+
+    private static final int PROBES = 1 << 18;
+
+    public static void main(String[] args) {
+        for (int size : Bench.sizes(args, 1_000_000, 5_000_000)) {
+            // Path-like keys with long shared prefixes, generated in sorted order
+            long heapBefore = usedHeap();
+            String[] sorted = new String[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = String.format("tenant-%04d/bucket-%03d/object-%08d", i / 100_000, (i / 1000) % 100, i);
+            }
+            long stringBytes = usedHeap() - heapBefore;
+            FrontCodedDictionary dictionary = new FrontCodedDictionary(sorted);
+
+            SplittableRandom random = new SplittableRandom(42);
+            String[] probes = new String[PROBES];
+            for (int i = 0; i < PROBES; i++) {
+                probes[i] = sorted[random.nextInt(size)];
+            }
+
+            double strings = Bench.nanosPerOperation(PROBES, () -> {
+                long sum = 0;
+                for (String probe : probes) {
+                    sum += BinarySearch.binarySearch(sorted, probe);
+                }
+                return sum;
+            });
+            double frontCoded = Bench.nanosPerOperation(PROBES, () -> {
+                long sum = 0;
+                for (String probe : probes) {
+                    sum += dictionary.indexOf(probe);
+                }
+                return sum;
+            });
+
+            System.out.printf("size=%,d String[]=%,d bytes frontCoded=%,d bytes (%.1fx smaller)%n",
+                    size, stringBytes, dictionary.encodedBytes(), (double) stringBytes / dictionary.encodedBytes());
+            System.out.printf("size=%,d String[]=%.1f ns/op frontCoded=%.1f ns/op speedup=%.2fx%n",
+                    size, strings, frontCoded, strings / frontCoded);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,59 @@
+package benchmark;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import binarySearch.BinarySearch;
+import binarySearch.LearnedIndex;
+
+/**
+ * Compares the recursive {@link BinarySearch#binarySearch(int[], int)} with {@link LearnedIndex}
+ * and {@link LearnedIndex#interpolationSearch(int[], int)} on uniformly distributed sorted keys.
+ */
+public class LearnedIndexBenchmark {
+
+    private static final int PROBES = 1 << 20;
+
+    public static void main(String[] args) {
+        for (int size : Bench.sizes(args, 1_000_000, 10_000_000)) {
+            SplittableRandom random = new SplittableRandom(42);
+            int[] sorted = new int[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = random.nextInt(Integer.MAX_VALUE);
+            }
+            Arrays.sort(sorted);
+            LearnedIndex index = LearnedIndex.of(sorted);
+
+            // Half the probes are stored keys, the other half random values (almost always misses)
+            int[] probes = new int[PROBES];
+            for (int i = 0; i < PROBES; i++) {
+                probes[i] = i % 2 == 0 ? sorted[random.nextInt(size)] : random.nextInt(Integer.MAX_VALUE);
+            }
+
+            double binary = Bench.nanosPerOperation(PROBES, () -> {
+                long sum = 0;
+                for (int probe : probes) {
+                    sum += BinarySearch.binarySearch(sorted, probe);
+                }
+                return sum;
+            });
+            double learned = Bench.nanosPerOperation(PROBES, () -> {
+                long sum = 0;
+                for (int probe : probes) {
+                    sum += index.search(probe);
+                }
+                return sum;
+            });
+            double interpolation = Bench.nanosPerOperation(PROBES, () -> {
+                long sum = 0;
+                for (int probe : probes) {
+                    sum += LearnedIndex.interpolationSearch(sorted, probe);
+                }
+                return sum;
+            });
+
+            System.out.printf("size=%,d segments=%,d binarySearch=%.1f ns/op learned=%.1f ns/op (%.2fx) interpolation=%.1f ns/op (%.2fx)%n",
+                    size, index.segmentCount(), binary, learned, binary / learned, interpolation, binary / interpolation);
+        }
+    }
+}
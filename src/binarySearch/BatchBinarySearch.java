@@ -0,0 +1,175 @@
+package binarySearch;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Looks up many keys against the same sorted array in one call.
+ * <p>
+ * Calling {@link BinarySearch#binarySearch(int[], int)} once per key restarts every search from the
+ * middle of the array. A batch can do better:
+ * <ul>
+ *   <li>When the keys are ascending, each search starts where the previous one ended and gallops
+ *       forward, so a dense batch costs close to a single merge pass over the array.</li>
+ *   <li>Otherwise several independent searches run in lockstep. Their loads do not depend on each
+ *       other, so the CPU overlaps the cache misses instead of waiting for each one in turn.</li>
+ *   <li>Large batches are split into chunks that run on the common ForkJoin pool.</li>
+ * </ul>
+ */
+public class BatchBinarySearch {
+
+    // Batches larger than this are split across the ForkJoin pool
+    private static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    /**
+     * Searches a sorted array for every key in a batch.
+     *
+     * @param sorted The sorted array to search.
+     * @param keys   The keys to look up, in any order.
+     * @return An array where element {@code i} is the index of the first occurrence of {@code keys[i]}
+     *         in the sorted array, or -1 if it is absent.
+     * @throws IllegalArgumentException if either array is null or the sorted array is empty.
+     */
+    public static int[] binarySearchAll(int[] sorted, int[] keys) {
+        if (sorted == null || sorted.length == 0) {
+            throw new IllegalArgumentException("Array is null or empty");
+        }
+        if (keys == null) {
+            throw new IllegalArgumentException("Keys array is null");
+        }
+        int[] positions = new int[keys.length];
+        if (keys.length <= PARALLEL_THRESHOLD) {
+            searchChunk(sorted, keys, 0, keys.length, positions);
+        } else {
+            ForkJoinPool.commonPool().invoke(new SearchTask(sorted, keys, 0, keys.length, positions));
+        }
+        return positions;
+    }
+
+    /**
+     * Searches one chunk of the batch, picking the merge walk when the chunk is ascending.
+     *
+     * @param sorted    The sorted array to search.
+     * @param keys      The keys to look up.
+     * @param from      The first key of the chunk (inclusive).
+     * @param to        The last key of the chunk (exclusive).
+     * @param positions The array receiving the results.
+     */
+    private static void searchChunk(int[] sorted, int[] keys, int from, int to, int[] positions) {
+        if (isAscending(keys, from, to)) {
+            gallopingSearch(sorted, keys, from, to, positions);
+        } else {
+            interleavedSearch(sorted, keys, from, to, positions);
+        }
+    }
+
+    private static boolean isAscending(int[] keys, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            if (keys[i - 1] > keys[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Searches ascending keys by galloping forward from the previous key's position: the step doubles
+     * until it passes the key, then a binary search finishes inside the last step.
+     */
+    private static void gallopingSearch(int[] sorted, int[] keys, int from, int to, int[] positions) {
+        int n = sorted.length;
+        int position = 0;
+        for (int i = from; i < to; i++) {
+            int key = keys[i];
+            if (position < n && sorted[position] < key) {
+                // sorted[position] < key, so the answer lies after it
+                int step = 1;
+                int bound = position + 1;
+                while (bound < n && sorted[bound] < key) {
+                    position = bound;
+                    step <<= 1;
+                    bound = step < n - position ? position + step : n;
+                }
+                position = BinarySearch.lowerBound(sorted, position + 1, bound, key);
+            }
+            positions[i] = position < n && sorted[position] == key ? position : -1;
+        }
+    }
+
+    /**
+     * Searches four keys at a time in lockstep. The branch-free lower bound runs the same number of
+     * iterations for every key, so the four searches share one loop and their loads overlap.
+     */
+    private static void interleavedSearch(int[] sorted, int[] keys, int from, int to, int[] positions) {
+        int n = sorted.length;
+        int i = from;
+        for (; i + 4 <= to; i += 4) {
+            int key0 = keys[i];
+            int key1 = keys[i + 1];
+            int key2 = keys[i + 2];
+            int key3 = keys[i + 3];
+            int base0 = 0;
+            int base1 = 0;
+            int base2 = 0;
+            int base3 = 0;
+            int length = n;
+            while (length > 1) {
+                int half = length >>> 1;
+                base0 = sorted[base0 + half - 1] < key0 ? base0 + half : base0;
+                base1 = sorted[base1 + half - 1] < key1 ? base1 + half : base1;
+                base2 = sorted[base2 + half - 1] < key2 ? base2 + half : base2;
+                base3 = sorted[base3 + half - 1] < key3 ? base3 + half : base3;
+                length -= half;
+            }
+            // One candidate is left for each key: it is either the key itself or the slot before it
+            positions[i] = hitOrMiss(sorted, base0, key0);
+            positions[i + 1] = hitOrMiss(sorted, base1, key1);
+            positions[i + 2] = hitOrMiss(sorted, base2, key2);
+            positions[i + 3] = hitOrMiss(sorted, base3, key3);
+        }
+        for (; i < to; i++) {
+            positions[i] = hitOrMiss(sorted, BinarySearch.lowerBound(sorted, 0, n, keys[i]), keys[i]);
+        }
+    }
+
+    // Resolves the last candidate of a search: the key, the slot after it, or a miss
+    private static int hitOrMiss(int[] sorted, int candidate, int key) {
+        if (sorted[candidate] < key) {
+            candidate++;
+        }
+        return candidate < sorted.length && sorted[candidate] == key ? candidate : -1;
+    }
+
+    /**
+     * Splits a batch in halves until the chunks are small enough to search directly.
+     */
+    private static class SearchTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] sorted;
+        private final int[] keys;
+        private final int from;
+        private final int to;
+        private final int[] positions;
+
+        SearchTask(int[] sorted, int[] keys, int from, int to, int[] positions) {
+            this.sorted = sorted;
+            this.keys = keys;
+            this.from = from;
+            this.to = to;
+            this.positions = positions;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                searchChunk(sorted, keys, from, to, positions);
+                return;
+            }
+            int mid = from + (to - from) / 2;
+            invokeAll(new SearchTask(sorted, keys, from, mid, positions),
+                    new SearchTask(sorted, keys, mid, to, positions));
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package binarySearch;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * Evaluates a file of newline-separated expressions on all cores.
+ * <p>
+ * The input is memory-mapped and split into chunks of about a megabyte, each ending at a line
+ * boundary. A first parallel pass counts the lines of every chunk, which gives each chunk the number
+ * of its first line. A second parallel pass parses each line in place in the mapping, so no line
+ * is ever copied to the heap or turned into a {@code String}.
+ * <p>
+ * Results are written into a {@code double[]} or, for inputs too large for an array, into an output
+ * file with one result per line in input order. A line that fails to evaluate yields NaN and is
+ * reported in {@link Result#errors()}; it never stops the batch. A blank line holds no expression,
+ * so it is reported as an error too, and every result stays at the index of its line. Lines may end
+ * with {@code \n} or {@code \r\n}, and the input is read as ASCII.
+ */
+public class BatchEvaluator {
+
+    // Target chunk size; a chunk always extends to the end of its last line
+    private static final long CHUNK_BYTES = 1 << 20;
+    private static final long ONES = 0x0101010101010101L;
+    private static final long LOW_SEVEN_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    /**
+     * Evaluates every line of a file using all available processors.
+     *
+     * @param input The file of expressions, one per line.
+     * @return The result of every line and the lines that failed.
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalArgumentException if the file is null or has too many lines for an array.
+     */
+    public static Result evaluate(Path input) throws IOException {
+        return evaluate(input, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Evaluates every line of a file.
+     *
+     * @param input The file of expressions, one per line.
+     * @param parallelism The number of threads to use.
+     * @return The result of every line and the lines that failed.
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalArgumentException if the file is null, the parallelism is not positive, or the
+     *                                  file has too many lines for an array.
+     */
+    public static Result evaluate(Path input, int parallelism) throws IOException {
+        checkArguments(input, parallelism);
+        try (Arena arena = Arena.ofShared()) {
+            MemorySegment data = SegmentSearch.mapReadOnly(input, arena);
+            Chunk[] chunks = split(data);
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                long lines = countLines(pool, data, chunks);
+                if (lines > Integer.MAX_VALUE - 8) {
+                    throw new IllegalArgumentException("Too many lines for an array: " + lines);
+                }
+                double[] values = new double[(int) lines];
+                invokeAll(pool, chunks, 0, chunks.length, chunk -> chunk.evaluate(data, values, null));
+                return new Result(values, lines, collectErrors(chunks));
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Evaluates every line of a file and writes the results to another file, one per line in input
+     * order, using all available processors. Only a few chunks of results are held in memory at once,
+     * so the input may have any number of lines.
+     *
+     * @param input The file of expressions, one per line.
+     * @param output The file to create or overwrite with the results.
+     * @return The number of lines and the lines that failed; {@link Result#values()} is null.
+     * @throws IOException if either file cannot be accessed.
+     * @throws IllegalArgumentException if either file is null.
+     */
+    public static Result evaluate(Path input, Path output) throws IOException {
+        return evaluate(input, output, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Evaluates every line of a file and writes the results to another file, one per line in input
+     * order.
+     *
+     * @param input The file of expressions, one per line.
+     * @param output The file to create or overwrite with the results.
+     * @param parallelism The number of threads to use.
+     * @return The number of lines and the lines that failed; {@link Result#values()} is null.
+     * @throws IOException if either file cannot be accessed.
+     * @throws IllegalArgumentException if either file is null or the parallelism is not positive.
+     */
+    public static Result evaluate(Path input, Path output, int parallelism) throws IOException {
+        checkArguments(input, parallelism);
+        if (output == null) {
+            throw new IllegalArgumentException("Output path is null");
+        }
+        try (Arena arena = Arena.ofShared();
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            MemorySegment data = SegmentSearch.mapReadOnly(input, arena);
+            Chunk[] chunks = split(data);
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                long lines = countLines(pool, data, chunks);
+                // Evaluate a window of chunks in parallel, then append their output in order
+                int window = 2 * parallelism;
+                for (int from = 0; from < chunks.length; from += window) {
+                    int to = Math.min(chunks.length, from + window);
+                    invokeAll(pool, chunks, from, to, chunk -> chunk.evaluate(data, null, new TextOutput()));
+                    for (int i = from; i < to; i++) {
+                        ByteBuffer text = chunks[i].output.buffer();
+                        while (text.hasRemaining()) {
+                            out.write(text);
+                        }
+                        chunks[i].output = null;
+                    }
+                }
+                return new Result(null, lines, collectErrors(chunks));
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static void checkArguments(Path input, int parallelism) {
+        if (input == null) {
+            throw new IllegalArgumentException("Input path is null");
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+    }
+
+    /**
+     * Splits the data into chunks of about {@link #CHUNK_BYTES}, each ending just after a newline
+     * or at the end of the data.
+     */
+    private static Chunk[] split(MemorySegment data) {
+        List<Chunk> chunks = new ArrayList<>();
+        long size = data.byteSize();
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(size, start + CHUNK_BYTES);
+            while (end < size && data.get(ValueLayout.JAVA_BYTE, end - 1) != '\n') {
+                end++;
+            }
+            chunks.add(new Chunk(start, end));
+            start = end;
+        }
+        return chunks.toArray(new Chunk[0]);
+    }
+
+    /**
+     * Counts the lines of every chunk in parallel and numbers the first line of each.
+     *
+     * @return The total number of lines.
+     */
+    private static long countLines(ForkJoinPool pool, MemorySegment data, Chunk[] chunks) {
+        invokeAll(pool, chunks, 0, chunks.length, chunk -> chunk.lines = countLines(data, chunk.start, chunk.end));
+        long line = 0;
+        for (Chunk chunk : chunks) {
+            chunk.firstLine = line;
+            line += chunk.lines;
+        }
+        return line;
+    }
+
+    /**
+     * Counts the lines in a range: one per newline, plus a final line without a newline.
+     */
+    private static long countLines(MemorySegment data, long start, long end) {
+        long newlines = 0;
+        long position = start;
+        // Eight bytes at a time: a byte of the word XOR the newline pattern is zero exactly where a
+        // newline is, and the high bit of each byte of the sum below is set exactly for non-zero bytes
+        for (; position + Long.BYTES <= end; position += Long.BYTES) {
+            long word = data.get(ValueLayout.JAVA_LONG_UNALIGNED, position) ^ ('\n' * ONES);
+            long nonZero = (((word & LOW_SEVEN_BITS) + LOW_SEVEN_BITS) | word) & HIGH_BITS;
+            newlines += Long.BYTES - Long.bitCount(nonZero);
+        }
+        for (; position < end; position++) {
+            if (data.get(ValueLayout.JAVA_BYTE, position) == '\n') {
+                newlines++;
+            }
+        }
+        boolean unterminated = end > start && data.get(ValueLayout.JAVA_BYTE, end - 1) != '\n';
+        return newlines + (unterminated ? 1 : 0);
+    }
+
+    private static List<LineError> collectErrors(Chunk[] chunks) {
+        List<LineError> errors = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            errors.addAll(chunk.errors);
+        }
+        return errors;
+    }
+
+    private static void invokeAll(ForkJoinPool pool, Chunk[] chunks, int from, int to,
+                                  Consumer<Chunk> action) {
+        List<RecursiveAction> tasks = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            Chunk chunk = chunks[i];
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    action.accept(chunk);
+                }
+            });
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                ForkJoinTask.invokeAll(tasks);
+            }
+        });
+    }
+
+    /**
+     * A range of whole lines of the input.
+     */
+    private static class Chunk {
+
+        final long start;
+        final long end;
+        long lines;
+        long firstLine;
+        final List<LineError> errors = new ArrayList<>();
+        TextOutput output;
+
+        Chunk(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Evaluates every line of the chunk into the values array, the text output, or both.
+         */
+        void evaluate(MemorySegment data, double[] values, TextOutput text) {
+            output = text;
+            long line = firstLine;
+            long lineStart = start;
+            while (lineStart < end) {
+                long lineEnd = lineStart;
+                while (lineEnd < end && data.get(ValueLayout.JAVA_BYTE, lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                long contentEnd = lineEnd > lineStart && data.get(ValueLayout.JAVA_BYTE, lineEnd - 1) == '\r'
+                        ? lineEnd - 1 : lineEnd;
+                double value;
+                try {
+                    if (contentEnd - lineStart > Integer.MAX_VALUE) {
+                        throw new IllegalArgumentException("Line is longer than " + Integer.MAX_VALUE + " bytes.");
+                    }
+                    value = ExpressionParser.evaluateOnce(data, lineStart, (int) (contentEnd - lineStart));
+                } catch (IllegalArgumentException e) {
+                    value = Double.NaN;
+                    errors.add(new LineError(line + 1, e.getMessage()));
+                }
+                if (values != null) {
+                    values[(int) line] = value;
+                }
+                if (text != null) {
+                    text.append(value);
+                }
+                line++;
+                lineStart = lineEnd + 1;
+            }
+        }
+    }
+
+    /**
+     * A growable ASCII buffer of results, one per line.
+     */
+    private static class TextOutput {
+
+        private byte[] bytes = new byte[1 << 16];
+        private int length;
+
+        void append(double value) {
+            String text = Double.toString(value);
+            if (length + text.length() + 1 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + text.length() + 1));
+            }
+            for (int i = 0; i < text.length(); i++) {
+                bytes[length++] = (byte) text.charAt(i);
+            }
+            bytes[length++] = '\n';
+        }
+
+        ByteBuffer buffer() {
+            return ByteBuffer.wrap(bytes, 0, length);
+        }
+    }
+
+    /**
+     * The outcome of a batch.
+     */
+    public static final class Result {
+
+        private final double[] values;
+        private final long lineCount;
+        private final List<LineError> errors;
+
+        Result(double[] values, long lineCount, List<LineError> errors) {
+            this.values = values;
+            this.lineCount = lineCount;
+            this.errors = List.copyOf(errors);
+        }
+
+        /**
+         * Returns the result of every line in input order; NaN for lines that failed.
+         *
+         * @return The results, or null if they were written to an output file.
+         */
+        public double[] values() {
+            return values;
+        }
+
+        /**
+         * Returns the number of lines evaluated.
+         *
+         * @return The line count.
+         */
+        public long lineCount() {
+            return lineCount;
+        }
+
+        /**
+         * Returns the lines that failed to evaluate, in input order.
+         *
+         * @return An unmodifiable list of errors; empty if every line succeeded.
+         */
+        public List<LineError> errors() {
+            return errors;
+        }
+    }
+
+    /**
+     * A line that failed to evaluate.
+     */
+    public static final class LineError {
+
+        private final long line;
+        private final String message;
+
+        LineError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        /**
+         * Returns the number of the line, starting at 1.
+         *
+         * @return The line number.
+         */
+        public long line() {
+            return line;
+        }
+
+        /**
+         * Returns why the line failed.
+         *
+         * @return The error message.
+         */
+        public String message() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "line " + line + ": " + message;
+        }
+    }
+}
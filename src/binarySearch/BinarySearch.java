@@ -1,7 +1,7 @@
 package binarySearch;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Objects;
 
 public class BinarySearch {
 
@@ -36,35 +36,61 @@ public class BinarySearch {
         return binarySearchRecursive(arr, 0, arr.length - 1, target);
     }
 
-    public static ArrayList<Integer> findAllIndices(int[] arr, int target) {
-        ArrayList<Integer> indices = new ArrayList<>();
-        // Perform binary search to find the first occurrence
-        int index = binarySearch(arr, target);
-        
-        if (index == -1) {
-            return indices; // No target found
+    /**
+     * Searches a sorted array with a chosen algorithm.
+     *
+     * @param arr      The sorted array to search.
+     * @param target   The key to search for.
+     * @param strategy The search algorithm to use.
+     * @return The index of a matching element, or -1 if there is none. See {@link SearchStrategy}
+     *         for which index each strategy returns when the key occurs more than once.
+     * @throws IllegalArgumentException if the array is null or empty, or the strategy is null.
+     */
+    public static int binarySearch(int[] arr, int target, SearchStrategy strategy) {
+        if (arr == null || arr.length == 0) {
+            throw new IllegalArgumentException("Array is null or empty");
         }
-
-        // Add the first found index
-        indices.add(index);
-
-        // Check left side for duplicates
-        int left = index - 1;
-        while (left >= 0 && arr[left] == target) {
-            indices.add(left);
-            left--;
+        if (strategy == null) {
+            throw new IllegalArgumentException("Strategy is null");
         }
+        return strategy.search(arr, target);
+    }
 
-        // Check right side for duplicates
-        int right = index + 1;
-        while (right < arr.length && arr[right] == target) {
-            indices.add(right);
-            right++;
+    /**
+     * Lists every index holding the target in a sorted array, boxing each one.
+     *
+     * @deprecated Use {@link #indicesOf(int[], int)}, which returns the indices without boxing them,
+     *             or {@link #equalRange(int[], int)}, which returns the range without allocating.
+     */
+    @Deprecated
+    public static ArrayList<Integer> findAllIndices(int[] arr, int target) {
+        int[] found = indicesOf(arr, target);
+        ArrayList<Integer> indices = new ArrayList<>(found.length);
+        for (int index : found) {
+            indices.add(index);
         }
+        return indices;
+    }
 
-        // Sort the indices to maintain ascending order
-        Collections.sort(indices);
-
+    /**
+     * Lists every index holding the target in a sorted array. The run of the target is located with
+     * two O(log n) bound searches and copied into one array, so no index is boxed.
+     *
+     * @param arr    The sorted array to search.
+     * @param target The key to search for.
+     * @return The indices of the target in ascending order, or an empty array if it is absent.
+     * @throws IllegalArgumentException if the array is null or empty.
+     */
+    public static int[] indicesOf(int[] arr, int target) {
+        if (arr == null || arr.length == 0) {
+            throw new IllegalArgumentException("Array is null or empty");
+        }
+        long range = equalRange(arr, target);
+        int start = rangeStart(range);
+        int[] indices = new int[rangeEnd(range) - start];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = start + i;
+        }
         return indices;
     }
 
@@ -93,4 +119,292 @@ public class BinarySearch {
         }
         return binarySearchRecursive(arr, 0, arr.length - 1, target);
     }
+
+    /**
+     * Finds the first index in the sorted array whose element is not less than the key.
+     *
+     * @param arr The sorted array to search.
+     * @param key The key to search for.
+     * @return The first index {@code i} with {@code arr[i] >= key}, or {@code arr.length} if there is none.
+     * @throws IllegalArgumentException if the array is null.
+     */
+    public static int lowerBound(int[] arr, int key) {
+        checkNotNull(arr);
+        return lowerBound(arr, 0, arr.length, key);
+    }
+
+    /**
+     * Finds the first index in {@code [fromIndex, toIndex)} whose element is not less than the key.
+     * The loop narrows the range with a conditional move instead of a data-dependent branch, so
+     * every search of a given range length runs the same number of iterations.
+     *
+     * @param arr       The sorted array to search.
+     * @param fromIndex The first index of the range (inclusive).
+     * @param toIndex   The last index of the range (exclusive).
+     * @param key       The key to search for.
+     * @return The first index {@code i} in the range with {@code arr[i] >= key}, or {@code toIndex} if there is none.
+     */
+    public static int lowerBound(int[] arr, int fromIndex, int toIndex, int key) {
+        Objects.checkFromToIndex(fromIndex, toIndex, arr.length);
+        int base = fromIndex;
+        int length = toIndex - fromIndex;
+        while (length > 1) {
+            int half = length >>> 1;
+            base = arr[base + half - 1] < key ? base + half : base;
+            length -= half;
+        }
+        return length == 1 && arr[base] < key ? base + 1 : base;
+    }
+
+    /**
+     * Finds the first index in the sorted array whose element is greater than the key.
+     *
+     * @param arr The sorted array to search.
+     * @param key The key to search for.
+     * @return The first index {@code i} with {@code arr[i] > key}, or {@code arr.length} if there is none.
+     * @throws IllegalArgumentException if the array is null.
+     */
+    public static int upperBound(int[] arr, int key) {
+        checkNotNull(arr);
+        return upperBound(arr, 0, arr.length, key);
+    }
+
+    /**
+     * Finds the first index in {@code [fromIndex, toIndex)} whose element is greater than the key.
+     *
+     * @param arr       The sorted array to search.
+     * @param fromIndex The first index of the range (inclusive).
+     * @param toIndex   The last index of the range (exclusive).
+     * @param key       The key to search for.
+     * @return The first index {@code i} in the range with {@code arr[i] > key}, or {@code toIndex} if there is none.
+     */
+    public static int upperBound(int[] arr, int fromIndex, int toIndex, int key) {
+        Objects.checkFromToIndex(fromIndex, toIndex, arr.length);
+        int base = fromIndex;
+        int length = toIndex - fromIndex;
+        while (length > 1) {
+            int half = length >>> 1;
+            base = arr[base + half - 1] <= key ? base + half : base;
+            length -= half;
+        }
+        return length == 1 && arr[base] <= key ? base + 1 : base;
+    }
+
+    /**
+     * Finds the range of indices holding the key in a sorted array.
+     *
+     * @param arr The sorted array to search.
+     * @param key The key to search for.
+     * @return The packed range {@code [start, end)}; decode it with {@link #rangeStart} and {@link #rangeEnd}.
+     *         The range is empty (start == end) when the key is absent.
+     * @throws IllegalArgumentException if the array is null.
+     */
+    public static long equalRange(int[] arr, int key) {
+        checkNotNull(arr);
+        int start = lowerBound(arr, 0, arr.length, key);
+        // The run of the key cannot begin before start, so the upper bound only searches the rest
+        return range(start, upperBound(arr, start, arr.length, key));
+    }
+
+    /**
+     * Finds the first index in the sorted array whose element is not less than the key.
+     *
+     * @param arr The sorted array to search.
+     * @param key The key to search for.
+     * @return The first index {@code i} with {@code arr[i] >= key}, or {@code arr.length} if there is none.
+     * @throws IllegalArgumentException if the array is null.
+     */
+    public static int lowerBound(long[] arr, long key) {
+        checkNotNull(arr);
+        return lowerBound(arr, 0, arr.length, key);
+    }
+
+    /**
+     * Finds the first index in {@code [fromIndex, toIndex)} whose element is not less than the key.
+     *
+     * @param arr       The sorted array to search.
+     * @param fromIndex The first index of the range (inclusive).
+     * @param toIndex   The last index of the range (exclusive).
+     * @param key       The key to search for.
+     * @return The first index {@code i} in the range with {@code arr[i] >= key}, or {@code toIndex} if there is none.
+     */
+    public static int lowerBound(long[] arr, int fromIndex, int toIndex, long key) {
+        Objects.checkFromToIndex(fromIndex, toIndex, arr.length);
+        int base = fromIndex;
+        int length = toIndex - fromIndex;
+        while (length > 1) {
+            int half = length >>> 1;
+            base = arr[base + half - 1] < key ? base + half : base;
+            length -= half;
+        }
+        return length == 1 && arr[base] < key ? base + 1 : base;
+    }
+
+    /**
+     * Finds the first index in the sorted array whose element is greater than the key.
+     *
+     * @param arr The sorted array to search.
+     * @param key The key to search for.
+     * @return The first index {@code i} with {@code arr[i] > key}, or {@code arr.length} if there is none.
+     * @throws IllegalArgumentException if the array is null.
+     */
+    public static int upperBound(long[] arr, long key) {
+        checkNotNull(arr);
+        return upperBound(arr, 0, arr.length, key);
+    }
+
+    /**
+     * Finds the first index in {@code [fromIndex, toIndex)} whose element is greater than the key.
+     *
+     * @param arr       The sorted array to search.
+     * @param fromIndex The first index of the range (inclusive).
+     * @param toIndex   The last index of the range (exclusive).
+     * @param key       The key to search for.
+     * @return The first index {@code i} in the range with {@code arr[i] > key}, or {@code toIndex} if there is none.
+     */
+    public static int upperBound(long[] arr, int fromIndex, int toIndex, long key) {
+        Objects.checkFromToIndex(fromIndex, toIndex, arr.length);
+        int base = fromIndex;
+        int length = toIndex - fromIndex;
+        while (length > 1) {
+            int half = length >>> 1;
+            base = arr[base + half - 1] <= key ? base + half : base;
+            length -= half;
+        }
+        return length == 1 && arr[base] <= key ? base + 1 : base;
+    }
+
+    /**
+     * Finds the range of indices holding the key in a sorted array.
+     *
+     * @param arr The sorted array to search.
+     * @param key The key to search for.
+     * @return The packed range {@code [start, end)}; decode it with {@link #rangeStart} and {@link #rangeEnd}.
+     * @throws IllegalArgumentException if the array is null.
+     */
+    public static long equalRange(long[] arr, long key) {
+        checkNotNull(arr);
+        int start = lowerBound(arr, 0, arr.length, key);
+        return range(start, upperBound(arr, start, arr.length, key));
+    }
+
+    /**
+     * Finds the first index in the sorted array whose element is not less than the key.
+     *
+     * @param arr The sorted array to search.
+     * @param key The key to search for.
+     * @return The first index {@code i} with {@code arr[i].compareTo(key) >= 0}, or {@code arr.length} if there is none.
+     * @throws IllegalArgumentException if the array is null.
+     */
+    public static int lowerBound(String[] arr, String key) {
+        checkNotNull(arr);
+        return lowerBound(arr, 0, arr.length, key);
+    }
+
+    /**
+     * Finds the first index in {@code [fromIndex, toIndex)} whose element is not less than the key.
+     *
+     * @param arr       The sorted array to search.
+     * @param fromIndex The first index of the range (inclusive).
+     * @param toIndex   The last index of the range (exclusive).
+     * @param key       The key to search for.
+     * @return The first index {@code i} in the range with {@code arr[i].compareTo(key) >= 0}, or {@code toIndex} if there is none.
+     */
+    public static int lowerBound(String[] arr, int fromIndex, int toIndex, String key) {
+        Objects.checkFromToIndex(fromIndex, toIndex, arr.length);
+        int base = fromIndex;
+        int length = toIndex - fromIndex;
+        while (length > 1) {
+            int half = length >>> 1;
+            base = arr[base + half - 1].compareTo(key) < 0 ? base + half : base;
+            length -= half;
+        }
+        return length == 1 && arr[base].compareTo(key) < 0 ? base + 1 : base;
+    }
+
+    /**
+     * Finds the first index in the sorted array whose element is greater than the key.
+     *
+     * @param arr The sorted array to search.
+     * @param key The key to search for.
+     * @return The first index {@code i} with {@code arr[i].compareTo(key) > 0}, or {@code arr.length} if there is none.
+     * @throws IllegalArgumentException if the array is null.
+     */
+    public static int upperBound(String[] arr, String key) {
+        checkNotNull(arr);
+        return upperBound(arr, 0, arr.length, key);
+    }
+
+    /**
+     * Finds the first index in {@code [fromIndex, toIndex)} whose element is greater than the key.
+     *
+     * @param arr       The sorted array to search.
+     * @param fromIndex The first index of the range (inclusive).
+     * @param toIndex   The last index of the range (exclusive).
+     * @param key       The key to search for.
+     * @return The first index {@code i} in the range with {@code arr[i].compareTo(key) > 0}, or {@code toIndex} if there is none.
+     */
+    public static int upperBound(String[] arr, int fromIndex, int toIndex, String key) {
+        Objects.checkFromToIndex(fromIndex, toIndex, arr.length);
+        int base = fromIndex;
+        int length = toIndex - fromIndex;
+        while (length > 1) {
+            int half = length >>> 1;
+            base = arr[base + half - 1].compareTo(key) <= 0 ? base + half : base;
+            length -= half;
+        }
+        return length == 1 && arr[base].compareTo(key) <= 0 ? base + 1 : base;
+    }
+
+    /**
+     * Finds the range of indices holding the key in a sorted array.
+     *
+     * @param arr The sorted array to search.
+     * @param key The key to search for.
+     * @return The packed range {@code [start, end)}; decode it with {@link #rangeStart} and {@link #rangeEnd}.
+     * @throws IllegalArgumentException if the array is null.
+     */
+    public static long equalRange(String[] arr, String key) {
+        checkNotNull(arr);
+        int start = lowerBound(arr, 0, arr.length, key);
+        return range(start, upperBound(arr, start, arr.length, key));
+    }
+
+    /**
+     * Packs a {@code [start, end)} index range into a single long so range results need no allocation.
+     *
+     * @param start The first index of the range (inclusive).
+     * @param end   The last index of the range (exclusive).
+     * @return The packed range.
+     */
+    public static long range(int start, int end) {
+        return ((long) start << 32) | (end & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Extracts the start index (inclusive) of a packed range.
+     *
+     * @param range A range packed by {@link #range}.
+     * @return The start index.
+     */
+    public static int rangeStart(long range) {
+        return (int) (range >>> 32);
+    }
+
+    /**
+     * Extracts the end index (exclusive) of a packed range.
+     *
+     * @param range A range packed by {@link #range}.
+     * @return The end index.
+     */
+    public static int rangeEnd(long range) {
+        return (int) range;
+    }
+
+    // Bound searches accept empty arrays, so they only reject null
+    private static void checkNotNull(Object arr) {
+        if (arr == null) {
+            throw new IllegalArgumentException("Array is null");
+        }
+    }
 }
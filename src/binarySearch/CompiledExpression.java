@@ -0,0 +1,487 @@
+package binarySearch;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A parsed mathematical expression that can be evaluated any number of times without parsing it again.
+ * <p>
+ * The expression is stored as a flat postfix program: a sequence of instructions for a small stack
+ * machine plus a table of the numeric literals. Evaluation walks the program once and applies the
+ * operators in the same order as the parser met them, so results are identical to evaluating the
+ * source text directly.
+ * <p>
+ * Expressions may refer to named variables. A single row of values is evaluated with
+ * {@link #evaluate(double...)}. Whole columns are evaluated with {@link #evaluateColumns(double[][], double[])},
+ * which runs each operator as one tight loop over a block of rows instead of interpreting the
+ * program once per row.
+ * <p>
+ * Instances are immutable and safe to share between threads; each evaluation uses its own stack.
+ * Use {@link ExpressionParser#compile(String)} to create one.
+ */
+public final class CompiledExpression {
+
+    // Opcodes, stored in the low byte of each instruction; the upper bits hold the operand
+    static final int CONST = 0;
+    static final int ADD = 1;
+    static final int SUB = 2;
+    static final int MUL = 3;
+    static final int DIV = 4;
+    static final int VAR = 5;
+    static final int NEG = 6;
+    // Copies the top of the stack into a slot without popping it, and pushes a slot back
+    static final int STORE = 7;
+    static final int LOAD = 8;
+
+    static final int OPCODE_MASK = 0xFF;
+    static final int OPERAND_SHIFT = 8;
+
+    // Rows per block in columnar evaluation; the temporaries of a block stay in the CPU cache
+    private static final int BLOCK_ROWS = 1024;
+
+    private final String source;
+    private final int[] code;
+    private final double[] constants;
+    private final String[] variables;
+    private final int maxStack;
+    // Slots holding common sub-expressions that are computed once and used several times
+    private final int slots;
+
+    CompiledExpression(String source, int[] code, double[] constants, String[] variables, int maxStack, int slots) {
+        this.source = source;
+        this.code = code;
+        this.constants = constants;
+        this.variables = variables;
+        this.maxStack = maxStack;
+        this.slots = slots;
+    }
+
+    /**
+     * Returns the names of the variables the expression refers to, in order of first appearance.
+     * Values for the variables are passed in this order.
+     *
+     * @return An unmodifiable list of variable names; empty if the expression has none.
+     */
+    public List<String> variables() {
+        return List.of(variables);
+    }
+
+    /**
+     * Evaluates an expression that has no variables.
+     *
+     * @return The value of the expression.
+     * @throws IllegalArgumentException if the expression has variables.
+     */
+    public double evaluate() {
+        return evaluate(new double[0]);
+    }
+
+    /**
+     * Evaluates the expression for one set of variable values.
+     *
+     * @param values The value of each variable, in the order of {@link #variables()}.
+     * @return The value of the expression.
+     * @throws IllegalArgumentException if the number of values does not match the number of variables.
+     */
+    public double evaluate(double... values) {
+        if (values == null || values.length != variables.length) {
+            throw new IllegalArgumentException("Expected values for variables " + variables()
+                    + " but got " + (values == null ? 0 : values.length) + ".");
+        }
+        // The slots live after the stack, so one allocation serves both
+        double[] stack = new double[maxStack + slots];
+        int top = -1;
+        for (int instruction : code) {
+            switch (instruction & OPCODE_MASK) {
+                case CONST:
+                    stack[++top] = constants[instruction >>> OPERAND_SHIFT];
+                    break;
+                case VAR:
+                    stack[++top] = values[instruction >>> OPERAND_SHIFT];
+                    break;
+                case ADD:
+                    top--;
+                    stack[top] += stack[top + 1];
+                    break;
+                case SUB:
+                    top--;
+                    stack[top] -= stack[top + 1];
+                    break;
+                case MUL:
+                    top--;
+                    stack[top] *= stack[top + 1];
+                    break;
+                case DIV:
+                    top--;
+                    stack[top] /= stack[top + 1];
+                    break;
+                case NEG:
+                    stack[top] = -stack[top];
+                    break;
+                case STORE:
+                    stack[maxStack + (instruction >>> OPERAND_SHIFT)] = stack[top];
+                    break;
+                case LOAD:
+                    stack[++top] = stack[maxStack + (instruction >>> OPERAND_SHIFT)];
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown opcode: " + (instruction & OPCODE_MASK));
+            }
+        }
+        return stack[0];
+    }
+
+    /**
+     * Evaluates the expression for every row of a set of columns.
+     *
+     * @param columns The columns bound to the variables by name.
+     * @param results The array receiving one result per row; its length is the number of rows.
+     * @throws IllegalArgumentException if a variable has no column or a column has the wrong length.
+     */
+    public void evaluateColumns(Map<String, double[]> columns, double[] results) {
+        if (columns == null) {
+            throw new IllegalArgumentException("Columns cannot be null.");
+        }
+        double[][] ordered = new double[variables.length][];
+        for (int i = 0; i < variables.length; i++) {
+            ordered[i] = columns.get(variables[i]);
+            if (ordered[i] == null) {
+                throw new IllegalArgumentException("Missing column for variable: " + variables[i]);
+            }
+        }
+        evaluateColumns(ordered, results);
+    }
+
+    /**
+     * Evaluates the expression for every row of a set of columns.
+     * <p>
+     * Rows are processed in blocks. Within a block each operator is a single loop over the rows, so
+     * the program is interpreted once per block instead of once per row, and the loops are simple
+     * enough for the JIT to vectorize. Literals stay scalars and columns are read in place; only
+     * intermediate results need temporary storage.
+     *
+     * @param columns The column of each variable, in the order of {@link #variables()}.
+     * @param results The array receiving one result per row; its length is the number of rows.
+     * @throws IllegalArgumentException if the number of columns does not match the number of
+     *                                  variables, or a column has the wrong length.
+     */
+    public void evaluateColumns(double[][] columns, double[] results) {
+        if (columns == null || results == null || columns.length != variables.length) {
+            throw new IllegalArgumentException("Expected columns for variables " + variables() + ".");
+        }
+        int rows = results.length;
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] == null || columns[i].length != rows) {
+                throw new IllegalArgumentException("Column for variable " + variables[i] + " must have " + rows + " rows.");
+            }
+        }
+
+        // Each stack slot is either a scalar or a slice of an array starting at an offset
+        boolean[] scalar = new boolean[maxStack];
+        double[] scalars = new double[maxStack];
+        double[][] arrays = new double[maxStack][];
+        int[] offsets = new int[maxStack];
+        double[][] temporaries = new double[maxStack][];
+        // Saved sub-expressions: a scalar, or a block of rows in an array of their own
+        boolean[] slotScalar = new boolean[slots];
+        double[] slotScalars = new double[slots];
+        double[][] slotArrays = new double[slots][];
+        int[] slotOffsets = new int[slots];
+        double[][] slotBuffers = new double[slots][];
+
+        for (int start = 0; start < rows; start += BLOCK_ROWS) {
+            int length = Math.min(BLOCK_ROWS, rows - start);
+            int top = -1;
+            for (int instruction : code) {
+                int opcode = instruction & OPCODE_MASK;
+                if (opcode == CONST) {
+                    top++;
+                    scalar[top] = true;
+                    scalars[top] = constants[instruction >>> OPERAND_SHIFT];
+                } else if (opcode == VAR) {
+                    top++;
+                    scalar[top] = false;
+                    arrays[top] = columns[instruction >>> OPERAND_SHIFT];
+                    offsets[top] = start;
+                } else if (opcode == STORE) {
+                    int slot = instruction >>> OPERAND_SHIFT;
+                    slotScalar[slot] = scalar[top];
+                    if (scalar[top]) {
+                        slotScalars[slot] = scalars[top];
+                    } else if (arrays[top] == temporaries[top]) {
+                        // A temporary is overwritten by later operators, so keep a copy
+                        if (slotBuffers[slot] == null) {
+                            slotBuffers[slot] = new double[BLOCK_ROWS];
+                        }
+                        System.arraycopy(arrays[top], offsets[top], slotBuffers[slot], 0, length);
+                        slotArrays[slot] = slotBuffers[slot];
+                        slotOffsets[slot] = 0;
+                    } else {
+                        slotArrays[slot] = arrays[top];
+                        slotOffsets[slot] = offsets[top];
+                    }
+                } else if (opcode == LOAD) {
+                    int slot = instruction >>> OPERAND_SHIFT;
+                    top++;
+                    scalar[top] = slotScalar[slot];
+                    scalars[top] = slotScalars[slot];
+                    arrays[top] = slotArrays[slot];
+                    offsets[top] = slotOffsets[slot];
+                } else if (opcode == NEG) {
+                    if (scalar[top]) {
+                        scalars[top] = -scalars[top];
+                        continue;
+                    }
+                    if (temporaries[top] == null) {
+                        temporaries[top] = new double[BLOCK_ROWS];
+                    }
+                    double[] source = arrays[top];
+                    int offset = offsets[top];
+                    double[] target = temporaries[top];
+                    for (int i = 0; i < length; i++) {
+                        target[i] = -source[offset + i];
+                    }
+                    arrays[top] = target;
+                    offsets[top] = 0;
+                } else {
+                    int right = top--;
+                    int left = top;
+                    if (scalar[left] && scalar[right]) {
+                        scalars[left] = apply(opcode, scalars[left], scalars[right]);
+                        continue;
+                    }
+                    // The result of slot left goes to its own temporary; reading a slot's temporary
+                    // while writing it is safe because every row only touches its own element
+                    if (temporaries[left] == null) {
+                        temporaries[left] = new double[BLOCK_ROWS];
+                    }
+                    double[] target = temporaries[left];
+                    if (scalar[left]) {
+                        applyScalarLeft(opcode, scalars[left], arrays[right], offsets[right], target, length);
+                    } else if (scalar[right]) {
+                        applyScalarRight(opcode, arrays[left], offsets[left], scalars[right], target, length);
+                    } else {
+                        applyColumns(opcode, arrays[left], offsets[left], arrays[right], offsets[right], target, length);
+                    }
+                    scalar[left] = false;
+                    arrays[left] = target;
+                    offsets[left] = 0;
+                }
+            }
+            if (scalar[0]) {
+                Arrays.fill(results, start, start + length, scalars[0]);
+            } else {
+                System.arraycopy(arrays[0], offsets[0], results, start, length);
+            }
+        }
+    }
+
+    private static double apply(int opcode, double left, double right) {
+        switch (opcode) {
+            case ADD:
+                return left + right;
+            case SUB:
+                return left - right;
+            case MUL:
+                return left * right;
+            case DIV:
+                return left / right;
+            default:
+                throw new IllegalStateException("Unknown opcode: " + opcode);
+        }
+    }
+
+    private static void applyColumns(int opcode, double[] left, int leftOffset, double[] right, int rightOffset,
+                                     double[] target, int length) {
+        switch (opcode) {
+            case ADD:
+                for (int i = 0; i < length; i++) {
+                    target[i] = left[leftOffset + i] + right[rightOffset + i];
+                }
+                break;
+            case SUB:
+                for (int i = 0; i < length; i++) {
+                    target[i] = left[leftOffset + i] - right[rightOffset + i];
+                }
+                break;
+            case MUL:
+                for (int i = 0; i < length; i++) {
+                    target[i] = left[leftOffset + i] * right[rightOffset + i];
+                }
+                break;
+            case DIV:
+                for (int i = 0; i < length; i++) {
+                    target[i] = left[leftOffset + i] / right[rightOffset + i];
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unknown opcode: " + opcode);
+        }
+    }
+
+    private static void applyScalarLeft(int opcode, double left, double[] right, int rightOffset,
+                                        double[] target, int length) {
+        switch (opcode) {
+            case ADD:
+                for (int i = 0; i < length; i++) {
+                    target[i] = left + right[rightOffset + i];
+                }
+                break;
+            case SUB:
+                for (int i = 0; i < length; i++) {
+                    target[i] = left - right[rightOffset + i];
+                }
+                break;
+            case MUL:
+                for (int i = 0; i < length; i++) {
+                    target[i] = left * right[rightOffset + i];
+                }
+                break;
+            case DIV:
+                for (int i = 0; i < length; i++) {
+                    target[i] = left / right[rightOffset + i];
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unknown opcode: " + opcode);
+        }
+    }
+
+    private static void applyScalarRight(int opcode, double[] left, int leftOffset, double right,
+                                         double[] target, int length) {
+        switch (opcode) {
+            case ADD:
+                for (int i = 0; i < length; i++) {
+                    target[i] = left[leftOffset + i] + right;
+                }
+                break;
+            case SUB:
+                for (int i = 0; i < length; i++) {
+                    target[i] = left[leftOffset + i] - right;
+                }
+                break;
+            case MUL:
+                for (int i = 0; i < length; i++) {
+                    target[i] = left[leftOffset + i] * right;
+                }
+                break;
+            case DIV:
+                for (int i = 0; i < length; i++) {
+                    target[i] = left[leftOffset + i] / right;
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unknown opcode: " + opcode);
+        }
+    }
+
+    /**
+     * Returns the text this expression was compiled from.
+     *
+     * @return The source expression.
+     */
+    public String source() {
+        return source;
+    }
+
+    // Accessors for the bytecode backend
+    int[] code() {
+        return code;
+    }
+
+    double[] constants() {
+        return constants;
+    }
+
+    int maxStack() {
+        return maxStack;
+    }
+
+    int slots() {
+        return slots;
+    }
+
+    String[] variableNames() {
+        return variables;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    /**
+     * Collects the instructions of a program as it is being parsed and tracks the stack depth it needs.
+     */
+    static class Builder {
+
+        private int[] code = new int[16];
+        private int length;
+        private double[] constants = new double[8];
+        private int constantCount;
+        private final Map<String, Integer> variables = new LinkedHashMap<>();
+        private int depth;
+        private int maxStack;
+
+        /**
+         * Appends an instruction that pushes a literal.
+         *
+         * @param value The literal to push.
+         */
+        void constant(double value) {
+            if (constantCount == constants.length) {
+                constants = Arrays.copyOf(constants, constantCount * 2);
+            }
+            constants[constantCount] = value;
+            emit(CONST | (constantCount++ << OPERAND_SHIFT));
+            push();
+        }
+
+        /**
+         * Appends an instruction that pushes the value of a variable.
+         *
+         * @param name The name of the variable.
+         */
+        void variable(String name) {
+            int index = variables.computeIfAbsent(name, key -> variables.size());
+            emit(VAR | (index << OPERAND_SHIFT));
+            push();
+        }
+
+        /**
+         * Appends a binary operator, which pops two values and pushes one.
+         *
+         * @param opcode One of ADD, SUB, MUL or DIV.
+         */
+        void operator(int opcode) {
+            emit(opcode);
+            depth--;
+        }
+
+        /**
+         * Appends a negation, which replaces the value on top of the stack.
+         */
+        void negate() {
+            emit(NEG);
+        }
+
+        private void push() {
+            depth++;
+            maxStack = Math.max(maxStack, depth);
+        }
+
+        private void emit(int instruction) {
+            if (length == code.length) {
+                code = Arrays.copyOf(code, length * 2);
+            }
+            code[length++] = instruction;
+        }
+
+        CompiledExpression build(String source) {
+            return new CompiledExpression(source, Arrays.copyOf(code, length),
+                    Arrays.copyOf(constants, constantCount), variables.keySet().toArray(new String[0]), maxStack, 0);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package binarySearch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe sorted set of ints where reads never block.
+ * <p>
+ * The keys live in an immutable sorted array that is replaced as a whole on every change. A reader
+ * takes the current array with a single volatile read and binary-searches it. It takes no lock and
+ * writes no shared memory, so read throughput scales with the number of cores.
+ * <p>
+ * Writers batch their work by flat combining. Each mutation is queued, and whichever writer holds
+ * the write lock applies every queued mutation in one merge pass and publishes one new array. Under
+ * a steady write load, many concurrent {@code add} and {@code remove} calls share a single copy of
+ * the array instead of copying it once each.
+ */
+public class ConcurrentSortedIntSet {
+
+    private static final int PENDING = 0;
+    private static final int CHANGED = 1;
+    private static final int UNCHANGED = 2;
+
+    // The published keys; never modified after publication
+    private volatile int[] keys = new int[0];
+    private final ConcurrentLinkedQueue<Mutation> pending = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /**
+     * Checks whether the set contains a key. Never blocks.
+     *
+     * @param key The key to look up.
+     * @return true if the key is in the set, false otherwise.
+     */
+    public boolean contains(int key) {
+        int[] current = keys;
+        int index = BinarySearch.lowerBound(current, 0, current.length, key);
+        return index < current.length && current[index] == key;
+    }
+
+    /**
+     * Returns the number of keys in the set. Never blocks.
+     *
+     * @return The number of keys.
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Returns the current contents of the set. The snapshot does not change when the set does, so
+     * several reads through it see one consistent state.
+     *
+     * @return An immutable view of the keys at this moment.
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(keys);
+    }
+
+    /**
+     * Adds a key to the set. The key is visible to readers when this method returns.
+     *
+     * @param key The key to add.
+     * @return true if the key was not already in the set.
+     */
+    public boolean add(int key) {
+        return apply(new Mutation(key, true));
+    }
+
+    /**
+     * Removes a key from the set. The removal is visible to readers when this method returns.
+     *
+     * @param key The key to remove.
+     * @return true if the key was in the set.
+     */
+    public boolean remove(int key) {
+        return apply(new Mutation(key, false));
+    }
+
+    /**
+     * Adds several keys and publishes them together in a single new snapshot.
+     *
+     * @param additions The keys to add, in any order.
+     * @throws IllegalArgumentException if the array is null.
+     */
+    public void addAll(int[] additions) {
+        applyAll(additions, true);
+    }
+
+    /**
+     * Removes several keys and publishes the result in a single new snapshot.
+     *
+     * @param removals The keys to remove, in any order.
+     * @throws IllegalArgumentException if the array is null.
+     */
+    public void removeAll(int[] removals) {
+        applyAll(removals, false);
+    }
+
+    private void applyAll(int[] batch, boolean insert) {
+        if (batch == null) {
+            throw new IllegalArgumentException("Array is null");
+        }
+        for (int key : batch) {
+            pending.add(new Mutation(key, insert));
+        }
+        writeLock.lock();
+        try {
+            combine();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private boolean apply(Mutation mutation) {
+        pending.add(mutation);
+        writeLock.lock();
+        try {
+            // The previous lock holder has usually applied this mutation already
+            if (mutation.state == PENDING) {
+                combine();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        return mutation.state == CHANGED;
+    }
+
+    /**
+     * Applies every queued mutation in one merge with the current keys and publishes the result.
+     * Must be called with the write lock held.
+     */
+    private void combine() {
+        List<Mutation> batch = new ArrayList<>();
+        for (Mutation mutation; (mutation = pending.poll()) != null; ) {
+            batch.add(mutation);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        // A stable sort keeps the queue order of mutations on the same key
+        batch.sort((a, b) -> Integer.compare(a.key, b.key));
+
+        int[] current = keys;
+        int[] merged = new int[current.length + batch.size()];
+        int size = 0;
+        int next = 0;
+        for (int i = 0; i < batch.size(); ) {
+            int key = batch.get(i).key;
+            // Copy the untouched keys below this one
+            while (next < current.length && current[next] < key) {
+                merged[size++] = current[next++];
+            }
+            boolean present = next < current.length && current[next] == key;
+            if (present) {
+                next++;
+            }
+            // Replay the mutations on this key in the order they were queued
+            for (; i < batch.size() && batch.get(i).key == key; i++) {
+                Mutation mutation = batch.get(i);
+                mutation.result = present != mutation.insert ? CHANGED : UNCHANGED;
+                present = mutation.insert;
+            }
+            if (present) {
+                merged[size++] = key;
+            }
+        }
+        while (next < current.length) {
+            merged[size++] = current[next++];
+        }
+        keys = Arrays.copyOf(merged, size);
+
+        // Only release the waiting writers once their change is visible to readers
+        for (Mutation mutation : batch) {
+            mutation.state = mutation.result;
+        }
+    }
+
+    /**
+     * A queued add or remove.
+     */
+    private static class Mutation {
+
+        final int key;
+        final boolean insert;
+        // Result computed by the combiner, published through state
+        int result;
+        volatile int state = PENDING;
+
+        Mutation(int key, boolean insert) {
+            this.key = key;
+            this.insert = insert;
+        }
+    }
+
+    /**
+     * An immutable point-in-time view of the set.
+     */
+    public static final class Snapshot {
+
+        private final int[] keys;
+
+        private Snapshot(int[] keys) {
+            this.keys = keys;
+        }
+
+        /**
+         * Checks whether the snapshot contains a key.
+         *
+         * @param key The key to look up.
+         * @return true if the key is in the snapshot.
+         */
+        public boolean contains(int key) {
+            int index = rank(key);
+            return index < keys.length && keys[index] == key;
+        }
+
+        /**
+         * Counts the keys smaller than a given key.
+         *
+         * @param key The key to rank.
+         * @return The number of keys in the snapshot smaller than the key.
+         */
+        public int rank(int key) {
+            return BinarySearch.lowerBound(keys, 0, keys.length, key);
+        }
+
+        /**
+         * Returns the key at an index in ascending order.
+         *
+         * @param index The index of the key.
+         * @return The key.
+         * @throws IndexOutOfBoundsException if the index is out of range.
+         */
+        public int get(int index) {
+            return keys[index];
+        }
+
+        /**
+         * Returns the number of keys in the snapshot.
+         *
+         * @return The number of keys.
+         */
+        public int size() {
+            return keys.length;
+        }
+
+        /**
+         * Copies the keys into a new array.
+         *
+         * @return The keys in ascending order.
+         */
+        public int[] toArray() {
+            return keys.clone();
+        }
+    }
+}
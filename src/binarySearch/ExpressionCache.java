@@ -0,0 +1,222 @@
+package binarySearch;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe, size-bounded cache of compiled expressions keyed by their source text.
+ * <p>
+ * The cache is split into independent segments, each with its own lock and its own
+ * least-recently-used order, and a source string always maps to the same segment. Threads that look
+ * up different expressions mostly take different locks, so there is no global lock on the lookup
+ * path. Each segment holds a fixed share of the capacity and evicts its least recently used entry
+ * when it is full.
+ * <p>
+ * Expressions are compiled outside the segment lock. Two threads that miss on the same source at
+ * the same moment may both compile it; only one result is kept. Expressions that fail to compile
+ * are not cached.
+ */
+public final class ExpressionCache {
+
+    private static final int DEFAULT_SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final int capacity;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a cache that holds at most the given number of expressions.
+     *
+     * @param capacity The maximum number of cached expressions.
+     * @throws IllegalArgumentException if the capacity is not positive.
+     */
+    public ExpressionCache(int capacity) {
+        this(capacity, DEFAULT_SEGMENTS);
+    }
+
+    /**
+     * Creates a cache that holds at most the given number of expressions, split into the given
+     * number of independently locked segments.
+     *
+     * @param capacity The maximum number of cached expressions.
+     * @param concurrency The number of segments; rounded down to a power of two and to the capacity.
+     * @throws IllegalArgumentException if the capacity or the concurrency is not positive.
+     */
+    public ExpressionCache(int capacity, int concurrency) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("Concurrency must be positive.");
+        }
+        this.capacity = capacity;
+        int count = Integer.highestOneBit(Math.min(capacity, concurrency));
+        segments = new Segment[count];
+        // Share the capacity so that the segments add up to exactly the total
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(capacity / count + (i < capacity % count ? 1 : 0));
+        }
+    }
+
+    /**
+     * Returns the compiled form of an expression, compiling and caching it on the first request.
+     *
+     * @param expression The source text of the expression.
+     * @return The compiled expression.
+     * @throws IllegalArgumentException if the expression is null, empty, or improperly formatted.
+     */
+    public CompiledExpression compile(String expression) throws IllegalArgumentException {
+        if (expression == null) {
+            throw new IllegalArgumentException("Expression cannot be null or empty.");
+        }
+        Segment segment = segmentFor(expression);
+        CompiledExpression compiled = segment.get(expression);
+        if (compiled != null) {
+            hits.increment();
+            return compiled;
+        }
+        misses.increment();
+        // Compile without holding the lock; a failure propagates and caches nothing
+        return segment.putIfAbsent(expression, ExpressionParser.compile(expression));
+    }
+
+    /**
+     * Evaluates an expression without variables, reusing its compiled form when it is cached.
+     *
+     * @param expression The source text of the expression.
+     * @return The result of the evaluated expression.
+     * @throws IllegalArgumentException if the expression is null, empty, or improperly formatted.
+     */
+    public double evaluate(String expression) throws IllegalArgumentException {
+        return compile(expression).evaluate();
+    }
+
+    /**
+     * Returns the number of lookups that found the expression in the cache.
+     *
+     * @return The hit count.
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups that had to compile the expression.
+     *
+     * @return The miss count.
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of expressions removed to make room for new ones.
+     *
+     * @return The eviction count.
+     */
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the number of cached expressions.
+     *
+     * @return The current size, at most {@link #capacity()}.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the maximum number of cached expressions.
+     *
+     * @return The capacity.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Removes every cached expression. The counters are not reset.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    private Segment segmentFor(String expression) {
+        int hash = expression.hashCode();
+        // Mix the high bits in, since String hashes of similar formulas differ mostly in low bits
+        hash ^= hash >>> 16;
+        return segments[hash & (segments.length - 1)];
+    }
+
+    /**
+     * One independently locked share of the cache, in least-recently-used order.
+     */
+    private final class Segment {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<String, CompiledExpression> entries;
+
+        Segment(int capacity) {
+            // An access-ordered map moves an entry to the end on every get
+            entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CompiledExpression> eldest) {
+                    if (size() > capacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        CompiledExpression get(String expression) {
+            lock.lock();
+            try {
+                return entries.get(expression);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        CompiledExpression putIfAbsent(String expression, CompiledExpression compiled) {
+            lock.lock();
+            try {
+                CompiledExpression existing = entries.putIfAbsent(expression, compiled);
+                return existing != null ? existing : compiled;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return entries.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void clear() {
+            lock.lock();
+            try {
+                entries.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
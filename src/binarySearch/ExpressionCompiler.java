@@ -0,0 +1,383 @@
+package binarySearch;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Turns a {@link CompiledExpression} into JVM bytecode so the JIT can optimise it like
+ * hand-written Java.
+ * <p>
+ * The postfix program of a compiled expression maps one to one onto the JVM operand stack: a
+ * literal becomes {@code ldc2_w}, a variable becomes an array load and each operator becomes
+ * {@code dadd}, {@code dsub}, {@code dmul}, {@code ddiv} or {@code dneg}. The generated class is
+ * defined as a hidden class with {@link MethodHandles.Lookup#defineHiddenClass}, so it can be
+ * unloaded as soon as the returned function is no longer referenced. A hot formula is then inlined
+ * and register-allocated by C2, with no interpreter loop, no operand stack array and no opcode
+ * dispatch.
+ * <p>
+ * The code is straight-line with no branches, so it needs no stack map frames. Programs too large
+ * for a single JVM method fall back to the interpreter transparently.
+ */
+public class ExpressionCompiler {
+
+    private static final String CLASS_NAME = "binarySearch/GeneratedExpression";
+    // JVM limits on the size of one method and its operand stack
+    private static final int MAX_CODE_LENGTH = 65535;
+    private static final int MAX_STACK = 65535;
+
+    /**
+     * Compiles an expression into a function of an array of variable values.
+     *
+     * @param expression The compiled expression.
+     * @return A function that takes the variable values in the order of
+     *         {@link CompiledExpression#variables()} and returns the value of the expression. Like
+     *         {@link CompiledExpression#evaluate(double...)}, it throws an IllegalArgumentException
+     *         if the values are null or there is not exactly one per variable.
+     * @throws IllegalArgumentException if the expression is null.
+     */
+    @SuppressWarnings("unchecked")
+    public static ToDoubleFunction<double[]> toFunction(CompiledExpression expression) {
+        if (expression == null) {
+            throw new IllegalArgumentException("Expression cannot be null.");
+        }
+        Object generated = define(expression, false);
+        if (generated == null) {
+            return expression::evaluate;
+        }
+        ToDoubleFunction<double[]> function = (ToDoubleFunction<double[]>) generated;
+        int arity = expression.variables().size();
+        // The generated code does not check the values; the interpreter reports a mismatch
+        return values -> values != null && values.length == arity
+                ? function.applyAsDouble(values) : expression.evaluate(values);
+    }
+
+    /**
+     * Compiles an expression with at most one variable into a function of that variable.
+     *
+     * @param expression The compiled expression.
+     * @return A function that takes the value of the variable and returns the value of the expression.
+     * @throws IllegalArgumentException if the expression is null or has more than one variable.
+     */
+    public static DoubleUnaryOperator toUnaryOperator(CompiledExpression expression) {
+        if (expression == null) {
+            throw new IllegalArgumentException("Expression cannot be null.");
+        }
+        if (expression.variables().size() > 1) {
+            throw new IllegalArgumentException("Expected at most one variable but got " + expression.variables() + ".");
+        }
+        Object generated = define(expression, true);
+        if (generated == null) {
+            return expression.variables().isEmpty() ? x -> expression.evaluate() : expression::evaluate;
+        }
+        return (DoubleUnaryOperator) generated;
+    }
+
+    /**
+     * Generates, defines and instantiates the hidden class for an expression.
+     *
+     * @return An instance of the generated class, or null if the program is too large for one method.
+     */
+    private static Object define(CompiledExpression expression, boolean unary) {
+        byte[] classFile = new ClassWriter(expression, unary).write();
+        if (classFile == null) {
+            return null;
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(classFile, true);
+            return lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not define generated expression class.", e);
+        }
+    }
+
+    /**
+     * Writes the class file of one generated expression.
+     */
+    private static class ClassWriter {
+
+        // Constant pool tags
+        private static final int UTF8 = 1;
+        private static final int DOUBLE = 6;
+        private static final int CLASS = 7;
+        private static final int METHOD_REF = 10;
+        private static final int NAME_AND_TYPE = 12;
+
+        // Opcodes
+        private static final int DCONST_0 = 0x0e;
+        private static final int DCONST_1 = 0x0f;
+        private static final int BIPUSH = 0x10;
+        private static final int SIPUSH = 0x11;
+        private static final int LDC2_W = 0x14;
+        private static final int DLOAD_1 = 0x27;
+        private static final int ALOAD_0 = 0x2a;
+        private static final int ALOAD_1 = 0x2b;
+        private static final int DALOAD = 0x31;
+        private static final int ASTORE_1 = 0x4c;
+        private static final int DADD = 0x63;
+        private static final int DSUB = 0x67;
+        private static final int DMUL = 0x6b;
+        private static final int DDIV = 0x6f;
+        private static final int DNEG = 0x77;
+        private static final int DLOAD = 0x18;
+        private static final int DSTORE = 0x39;
+        private static final int DUP2 = 0x5c;
+        private static final int WIDE = 0xc4;
+        private static final int DRETURN = 0xaf;
+        private static final int RETURN = 0xb1;
+        private static final int INVOKESPECIAL = 0xb7;
+        private static final int CHECKCAST = 0xc0;
+
+        private static final int ACC_PUBLIC = 0x0001;
+        private static final int ACC_FINAL = 0x0010;
+        private static final int ACC_SUPER = 0x0020;
+
+        private final CompiledExpression expression;
+        private final boolean unary;
+        private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+        private final DataOutputStream poolOut = new DataOutputStream(pool);
+        private int poolCount = 1;
+        private final Map<Object, Integer> poolIndex = new HashMap<>();
+
+        ClassWriter(CompiledExpression expression, boolean unary) {
+            this.expression = expression;
+            this.unary = unary;
+        }
+
+        /**
+         * Writes the class file.
+         *
+         * @return The class file bytes, or null if the program does not fit in one method.
+         */
+        byte[] write() {
+            try {
+                int thisClass = classRef(CLASS_NAME);
+                int superClass = classRef("java/lang/Object");
+                int interfaceClass = classRef(unary ? "java/util/function/DoubleUnaryOperator"
+                        : "java/util/function/ToDoubleFunction");
+                int init = utf8("<init>");
+                int voidDescriptor = utf8("()V");
+                int objectInit = methodRef(superClass, init, voidDescriptor);
+                int apply = utf8("applyAsDouble");
+                int applyDescriptor = utf8(unary ? "(D)D" : "(Ljava/lang/Object;)D");
+                int codeAttribute = utf8("Code");
+                int doubleArray = unary ? 0 : classRef("[D");
+
+                byte[] applyCode = applyCode(doubleArray);
+                int maxStack = 2 * expression.maxStack() + 2;
+                if (applyCode == null || maxStack > MAX_STACK || poolCount > 65535
+                        || firstSlot() + 2 * expression.slots() > 65535) {
+                    return null;
+                }
+
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeInt(0xCAFEBABE);
+                out.writeShort(0);
+                out.writeShort(52); // Java 8 class file: straight-line code needs no stack map frames
+                out.writeShort(poolCount);
+                pool.writeTo(out);
+                out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+                out.writeShort(thisClass);
+                out.writeShort(superClass);
+                out.writeShort(1);
+                out.writeShort(interfaceClass);
+                out.writeShort(0); // No fields
+                out.writeShort(2); // Constructor and applyAsDouble
+
+                // public <init>() { super(); }
+                byte[] initCode = {(byte) ALOAD_0, (byte) INVOKESPECIAL, (byte) (objectInit >> 8), (byte) objectInit,
+                        (byte) RETURN};
+                writeMethod(out, init, voidDescriptor, codeAttribute, 1, 1, initCode);
+                // public double applyAsDouble(...) { return <expression>; }
+                writeMethod(out, apply, applyDescriptor, codeAttribute, maxStack, firstSlot() + 2 * expression.slots(),
+                        applyCode);
+
+                out.writeShort(0); // No class attributes
+                return bytes.toByteArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Translates the postfix program into the body of applyAsDouble.
+         *
+         * @return The bytecode, or null if it exceeds the method size limit.
+         */
+        private byte[] applyCode(int doubleArray) throws IOException {
+            ByteArrayOutputStream code = new ByteArrayOutputStream();
+            if (!unary) {
+                // Cast the Object parameter to double[] once and keep it in local 1
+                code.write(ALOAD_1);
+                code.write(CHECKCAST);
+                code.write(doubleArray >> 8);
+                code.write(doubleArray);
+                code.write(ASTORE_1);
+            }
+            int[] program = expression.code();
+            double[] constants = expression.constants();
+            for (int instruction : program) {
+                int operand = instruction >>> CompiledExpression.OPERAND_SHIFT;
+                switch (instruction & CompiledExpression.OPCODE_MASK) {
+                    case CompiledExpression.CONST:
+                        double value = constants[operand];
+                        if (Double.doubleToRawLongBits(value) == 0L) {
+                            code.write(DCONST_0);
+                        } else if (value == 1.0) {
+                            code.write(DCONST_1);
+                        } else {
+                            int index = doubleConstant(value);
+                            code.write(LDC2_W);
+                            code.write(index >> 8);
+                            code.write(index);
+                        }
+                        break;
+                    case CompiledExpression.VAR:
+                        if (unary) {
+                            code.write(DLOAD_1);
+                        } else {
+                            code.write(ALOAD_1);
+                            pushInt(code, operand);
+                            code.write(DALOAD);
+                        }
+                        break;
+                    case CompiledExpression.ADD:
+                        code.write(DADD);
+                        break;
+                    case CompiledExpression.SUB:
+                        code.write(DSUB);
+                        break;
+                    case CompiledExpression.MUL:
+                        code.write(DMUL);
+                        break;
+                    case CompiledExpression.DIV:
+                        code.write(DDIV);
+                        break;
+                    case CompiledExpression.NEG:
+                        code.write(DNEG);
+                        break;
+                    case CompiledExpression.STORE:
+                        // Keep the value on the stack and save a copy in the slot's local
+                        code.write(DUP2);
+                        local(code, DSTORE, firstSlot() + 2 * operand);
+                        break;
+                    case CompiledExpression.LOAD:
+                        local(code, DLOAD, firstSlot() + 2 * operand);
+                        break;
+                    default:
+                        // An instruction this backend does not know: let the interpreter handle it
+                        return null;
+                }
+                if (code.size() > MAX_CODE_LENGTH - 1) {
+                    return null;
+                }
+            }
+            code.write(DRETURN);
+            return code.toByteArray();
+        }
+
+        /**
+         * Returns the first local variable available for slots, after this and the parameter.
+         */
+        private int firstSlot() {
+            return unary ? 3 : 2;
+        }
+
+        private static void local(ByteArrayOutputStream code, int opcode, int index) {
+            if (index <= 255) {
+                code.write(opcode);
+                code.write(index);
+            } else {
+                code.write(WIDE);
+                code.write(opcode);
+                code.write(index >> 8);
+                code.write(index);
+            }
+        }
+
+        private static void pushInt(ByteArrayOutputStream code, int value) {
+            if (value <= 5) {
+                code.write(0x03 + value); // iconst_<n>
+            } else if (value <= Byte.MAX_VALUE) {
+                code.write(BIPUSH);
+                code.write(value);
+            } else if (value <= Short.MAX_VALUE) {
+                code.write(SIPUSH);
+                code.write(value >> 8);
+                code.write(value);
+            } else {
+                throw new IllegalArgumentException("Too many variables: " + value);
+            }
+        }
+
+        private static void writeMethod(DataOutputStream out, int name, int descriptor, int codeAttribute,
+                                        int maxStack, int maxLocals, byte[] code) throws IOException {
+            out.writeShort(ACC_PUBLIC);
+            out.writeShort(name);
+            out.writeShort(descriptor);
+            out.writeShort(1); // One attribute: Code
+            out.writeShort(codeAttribute);
+            out.writeInt(12 + code.length);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(code.length);
+            out.write(code);
+            out.writeShort(0); // No exception table
+            out.writeShort(0); // No code attributes
+        }
+
+        private int utf8(String value) throws IOException {
+            Integer index = poolIndex.get(value);
+            if (index == null) {
+                poolOut.writeByte(UTF8);
+                poolOut.writeUTF(value);
+                index = poolCount++;
+                poolIndex.put(value, index);
+            }
+            return index;
+        }
+
+        private int classRef(String internalName) throws IOException {
+            int name = utf8(internalName);
+            poolOut.writeByte(CLASS);
+            poolOut.writeShort(name);
+            return poolCount++;
+        }
+
+        private int methodRef(int owner, int name, int descriptor) throws IOException {
+            poolOut.writeByte(NAME_AND_TYPE);
+            poolOut.writeShort(name);
+            poolOut.writeShort(descriptor);
+            int nameAndType = poolCount++;
+            poolOut.writeByte(METHOD_REF);
+            poolOut.writeShort(owner);
+            poolOut.writeShort(nameAndType);
+            return poolCount++;
+        }
+
+        private int doubleConstant(double value) throws IOException {
+            // Keyed by raw bits so distinct NaNs and signed zeros keep their own entries
+            Long bits = Double.doubleToRawLongBits(value);
+            Integer index = poolIndex.get(bits);
+            if (index == null) {
+                poolOut.writeByte(DOUBLE);
+                poolOut.writeLong(bits);
+                index = poolCount;
+                // A double takes two constant pool slots
+                poolCount += 2;
+                poolIndex.put(bits, index);
+            }
+            return index;
+        }
+    }
+}
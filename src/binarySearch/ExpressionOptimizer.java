@@ -0,0 +1,336 @@
+package binarySearch;
+
+import java.util.Arrays;
+
+/**
+ * Rewrites the postfix program of a {@link CompiledExpression} so that it does less work per
+ * evaluation, without changing any result by even one bit.
+ * <p>
+ * The program is first turned into a graph in which equal sub-expressions share one node (value
+ * numbering). While the graph is built:
+ * <ul>
+ * <li>operators whose operands are all literals are evaluated once, with the same double arithmetic
+ * the evaluator would use;</li>
+ * <li>identities that hold for every double, including NaN, infinities and signed zeros, are
+ * removed: {@code x * 1}, {@code 1 * x}, {@code x / 1}, {@code x - 0}, {@code x + -0},
+ * {@code -0 + x} and {@code --x}. Identities such as {@code x + 0} and {@code x * 0} do not hold for
+ * {@code -0} and NaN and are kept;</li>
+ * <li>an operator applied to the same operands as an earlier one reuses the earlier node.</li>
+ * </ul>
+ * The graph is then written back as postfix. A shared node is computed the first time it is needed
+ * and saved in a slot; later uses load it from there.
+ */
+final class ExpressionOptimizer {
+
+    private static final long ONE = Double.doubleToRawLongBits(1.0);
+    private static final long POSITIVE_ZERO = Double.doubleToRawLongBits(0.0);
+    private static final long NEGATIVE_ZERO = Double.doubleToRawLongBits(-0.0);
+
+    private final CompiledExpression expression;
+
+    // The graph: one entry per node. Leaves keep their constant or variable index in left.
+    private final int[] opcodes;
+    private final int[] lefts;
+    private final int[] rights;
+    private int nodeCount;
+    // Open-addressing hash table of every node, holding node id + 1; 0 is empty
+    private int[] numbering;
+    private int numbered;
+    private final double[] constants;
+    private int constantCount;
+
+    private ExpressionOptimizer(CompiledExpression expression) {
+        this.expression = expression;
+        // Every instruction creates at most one node and at most one literal
+        int capacity = expression.code().length;
+        opcodes = new int[capacity];
+        lefts = new int[capacity];
+        rights = new int[capacity];
+        constants = new double[capacity];
+        numbering = new int[Math.max(16, Integer.highestOneBit(capacity) * 4)];
+    }
+
+    /**
+     * Optimizes a compiled expression.
+     *
+     * @param expression The expression as parsed.
+     * @return An equivalent expression that evaluates to the same bits for every input.
+     */
+    static CompiledExpression optimize(CompiledExpression expression) {
+        return new ExpressionOptimizer(expression).run();
+    }
+
+    private CompiledExpression run() {
+        int root = buildGraph();
+        int[] uses = countUses(root);
+        return emit(root, uses);
+    }
+
+    /**
+     * Replays the program on a stack of node ids instead of values.
+     *
+     * @return The id of the node that computes the whole expression.
+     */
+    private int buildGraph() {
+        double[] sourceConstants = expression.constants();
+        int[] stack = new int[expression.maxStack()];
+        int top = -1;
+        for (int instruction : expression.code()) {
+            int opcode = instruction & CompiledExpression.OPCODE_MASK;
+            int operand = instruction >>> CompiledExpression.OPERAND_SHIFT;
+            switch (opcode) {
+                case CompiledExpression.CONST:
+                    stack[++top] = constant(sourceConstants[operand]);
+                    break;
+                case CompiledExpression.VAR:
+                    stack[++top] = node(CompiledExpression.VAR, operand, -1);
+                    break;
+                case CompiledExpression.NEG:
+                    stack[top] = negate(stack[top]);
+                    break;
+                case CompiledExpression.ADD:
+                case CompiledExpression.SUB:
+                case CompiledExpression.MUL:
+                case CompiledExpression.DIV:
+                    int right = stack[top--];
+                    stack[top] = binary(opcode, stack[top], right);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown opcode: " + opcode);
+            }
+        }
+        return stack[0];
+    }
+
+    private int negate(int operand) {
+        if (opcodes[operand] == CompiledExpression.CONST) {
+            return constant(-constants[lefts[operand]]);
+        }
+        if (opcodes[operand] == CompiledExpression.NEG) {
+            return lefts[operand];
+        }
+        return node(CompiledExpression.NEG, operand, -1);
+    }
+
+    private int binary(int opcode, int left, int right) {
+        boolean leftConstant = opcodes[left] == CompiledExpression.CONST;
+        boolean rightConstant = opcodes[right] == CompiledExpression.CONST;
+        if (leftConstant && rightConstant) {
+            return constant(apply(opcode, constants[lefts[left]], constants[lefts[right]]));
+        }
+        if (rightConstant) {
+            long bits = Double.doubleToRawLongBits(constants[lefts[right]]);
+            if ((opcode == CompiledExpression.MUL || opcode == CompiledExpression.DIV) && bits == ONE
+                    || opcode == CompiledExpression.SUB && bits == POSITIVE_ZERO
+                    || opcode == CompiledExpression.ADD && bits == NEGATIVE_ZERO) {
+                return left;
+            }
+        }
+        if (leftConstant) {
+            long bits = Double.doubleToRawLongBits(constants[lefts[left]]);
+            if (opcode == CompiledExpression.MUL && bits == ONE
+                    || opcode == CompiledExpression.ADD && bits == NEGATIVE_ZERO) {
+                return right;
+            }
+        }
+        return node(opcode, left, right);
+    }
+
+    private static double apply(int opcode, double left, double right) {
+        switch (opcode) {
+            case CompiledExpression.ADD:
+                return left + right;
+            case CompiledExpression.SUB:
+                return left - right;
+            case CompiledExpression.MUL:
+                return left * right;
+            default:
+                return left / right;
+        }
+    }
+
+    /**
+     * Returns the node of a literal, keyed by its exact bits so that 0.0 and -0.0 stay apart.
+     */
+    private int constant(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        int mask = numbering.length - 1;
+        int index = hash(CompiledExpression.CONST, (int) bits, (int) (bits >>> 32)) & mask;
+        for (int entry; (entry = numbering[index]) != 0; index = (index + 1) & mask) {
+            int id = entry - 1;
+            if (opcodes[id] == CompiledExpression.CONST && Double.doubleToRawLongBits(constants[lefts[id]]) == bits) {
+                return id;
+            }
+        }
+        constants[constantCount] = value;
+        int id = newNode(CompiledExpression.CONST, constantCount++, -1);
+        insert(index, id);
+        return id;
+    }
+
+    /**
+     * Returns the existing node for an operation on the same operands, or a new one.
+     */
+    private int node(int opcode, int left, int right) {
+        int mask = numbering.length - 1;
+        int index = hash(opcode, left, right) & mask;
+        for (int entry; (entry = numbering[index]) != 0; index = (index + 1) & mask) {
+            int id = entry - 1;
+            if (opcodes[id] == opcode && lefts[id] == left && rights[id] == right) {
+                return id;
+            }
+        }
+        int id = newNode(opcode, left, right);
+        insert(index, id);
+        return id;
+    }
+
+    private void insert(int index, int id) {
+        numbering[index] = id + 1;
+        // Keep the table at most half full
+        if (++numbered * 2 > numbering.length) {
+            rehash();
+        }
+    }
+
+    private static int hash(int opcode, int left, int right) {
+        int hash = (opcode * 31 + left) * 0x9E3779B9 + right;
+        hash *= 0x85EBCA6B;
+        return hash ^ (hash >>> 15);
+    }
+
+    private int hashOf(int id) {
+        if (opcodes[id] == CompiledExpression.CONST) {
+            long bits = Double.doubleToRawLongBits(constants[lefts[id]]);
+            return hash(CompiledExpression.CONST, (int) bits, (int) (bits >>> 32));
+        }
+        return hash(opcodes[id], lefts[id], rights[id]);
+    }
+
+    private void rehash() {
+        int[] old = numbering;
+        numbering = new int[old.length * 2];
+        int mask = numbering.length - 1;
+        for (int entry : old) {
+            if (entry != 0) {
+                int index = hashOf(entry - 1) & mask;
+                while (numbering[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                numbering[index] = entry;
+            }
+        }
+    }
+
+    private int newNode(int opcode, int left, int right) {
+        opcodes[nodeCount] = opcode;
+        lefts[nodeCount] = left;
+        rights[nodeCount] = right;
+        return nodeCount++;
+    }
+
+    private boolean isLeaf(int node) {
+        return opcodes[node] == CompiledExpression.CONST || opcodes[node] == CompiledExpression.VAR;
+    }
+
+    /**
+     * Counts how many operators use each node reachable from the root. Nodes dropped by folding or
+     * by an identity are never reached and keep a count of zero.
+     */
+    private int[] countUses(int root) {
+        int[] uses = new int[nodeCount];
+        boolean[] visited = new boolean[nodeCount];
+        int[] pending = new int[16];
+        int size = 0;
+        pending[size++] = root;
+        visited[root] = true;
+        while (size > 0) {
+            int node = pending[--size];
+            if (isLeaf(node)) {
+                continue;
+            }
+            for (int side = 0; side < 2; side++) {
+                int child = side == 0 ? lefts[node] : rights[node];
+                if (child < 0) {
+                    continue;
+                }
+                uses[child]++;
+                if (!visited[child]) {
+                    visited[child] = true;
+                    if (size == pending.length) {
+                        pending = Arrays.copyOf(pending, size * 2);
+                    }
+                    pending[size++] = child;
+                }
+            }
+        }
+        return uses;
+    }
+
+    /**
+     * Writes the graph back as postfix, left operand first, with an explicit stack so that deeply
+     * nested expressions do not overflow the Java stack.
+     */
+    private CompiledExpression emit(int root, int[] uses) {
+        int[] code = new int[16];
+        int length = 0;
+        int[] slotOf = new int[nodeCount];
+        Arrays.fill(slotOf, -1);
+        int slots = 0;
+        int depth = 0;
+        int maxStack = 0;
+        int[] constantIndex = new int[constantCount];
+        Arrays.fill(constantIndex, -1);
+        double[] usedConstants = new double[constantCount];
+        int used = 0;
+
+        // Each entry is a node id, negated minus one once its operands have been emitted
+        int[] work = new int[16];
+        int size = 0;
+        work[size++] = root;
+        while (size > 0) {
+            int entry = work[--size];
+            if (length + 2 > code.length) {
+                code = Arrays.copyOf(code, code.length * 2);
+            }
+            if (entry < 0) {
+                int node = -entry - 1;
+                code[length++] = opcodes[node];
+                if (opcodes[node] != CompiledExpression.NEG) {
+                    depth--;
+                }
+                if (uses[node] > 1) {
+                    slotOf[node] = slots;
+                    code[length++] = CompiledExpression.STORE | (slots++ << CompiledExpression.OPERAND_SHIFT);
+                }
+                continue;
+            }
+            int node = entry;
+            if (isLeaf(node) || slotOf[node] >= 0) {
+                int opcode = isLeaf(node) ? opcodes[node] : CompiledExpression.LOAD;
+                int operand = isLeaf(node) ? lefts[node] : slotOf[node];
+                if (opcode == CompiledExpression.CONST) {
+                    // Keep only the literals that survived folding
+                    if (constantIndex[operand] < 0) {
+                        constantIndex[operand] = used;
+                        usedConstants[used++] = constants[operand];
+                    }
+                    operand = constantIndex[operand];
+                }
+                code[length++] = opcode | (operand << CompiledExpression.OPERAND_SHIFT);
+                maxStack = Math.max(maxStack, ++depth);
+                continue;
+            }
+            if (size + 3 > work.length) {
+                work = Arrays.copyOf(work, work.length * 2);
+            }
+            work[size++] = -node - 1;
+            if (rights[node] >= 0) {
+                work[size++] = rights[node];
+            }
+            work[size++] = lefts[node];
+        }
+        return new CompiledExpression(expression.source(), Arrays.copyOf(code, length),
+                Arrays.copyOf(usedConstants, used), expression.variableNames(), maxStack, slots);
+    }
+}
@@ -1,164 +1,449 @@
 package binarySearch;
 
-import java.util.*;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 public class ExpressionParser {
 
-    // Tracks the current position in the expression string
-    private static int currentIndex = 0; 
+    // Shared by every caller of evaluateExpression
+    private static final ExpressionCache CACHE = new ExpressionCache(4096);
 
     /**
      * Evaluates the entire mathematical expression.
+     * <p>
+     * The compiled form of the expression is kept in a shared, size-bounded cache, so an expression
+     * that is evaluated repeatedly is only parsed once. It is safe to call from several threads at
+     * once. To evaluate the same expression with different variables, use {@link #compile(String)}
+     * once and keep the result.
      * 
      * @param expression A string representing the mathematical expression to evaluate.
      * @return The result of the evaluated expression as a double.
      * @throws IllegalArgumentException if the expression is null, empty, or improperly formatted.
      */
     public static double evaluateExpression(String expression) throws IllegalArgumentException {
-        // Check if the expression is null or empty
-        if (expression == null || expression.isEmpty()) {
-            throw new IllegalArgumentException("Expression cannot be null or empty.");
-        }
-        // Reset the current index before evaluation
-        currentIndex = 0;
-        // Remove all whitespaces from the expression for easier parsing
-        expression = expression.replaceAll("\\s+", ""); 
-        // Start parsing from the addition/subtraction level
-        return parseAdditionSubtraction(expression);
+        return CACHE.evaluate(expression);
+    }
+
+    /**
+     * Returns the cache used by {@link #evaluateExpression(String)}, for example to read its
+     * hit and miss counters.
+     *
+     * @return The shared expression cache.
+     */
+    public static ExpressionCache cache() {
+        return CACHE;
     }
 
     /**
-     * Parses addition and subtraction operators (+, -) in the expression.
+     * Parses a mathematical expression into an immutable, thread-safe program that can be
+     * evaluated any number of times without parsing it again.
+     * <p>
+     * Numbers may have a fraction and an exponent ({@code 1.5e-3}), and any operand may be negated
+     * with a unary minus. An exponent must have digits, so {@code 2e} is rejected. Whitespace
+     * between tokens is ignored, but it cannot join digits: {@code 1 2} is rejected instead of being
+     * read as {@code 12}.
+     * <p>
+     * The program is optimized before it is returned: constant sub-expressions are folded and
+     * repeated sub-expressions are computed once. Every result is bit-identical to evaluating the
+     * expression as written.
      * 
-     * @param expression The expression string to parse.
-     * @return The result of the addition and subtraction operations as a double.
+     * @param expression A string representing the mathematical expression to compile.
+     * @return The compiled expression.
+     * @throws IllegalArgumentException if the expression is null, empty, or improperly formatted.
      */
-    private static double parseAdditionSubtraction(String expression) {
-        // Start by parsing multiplication and division operations first (due to operator precedence)
-        double result = parseMultiplicationDivision(expression);
-        
-        // Continue parsing the expression for addition and subtraction operations
-        while (currentIndex < expression.length()) {
-            char operator = expression.charAt(currentIndex);
-            // Check if the current character is a + or - operator
-            if (operator == '+' || operator == '-') {
-                // Move past the operator
-                currentIndex++; 
-                // Parse the next operand
-                double rightOperand = parseMultiplicationDivision(expression);
-                // Perform the appropriate operation based on the operator
-                if (operator == '+') {
-                    result += rightOperand;
-                } else {
-                    result -= rightOperand;
-                }
-            } else {
-                break; // Exit if no more addition or subtraction operators
-            }
-        }
-        return result;
+    public static CompiledExpression compile(String expression) throws IllegalArgumentException {
+        return compile((CharSequence) expression);
     }
 
     /**
-     * Parses multiplication and division operators (*, /) in the expression.
+     * Parses a mathematical expression held in any character sequence, such as a
+     * {@link StringBuilder} or a {@link java.nio.CharBuffer}, without copying it first.
      * 
-     * @param expression The expression string to parse.
-     * @return The result of the multiplication and division operations as a double.
+     * @param expression The characters of the mathematical expression to compile.
+     * @return The compiled expression.
+     * @throws IllegalArgumentException if the expression is null, empty, or improperly formatted.
      */
-    private static double parseMultiplicationDivision(String expression) {
-        // Start by parsing parentheses (if any), which may contain sub-expressions
-        double result = parseParentheses(expression);
-        
-        // Continue parsing the expression for multiplication and division operations
-        while (currentIndex < expression.length()) {
-            char operator = expression.charAt(currentIndex);
-            // Check if the current character is a * or / operator
-            if (operator == '*' || operator == '/') {
-                // Move past the operator
-                currentIndex++; 
-                // Parse the next operand
-                double rightOperand = parseParentheses(expression);
-                // Perform the appropriate operation based on the operator
-                if (operator == '*') {
-                    result *= rightOperand;
-                } else {
-                    result /= rightOperand;
-                }
-            } else {
-                break; // Exit if no more multiplication or division operators
-            }
+    public static CompiledExpression compile(CharSequence expression) throws IllegalArgumentException {
+        // Check if the expression is null or empty
+        if (expression == null || expression.length() == 0) {
+            throw new IllegalArgumentException("Expression cannot be null or empty.");
         }
-        return result;
+        Parser parser = new Parser(expression, null, 0, expression.length());
+        parser.parse();
+        return ExpressionOptimizer.optimize(parser.program.build(expression.toString()));
     }
 
     /**
-     * Handles parsing of numbers and sub-expressions inside parentheses.
+     * Parses a mathematical expression stored as ASCII bytes, for example a slice of a file or a
+     * network buffer, without decoding it to a string first.
      * 
-     * @param expression The expression string to parse.
-     * @return The evaluated result of the current sub-expression or number as a double.
-     * @throws IllegalArgumentException if parentheses are mismatched.
+     * @param ascii The buffer holding the expression.
+     * @param offset The index of the first byte of the expression.
+     * @param length The number of bytes in the expression.
+     * @return The compiled expression.
+     * @throws IllegalArgumentException if the buffer is null, the range is out of bounds, or the
+     *                                  expression is empty or improperly formatted.
      */
-    private static double parseParentheses(String expression) {
-        // If the current index is out of bounds, raise an error
-        if (currentIndex >= expression.length()) {
-            throw new IllegalArgumentException("Unexpected end of expression.");
-        }
-
-        // Get the current character
-        char currentChar = expression.charAt(currentIndex);
-
-        // If the current character is an opening parenthesis, parse the enclosed expression
-        if (currentChar == '(') {
-            currentIndex++; // Move past '('
-            // Parse the expression inside the parentheses
-            double result = parseAdditionSubtraction(expression);
-            // Check if the closing parenthesis is present at the correct position
-            if (currentIndex >= expression.length() || expression.charAt(currentIndex) != ')') {
-                throw new IllegalArgumentException("Mismatched parentheses.");
-            }
-            currentIndex++; // Move past ')'
-            return result;
+    public static CompiledExpression compile(byte[] ascii, int offset, int length) throws IllegalArgumentException {
+        if (ascii == null || length == 0) {
+            throw new IllegalArgumentException("Expression cannot be null or empty.");
+        }
+        if (offset < 0 || length < 0 || offset > ascii.length - length) {
+            throw new IllegalArgumentException("Range [" + offset + ", " + offset + " + " + length
+                    + ") is out of bounds for length " + ascii.length);
         }
+        Parser parser = new Parser(null, ascii, offset, length);
+        parser.parse();
+        return ExpressionOptimizer.optimize(
+                parser.program.build(new String(ascii, offset, length, StandardCharsets.ISO_8859_1)));
+    }
 
-        // Otherwise, parse the current number (integer or floating-point)
-        return parseNumber(expression);
+    /**
+     * Evaluates one expression stored as ASCII bytes in memory, such as a line of a mapped file, for
+     * batches where each expression is evaluated only once. The bytes are read in place, the program
+     * is not optimized and the source text is never decoded to a string.
+     *
+     * @param ascii The memory holding the expression.
+     * @param offset The offset of the first byte of the expression.
+     * @param length The number of bytes in the expression.
+     * @return The result of the evaluated expression.
+     * @throws IllegalArgumentException if the expression is empty, improperly formatted, or has variables.
+     */
+    static double evaluateOnce(MemorySegment ascii, long offset, int length) {
+        if (length == 0) {
+            throw new IllegalArgumentException("Expression cannot be null or empty.");
+        }
+        Parser parser = new Parser(ascii, offset, length);
+        parser.parse();
+        return parser.program.build(null).evaluate();
     }
 
     /**
-     * Parses a number (integer or floating-point) from the expression.
-     * 
-     * @param expression The expression string to parse.
-     * @return The parsed number as a double.
-     * @throws IllegalArgumentException if the number format is invalid.
+     * An operator-precedence parser over one expression that appends postfix instructions as it
+     * reads the expression.
+     * <p>
+     * The parser reads the input in place: whitespace is skipped as it is met and numbers are
+     * converted straight from the characters, so no token is ever copied into a string.
      */
-    private static double parseNumber(String expression) {
-        StringBuilder sb = new StringBuilder();
-        boolean hasDecimal = false;
-        
-        // Continue parsing the string to build the number
-        while (currentIndex < expression.length()) {
-            char currentChar = expression.charAt(currentIndex);
-            // If the character is a digit, add it to the number being built
-            if (Character.isDigit(currentChar)) {
-                sb.append(currentChar);
-            } 
-            // If the character is a decimal point and it's the first one, add it
-            else if (currentChar == '.' && !hasDecimal) {
-                sb.append(currentChar);
-                hasDecimal = true;
-            } else {
-                break; // Exit the loop when a non-number character is encountered
+    private static class Parser {
+
+        // Exact powers of ten; every one of them is representable as a double
+        private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+        };
+        // Largest mantissa that is exactly representable as a double
+        private static final long MAX_EXACT_MANTISSA = 1L << 53;
+        // Marks an opening parenthesis on the operator stack
+        private static final int OPEN = CompiledExpression.OPCODE_MASK;
+        // Binding strength of each operator, indexed by opcode
+        private static final int[] PRECEDENCE = new int[CompiledExpression.NEG + 1];
+
+        static {
+            PRECEDENCE[CompiledExpression.ADD] = 1;
+            PRECEDENCE[CompiledExpression.SUB] = 1;
+            PRECEDENCE[CompiledExpression.MUL] = 2;
+            PRECEDENCE[CompiledExpression.DIV] = 2;
+            PRECEDENCE[CompiledExpression.NEG] = 3;
+        }
+
+        // Exactly one of text, bytes and segment is set
+        private final CharSequence text;
+        private final byte[] bytes;
+        private final int offset;
+        private final MemorySegment segment;
+        private final long segmentOffset;
+        private final int length;
+        // Tracks the current position in the expression
+        private int currentIndex = 0;
+        private final CompiledExpression.Builder program = new CompiledExpression.Builder();
+        // Operators waiting for their operands to be complete, and opening parentheses
+        private int[] operators = new int[16];
+        private int operatorCount;
+
+        Parser(CharSequence text, byte[] bytes, int offset, int length) {
+            this.text = text;
+            this.bytes = bytes;
+            this.offset = offset;
+            this.segment = null;
+            this.segmentOffset = 0;
+            this.length = length;
+        }
+
+        Parser(MemorySegment segment, long segmentOffset, int length) {
+            this.text = null;
+            this.bytes = null;
+            this.offset = 0;
+            this.segment = segment;
+            this.segmentOffset = segmentOffset;
+            this.length = length;
+        }
+
+        /**
+         * Parses the whole expression with an explicit operator stack (shunting-yard).
+         * <p>
+         * The parser alternates between expecting an operand and expecting an operator. Operands are
+         * emitted as soon as they are read; an operator waits on the stack until an operator of lower
+         * or equal precedence, a closing parenthesis or the end of the expression shows that both of
+         * its operands are complete. Unary minus binds tighter than any binary operator. Nesting only
+         * grows the operator stack on the heap, so depth is limited by memory, not by the thread stack.
+         * <p>
+         * As before, parsing stops at the first character that cannot continue the expression, and
+         * anything after it is ignored. The one exception is a number separated from the expression
+         * by whitespace, such as {@code 1 2}: the old parser stripped all whitespace first and read
+         * it as {@code 12}, so it is rejected rather than silently read as {@code 1}.
+         * 
+         * @throws IllegalArgumentException if the expression is improperly formatted.
+         */
+        void parse() {
+            while (true) {
+                // Expecting an operand, possibly preceded by unary minuses and opening parentheses
+                char currentChar = peek();
+                if (currentIndex >= length) {
+                    throw new IllegalArgumentException("Unexpected end of expression.");
+                }
+                if (currentChar == '-') {
+                    currentIndex++; // Move past '-'
+                    pushOperator(CompiledExpression.NEG);
+                    continue;
+                }
+                if (currentChar == '(') {
+                    currentIndex++; // Move past '('
+                    pushOperator(OPEN);
+                    continue;
+                }
+                // A letter or underscore starts a variable name; anything else must be a number
+                if (Character.isLetter(currentChar) || currentChar == '_') {
+                    parseVariable();
+                } else {
+                    parseNumber();
+                }
+
+                // Expecting an operator, or closing parentheses
+                while (true) {
+                    char operator = peek();
+                    int opcode = binaryOpcode(operator);
+                    if (opcode >= 0) {
+                        currentIndex++; // Move past the operator
+                        reduce(PRECEDENCE[opcode]);
+                        pushOperator(opcode);
+                        break;
+                    }
+                    if (isJuxtaposedNumber(operator)) {
+                        // Checked first so that "(1 2)" is reported like "1 2"
+                        throw new IllegalArgumentException("Missing operator between numbers.");
+                    }
+                    boolean open = reduce(0);
+                    if (operator == ')' && open) {
+                        currentIndex++; // Move past ')'
+                        operatorCount--; // Discard the matching '('
+                        continue;
+                    }
+                    if (open) {
+                        // The end of the expression, or a stray character, inside parentheses
+                        throw new IllegalArgumentException("Mismatched parentheses.");
+                    }
+                    // The end of the expression at the top level
+                    return;
+                }
             }
-            currentIndex++;
         }
 
-        // If no number was parsed, throw an exception
-        if (sb.length() == 0) {
-            throw new IllegalArgumentException("Invalid number format.");
+        /**
+         * Checks if the parse stopped at a number that only whitespace separates from the operand
+         * before it.
+         */
+        private boolean isJuxtaposedNumber(char next) {
+            return currentIndex < length && (isDigit(next) || next == '.') && isWhitespace(charAt(currentIndex - 1));
         }
 
-        // Convert the parsed number string to a double and return it
-        return Double.parseDouble(sb.toString());
+        private static int binaryOpcode(char operator) {
+            switch (operator) {
+                case '+':
+                    return CompiledExpression.ADD;
+                case '-':
+                    return CompiledExpression.SUB;
+                case '*':
+                    return CompiledExpression.MUL;
+                case '/':
+                    return CompiledExpression.DIV;
+                default:
+                    return -1;
+            }
+        }
+
+        private void pushOperator(int operator) {
+            if (operatorCount == operators.length) {
+                operators = Arrays.copyOf(operators, operatorCount * 2);
+            }
+            operators[operatorCount++] = operator;
+        }
+
+        /**
+         * Emits the pending operators, innermost first, down to the nearest opening parenthesis or to
+         * the first operator that binds less tightly than the given precedence.
+         *
+         * @param precedence The lowest precedence to emit.
+         * @return true if an opening parenthesis is left on top of the stack.
+         */
+        private boolean reduce(int precedence) {
+            while (operatorCount > 0) {
+                int operator = operators[operatorCount - 1];
+                if (operator == OPEN) {
+                    return true;
+                }
+                if (PRECEDENCE[operator] < precedence) {
+                    return false;
+                }
+                operatorCount--;
+                if (operator == CompiledExpression.NEG) {
+                    program.negate();
+                } else {
+                    program.operator(operator);
+                }
+            }
+            return false;
+        }
+
+        private char charAt(int index) {
+            if (bytes != null) {
+                return (char) (bytes[offset + index] & 0xFF);
+            }
+            return segment != null ? (char) (segment.get(ValueLayout.JAVA_BYTE, segmentOffset + index) & 0xFF)
+                    : text.charAt(index);
+        }
+
+        /**
+         * Skips whitespace and returns the next character without consuming it.
+         *
+         * @return The next character, or 0 at the end of the expression.
+         */
+        private char peek() {
+            while (currentIndex < length) {
+                char c = charAt(currentIndex);
+                if (!isWhitespace(c)) {
+                    return c;
+                }
+                currentIndex++;
+            }
+            return 0;
+        }
+
+        private static boolean isWhitespace(char c) {
+            // The characters matched by the regular expression \s
+            return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == 0x0B;
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+
+        /**
+         * Parses a variable name: a letter or underscore followed by letters, digits or underscores.
+         */
+        private void parseVariable() {
+            int start = currentIndex;
+            while (currentIndex < length
+                    && (Character.isLetterOrDigit(charAt(currentIndex)) || charAt(currentIndex) == '_')) {
+                currentIndex++;
+            }
+            program.variable(substring(start, currentIndex));
+        }
+
+        /**
+         * Parses a number with an optional fraction and exponent, such as {@code 42}, {@code .5}
+         * or {@code 6.02e23}, directly from the characters of the expression.
+         * <p>
+         * Up to 18 significant digits are accumulated into a long. When the digits fit in the 53-bit
+         * mantissa of a double and the decimal exponent is at most 22, both the digits and the power of
+         * ten are exact doubles, so one multiplication or division rounds correctly (Clinger's fast
+         * path). Every other number is handed to {@link Double#parseDouble}, which is correctly
+         * rounded too, so the result is always the same as parsing the literal with the JDK.
+         * 
+         * @throws IllegalArgumentException if the number format is invalid.
+         */
+        private void parseNumber() {
+            int start = currentIndex;
+            long mantissa = 0;
+            int significantDigits = 0;
+            // Power of ten to apply to the mantissa: negative for fraction digits, positive for integer
+            // digits dropped because the mantissa was full
+            int exponent = 0;
+            boolean hasDigits = false;
+
+            // Integer part
+            while (currentIndex < length && isDigit(charAt(currentIndex))) {
+                int digit = charAt(currentIndex++) - '0';
+                hasDigits = true;
+                if (significantDigits < 18) {
+                    mantissa = mantissa * 10 + digit;
+                    if (mantissa != 0) {
+                        significantDigits++;
+                    }
+                } else {
+                    exponent++;
+                    significantDigits++;
+                }
+            }
+            // Fraction part
+            if (currentIndex < length && charAt(currentIndex) == '.') {
+                currentIndex++;
+                while (currentIndex < length && isDigit(charAt(currentIndex))) {
+                    int digit = charAt(currentIndex++) - '0';
+                    hasDigits = true;
+                    if (significantDigits < 18) {
+                        mantissa = mantissa * 10 + digit;
+                        exponent--;
+                        if (mantissa != 0) {
+                            significantDigits++;
+                        }
+                    } else {
+                        significantDigits++;
+                    }
+                }
+            }
+            // If no digit was parsed, throw an exception
+            if (!hasDigits) {
+                throw new IllegalArgumentException("Invalid number format.");
+            }
+            // Exponent part
+            if (currentIndex < length && (charAt(currentIndex) == 'e' || charAt(currentIndex) == 'E')) {
+                currentIndex++;
+                boolean negative = false;
+                if (currentIndex < length && (charAt(currentIndex) == '+' || charAt(currentIndex) == '-')) {
+                    negative = charAt(currentIndex++) == '-';
+                }
+                if (currentIndex >= length || !isDigit(charAt(currentIndex))) {
+                    throw new IllegalArgumentException("Invalid number format.");
+                }
+                int explicit = 0;
+                while (currentIndex < length && isDigit(charAt(currentIndex))) {
+                    // Saturate; such exponents overflow to infinity or zero anyway
+                    explicit = Math.min(explicit * 10 + (charAt(currentIndex++) - '0'), 100_000);
+                }
+                exponent += negative ? -explicit : explicit;
+            }
+
+            if (significantDigits <= 18 && mantissa <= MAX_EXACT_MANTISSA && Math.abs(exponent) <= 22) {
+                double value = mantissa;
+                program.constant(exponent < 0 ? value / POWERS_OF_TEN[-exponent] : value * POWERS_OF_TEN[exponent]);
+            } else {
+                program.constant(Double.parseDouble(substring(start, currentIndex)));
+            }
+        }
+
+        private String substring(int start, int end) {
+            if (bytes != null) {
+                return new String(bytes, offset + start, end - start, StandardCharsets.ISO_8859_1);
+            }
+            if (segment != null) {
+                byte[] copy = segment.asSlice(segmentOffset + start, end - start).toArray(ValueLayout.JAVA_BYTE);
+                return new String(copy, StandardCharsets.ISO_8859_1);
+            }
+            return text.subSequence(start, end).toString();
+        }
     }
 
 }
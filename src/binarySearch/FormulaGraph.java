@@ -0,0 +1,285 @@
+package binarySearch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A sheet of named formulas that refer to each other by name, recalculated incrementally.
+ * <p>
+ * Each name is either an input set with {@link #set(String, double)} or a formula defined with
+ * {@link #define(String, String)}, whose variables are the names it depends on. A definition that
+ * would make a name depend on itself is rejected. A name may be used before it is defined; until
+ * then its value is NaN.
+ * <p>
+ * A change marks the changed name and everything downstream of it as dirty and nothing else. The
+ * next {@link #recalculate()}, or the next {@link #get(String)}, recomputes only the dirty names in
+ * dependency order. The dirty names are processed in waves: a wave holds every name whose dirty
+ * inputs are all up to date, so the names in one wave are independent of each other and a large
+ * wave is evaluated in parallel.
+ * <p>
+ * All methods are synchronized, so a graph can be shared between threads.
+ */
+public class FormulaGraph {
+
+    // Waves smaller than this are evaluated on the calling thread
+    private static final int PARALLEL_THRESHOLD = 512;
+
+    private final Map<String, Node> nodes = new HashMap<>();
+    private final Set<Node> dirty = new LinkedHashSet<>();
+
+    /**
+     * Defines or redefines a name as a formula over other names.
+     *
+     * @param name The name to define.
+     * @param formula The formula; its variables are the names it depends on.
+     * @throws IllegalArgumentException if the name is null or empty, the formula is improperly
+     *                                  formatted, or the definition would create a cycle. The graph is
+     *                                  unchanged if the definition is rejected.
+     */
+    public synchronized void define(String name, String formula) {
+        checkName(name);
+        CompiledExpression compiled = ExpressionParser.compile(formula);
+        List<String> variables = compiled.variables();
+        if (variables.contains(name)) {
+            throw new IllegalArgumentException("Cycle detected: " + name + " refers to itself");
+        }
+        Node node = nodes.get(name);
+        if (node != null) {
+            for (String variable : variables) {
+                Node input = nodes.get(variable);
+                if (input != null && dependsOn(input, node)) {
+                    throw new IllegalArgumentException("Cycle detected: " + variable + " depends on " + name);
+                }
+            }
+        } else {
+            node = new Node(name);
+            nodes.put(name, node);
+        }
+        Node[] inputs = new Node[variables.size()];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = nodes.computeIfAbsent(variables.get(i), Node::new);
+        }
+        replace(node, compiled, inputs);
+    }
+
+    /**
+     * Sets a name to a fixed value, replacing any formula it had.
+     *
+     * @param name The name to set.
+     * @param value The value.
+     * @throws IllegalArgumentException if the name is null or empty.
+     */
+    public synchronized void set(String name, double value) {
+        checkName(name);
+        Node node = nodes.computeIfAbsent(name, Node::new);
+        replace(node, null, new Node[0]);
+        node.value = value;
+    }
+
+    /**
+     * Removes the definition of a name. Formulas that still refer to it see NaN.
+     *
+     * @param name The name to remove.
+     * @return true if the name was defined.
+     */
+    public synchronized boolean remove(String name) {
+        Node node = nodes.get(name);
+        if (node == null || !node.defined) {
+            return false;
+        }
+        replace(node, null, new Node[0]);
+        node.defined = false;
+        node.value = Double.NaN;
+        dirty.remove(node);
+        if (node.dependents.isEmpty()) {
+            nodes.remove(name);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the current value of a name, recalculating dirty names first.
+     *
+     * @param name The name to look up.
+     * @return The value, or NaN if the name is referred to but not defined.
+     * @throws IllegalArgumentException if the name is unknown.
+     */
+    public synchronized double get(String name) {
+        Node node = nodes.get(name);
+        if (node == null) {
+            throw new IllegalArgumentException("Unknown name: " + name);
+        }
+        recalculate();
+        return node.value;
+    }
+
+    /**
+     * Returns the names a name depends on directly, in order of first appearance in its formula.
+     *
+     * @param name The name to look up.
+     * @return The direct dependencies; empty for inputs.
+     * @throws IllegalArgumentException if the name is unknown.
+     */
+    public synchronized List<String> dependencies(String name) {
+        Node node = nodes.get(name);
+        if (node == null) {
+            throw new IllegalArgumentException("Unknown name: " + name);
+        }
+        return node.formula == null ? List.of() : node.formula.variables();
+    }
+
+    /**
+     * Recomputes every dirty name in dependency order.
+     *
+     * @return The number of formulas evaluated.
+     */
+    public synchronized int recalculate() {
+        if (dirty.isEmpty()) {
+            return 0;
+        }
+        // Count, for every dirty node, the dirty inputs it still waits for
+        for (Node node : dirty) {
+            node.pending = 0;
+        }
+        for (Node node : dirty) {
+            for (Node dependent : node.dependents) {
+                dependent.pending++;
+            }
+        }
+        List<Node> wave = new ArrayList<>();
+        for (Node node : dirty) {
+            if (node.pending == 0) {
+                wave.add(node);
+            }
+        }
+        int evaluated = 0;
+        while (!wave.isEmpty()) {
+            if (wave.size() >= PARALLEL_THRESHOLD) {
+                wave.parallelStream().forEach(Node::evaluate);
+            } else {
+                wave.forEach(Node::evaluate);
+            }
+            List<Node> next = new ArrayList<>();
+            for (Node node : wave) {
+                if (node.formula != null) {
+                    evaluated++;
+                }
+                for (Node dependent : node.dependents) {
+                    if (--dependent.pending == 0) {
+                        next.add(dependent);
+                    }
+                }
+            }
+            wave = next;
+        }
+        dirty.clear();
+        return evaluated;
+    }
+
+    /**
+     * Returns the number of names, including names referred to but not defined.
+     *
+     * @return The number of names.
+     */
+    public synchronized int size() {
+        return nodes.size();
+    }
+
+    private static void checkName(String name) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("Name cannot be null or empty.");
+        }
+    }
+
+    /**
+     * Replaces the formula and inputs of a node and marks it and everything downstream as dirty.
+     */
+    private void replace(Node node, CompiledExpression formula, Node[] inputs) {
+        Node[] oldInputs = node.inputs;
+        for (Node input : oldInputs) {
+            input.dependents.remove(node);
+        }
+        node.formula = formula;
+        node.inputs = inputs;
+        node.defined = true;
+        for (Node input : inputs) {
+            input.dependents.add(node);
+        }
+        // Drop names nothing refers to any more and that were never defined. The new inputs are
+        // attached first, so a name the new formula still uses is kept.
+        for (Node input : oldInputs) {
+            if (!input.defined && input.dependents.isEmpty() && input != node) {
+                nodes.remove(input.name);
+            }
+        }
+        markDirty(node);
+    }
+
+    /**
+     * Checks whether a node depends, directly or indirectly, on another.
+     */
+    private static boolean dependsOn(Node from, Node target) {
+        List<Node> pending = new ArrayList<>();
+        Set<Node> visited = new HashSet<>();
+        pending.add(from);
+        while (!pending.isEmpty()) {
+            Node node = pending.remove(pending.size() - 1);
+            if (node == target) {
+                return true;
+            }
+            if (visited.add(node)) {
+                for (Node input : node.inputs) {
+                    pending.add(input);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void markDirty(Node start) {
+        List<Node> pending = new ArrayList<>();
+        pending.add(start);
+        while (!pending.isEmpty()) {
+            Node node = pending.remove(pending.size() - 1);
+            if (dirty.add(node)) {
+                pending.addAll(node.dependents);
+            }
+        }
+    }
+
+    /**
+     * One name in the graph.
+     */
+    private static class Node {
+
+        final String name;
+        // Null for inputs and for names that are referred to but not defined
+        CompiledExpression formula;
+        Node[] inputs = new Node[0];
+        final Set<Node> dependents = new LinkedHashSet<>();
+        boolean defined;
+        double value = Double.NaN;
+        // Dirty inputs not yet recomputed during a recalculation
+        int pending;
+
+        Node(String name) {
+            this.name = name;
+        }
+
+        void evaluate() {
+            if (formula == null) {
+                return;
+            }
+            double[] values = new double[inputs.length];
+            for (int i = 0; i < inputs.length; i++) {
+                values[i] = inputs[i].value;
+            }
+            value = formula.evaluate(values);
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package binarySearch;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * An immutable sorted dictionary of strings, stored front-coded in a single byte array.
+ * <p>
+ * Keys are encoded in UTF-8 and grouped into buckets of {@value #BUCKET_SIZE}. The first key of a
+ * bucket (its head) is stored in full. Every other key stores only the length of the prefix it
+ * shares with the key before it, followed by the remaining bytes. Sorted vocabularies share long
+ * prefixes, so this is several times smaller than a {@code String[]}, which pays for an object
+ * header, a backing array and a reference per key.
+ * <p>
+ * A lookup binary-searches the bucket heads and then scans a single bucket. The scan never rebuilds
+ * the keys: it tracks how many leading bytes the current key shares with the query, so most keys are
+ * settled by comparing two prefix lengths.
+ * <p>
+ * Keys are ordered by unsigned UTF-8 bytes. That is the same order as {@link String#compareTo}
+ * except for supplementary characters, which sort after {@code U+E000}..{@code U+FFFF} here.
+ */
+public final class FrontCodedDictionary {
+
+    private static final int BUCKET_SIZE = 16;
+
+    // The encoded buckets, one after another
+    private final byte[] data;
+    // Offset of each bucket in data
+    private final int[] bucketOffsets;
+    private final int size;
+    private final int maxKeyLength;
+
+    /**
+     * Builds a dictionary from sorted keys.
+     *
+     * @param sortedKeys The keys, sorted and without duplicates.
+     * @throws IllegalArgumentException if the array is null, contains null, or is not strictly
+     *                                  ascending in UTF-8 byte order.
+     */
+    public FrontCodedDictionary(String[] sortedKeys) {
+        if (sortedKeys == null) {
+            throw new IllegalArgumentException("Array is null");
+        }
+        size = sortedKeys.length;
+        bucketOffsets = new int[(size + BUCKET_SIZE - 1) / BUCKET_SIZE];
+        ByteSink sink = new ByteSink();
+        byte[] previous = null;
+        int longest = 0;
+        for (int i = 0; i < size; i++) {
+            if (sortedKeys[i] == null) {
+                throw new IllegalArgumentException("Key at index " + i + " is null");
+            }
+            byte[] key = sortedKeys[i].getBytes(StandardCharsets.UTF_8);
+            if (previous != null && Arrays.compareUnsigned(previous, key) >= 0) {
+                throw new IllegalArgumentException("Keys are not sorted and unique at index " + i);
+            }
+            if (i % BUCKET_SIZE == 0) {
+                bucketOffsets[i / BUCKET_SIZE] = sink.length;
+                sink.writeVarint(key.length);
+                sink.write(key, 0, key.length);
+            } else {
+                int shared = Arrays.mismatch(previous, key);
+                sink.writeVarint(shared);
+                sink.writeVarint(key.length - shared);
+                sink.write(key, shared, key.length - shared);
+            }
+            longest = Math.max(longest, key.length);
+            previous = key;
+        }
+        data = Arrays.copyOf(sink.bytes, sink.length);
+        maxKeyLength = longest;
+    }
+
+    /**
+     * Returns the number of keys in the dictionary.
+     *
+     * @return The number of keys.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the memory taken by the encoded keys and the bucket table, excluding object headers.
+     *
+     * @return The size of the encoding in bytes.
+     */
+    public long encodedBytes() {
+        return data.length + (long) bucketOffsets.length * Integer.BYTES;
+    }
+
+    /**
+     * Searches the dictionary for a key.
+     *
+     * @param key The key to search for.
+     * @return The index of the key in sorted order, or -1 if it is absent.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public int indexOf(String key) {
+        long located = locate(utf8(key), false);
+        return (located & 1) != 0 ? (int) (located >>> 1) : -1;
+    }
+
+    /**
+     * Counts the keys that sort before the given key.
+     *
+     * @param key The key to rank; it does not have to be in the dictionary.
+     * @return The number of keys smaller than the given key.
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public int rank(String key) {
+        return (int) (locate(utf8(key), false) >>> 1);
+    }
+
+    /**
+     * Finds all keys that start with a prefix. Because the keys are sorted, they form one
+     * contiguous index range.
+     *
+     * @param prefix The prefix to search for; the empty prefix matches every key.
+     * @return The packed range {@code [start, end)} of matching indices; decode it with
+     *         {@link BinarySearch#rangeStart} and {@link BinarySearch#rangeEnd}.
+     * @throws IllegalArgumentException if the prefix is null.
+     */
+    public long prefixRange(String prefix) {
+        byte[] query = utf8(prefix);
+        int start = (int) (locate(query, false) >>> 1);
+        int end = (int) (locate(query, true) >>> 1);
+        return BinarySearch.range(start, end);
+    }
+
+    /**
+     * Decodes the key at an index.
+     *
+     * @param index The index of the key in sorted order.
+     * @return The key.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of range for size " + size);
+        }
+        byte[] key = new byte[maxKeyLength];
+        int pos = bucketOffsets[index / BUCKET_SIZE];
+        long varint = readVarint(pos);
+        int length = (int) (varint >>> 32);
+        pos = (int) varint;
+        System.arraycopy(data, pos, key, 0, length);
+        pos += length;
+        for (int i = index % BUCKET_SIZE; i > 0; i--) {
+            varint = readVarint(pos);
+            int shared = (int) (varint >>> 32);
+            varint = readVarint((int) varint);
+            int suffix = (int) (varint >>> 32);
+            pos = (int) varint;
+            System.arraycopy(data, pos, key, shared, suffix);
+            pos += suffix;
+            length = shared + suffix;
+        }
+        return new String(key, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Finds how many keys come before the query. A key comes before the query when it is smaller,
+     * or, in prefix mode, also when it starts with the query.
+     *
+     * @param query      The UTF-8 query.
+     * @param prefixMode Whether keys starting with the query count as coming before it.
+     * @return The count shifted left by one, with the low bit set when the first key not before the
+     *         query is equal to it.
+     */
+    private long locate(byte[] query, boolean prefixMode) {
+        // Binary search for the number of bucket heads that come before the query
+        int low = 0;
+        int high = bucketOffsets.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (headBefore(mid, query, prefixMode)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (low == 0) {
+            return size > 0 && headEquals(0, query) ? 1 : 0;
+        }
+
+        // Scan the last bucket whose head comes before the query
+        int bucket = low - 1;
+        int first = bucket * BUCKET_SIZE;
+        int keys = Math.min(BUCKET_SIZE, size - first);
+        int pos = bucketOffsets[bucket];
+        long varint = readVarint(pos);
+        int length = (int) (varint >>> 32);
+        pos = (int) varint;
+        // Number of leading bytes the current key shares with the query
+        int matched = mismatch(pos, length, query, 0);
+        pos += length;
+        for (int i = 1; i < keys; i++) {
+            varint = readVarint(pos);
+            int shared = (int) (varint >>> 32);
+            varint = readVarint((int) varint);
+            int suffix = (int) (varint >>> 32);
+            pos = (int) varint;
+            length = shared + suffix;
+            if (shared < matched) {
+                // The key leaves the previous one at a byte where the previous key still agreed with
+                // the query, and keys ascend, so this key is past the query
+                return (long) (first + i) << 1;
+            }
+            if (shared == matched) {
+                matched += mismatch(pos, suffix, query, matched);
+                if (!before(pos - shared, length, matched, query, prefixMode)) {
+                    boolean equal = matched == query.length && length == query.length;
+                    return ((long) (first + i) << 1) | (equal ? 1 : 0);
+                }
+            }
+            // When shared > matched the key agrees with the previous key where it left the query,
+            // so it still comes before the query and matched is unchanged
+            pos += suffix;
+        }
+        int next = first + keys;
+        return ((long) next << 1) | (next < size && headEquals(bucket + 1, query) ? 1 : 0);
+    }
+
+    private boolean headBefore(int bucket, byte[] query, boolean prefixMode) {
+        long varint = readVarint(bucketOffsets[bucket]);
+        int length = (int) (varint >>> 32);
+        int start = (int) varint;
+        return before(start, length, mismatch(start, length, query, 0), query, prefixMode);
+    }
+
+    private boolean headEquals(int bucket, byte[] query) {
+        long varint = readVarint(bucketOffsets[bucket]);
+        int length = (int) (varint >>> 32);
+        int start = (int) varint;
+        return Arrays.equals(data, start, start + length, query, 0, query.length);
+    }
+
+    /**
+     * Decides whether a key comes before the query, given how many leading bytes they share.
+     *
+     * @param base    The offset in data that key byte 0 would have; only bytes from matched onwards are read.
+     * @param length  The length of the key.
+     * @param matched The number of leading bytes the key shares with the query.
+     */
+    private boolean before(int base, int length, int matched, byte[] query, boolean prefixMode) {
+        if (matched == query.length) {
+            // The key starts with the query: it is equal to or longer than the query
+            return prefixMode;
+        }
+        if (matched == length) {
+            // The key is a proper prefix of the query
+            return true;
+        }
+        return Byte.toUnsignedInt(data[base + matched]) < Byte.toUnsignedInt(query[matched]);
+    }
+
+    /**
+     * Counts how many bytes of data starting at pos agree with the query starting at queryFrom.
+     */
+    private int mismatch(int pos, int length, byte[] query, int queryFrom) {
+        int mismatch = Arrays.mismatch(data, pos, pos + length, query, queryFrom, query.length);
+        return mismatch < 0 ? length : mismatch;
+    }
+
+    /**
+     * Reads an unsigned LEB128 varint.
+     *
+     * @param pos The offset of the varint in data.
+     * @return The value in the upper 32 bits and the offset just past the varint in the lower 32 bits.
+     */
+    private long readVarint(int pos) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[pos++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return ((long) value << 32) | pos;
+    }
+
+    private static byte[] utf8(String key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key is null");
+        }
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A growable byte buffer used while encoding.
+     */
+    private static class ByteSink {
+
+        private byte[] bytes = new byte[256];
+        private int length;
+
+        void write(byte[] source, int from, int count) {
+            ensureCapacity(count);
+            System.arraycopy(source, from, bytes, length, count);
+            length += count;
+        }
+
+        void writeVarint(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (bytes.length - length < extra) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+    }
+}
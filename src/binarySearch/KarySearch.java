@@ -0,0 +1,93 @@
+package binarySearch;
+
+/**
+ * K-ary lower bound search used by {@link SearchStrategy#K_ARY}.
+ * <p>
+ * A halving search spends one unpredictable branch and one dependent load per level. Here every step
+ * compares the key against {@value #WAYS} - 1 evenly spaced pivots and counts how many are smaller.
+ * The pivot loads are independent of each other, so their cache misses overlap. The count needs no
+ * branches, and each step divides the range by {@value #WAYS}. Once the range is at most
+ * {@value #SCAN_LIMIT} ints (four cache lines), a branch-free counting scan finishes the search.
+ * Both loops are plain counting loops with no data-dependent exits, which the JIT can unroll.
+ * <p>
+ * The final scan has an explicit SIMD form in {@code src-vector/binarySearch/VectorScan.java}. It
+ * uses the {@code jdk.incubator.vector} module, so it is kept out of {@code src} and is only
+ * compiled when the build adds that module:
+ * <pre>
+ * javac --add-modules jdk.incubator.vector -cp bin -d bin src-vector/binarySearch/VectorScan.java
+ * java --add-modules jdk.incubator.vector ...
+ * </pre>
+ * When the class is present and the module is resolved at run time, the scan compares a whole
+ * vector of ints with the key per instruction and counts the lanes that are smaller. Otherwise, or
+ * with {@code -DbinarySearch.vector=false}, the scalar scan below is used. Both give the same
+ * results.
+ */
+class KarySearch {
+
+    private static final int WAYS = 16;
+    private static final int SCAN_LIMIT = 64;
+    // The Vector API scan, or null when it was not compiled in or its module is missing
+    private static final Scan VECTOR_SCAN = loadVectorScan();
+
+    /**
+     * Finds the first index whose element is not less than the key.
+     *
+     * @param arr The sorted array to search.
+     * @param key The key to search for.
+     * @return The lower bound of the key, or {@code arr.length} if every element is smaller.
+     */
+    static int lowerBound(int[] arr, int key) {
+        int low = 0;
+        int length = arr.length;
+        while (length > SCAN_LIMIT) {
+            int step = length / WAYS;
+            // Pivot j is the last element of part j - 1; every part whose last element is smaller
+            // than the key can be skipped
+            int smaller = 0;
+            for (int j = 1; j < WAYS; j++) {
+                smaller += arr[low + j * step - 1] < key ? 1 : 0;
+            }
+            low += smaller * step;
+            // The last part also takes the remainder of the division
+            length = smaller == WAYS - 1 ? length - (WAYS - 1) * step : step;
+        }
+        if (VECTOR_SCAN != null) {
+            return low + VECTOR_SCAN.countLess(arr, low, low + length, key);
+        }
+        return low + countLess(arr, low, low + length, key);
+    }
+
+    /**
+     * Counts the elements in {@code [from, to)} that are less than the key.
+     */
+    static int countLess(int[] arr, int from, int to, int key) {
+        int smaller = 0;
+        for (int i = from; i < to; i++) {
+            smaller += arr[i] < key ? 1 : 0;
+        }
+        return smaller;
+    }
+
+    private static Scan loadVectorScan() {
+        if (!Boolean.parseBoolean(System.getProperty("binarySearch.vector", "true"))) {
+            return null;
+        }
+        try {
+            return (Scan) Class.forName("binarySearch.VectorScan").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // Built without src-vector, or run without --add-modules jdk.incubator.vector
+            return null;
+        }
+    }
+
+    /**
+     * The final scan of a search: counts the elements of a short sorted range below the key.
+     */
+    interface Scan {
+
+        /**
+         * Counts the elements in {@code [from, to)} that are less than the key.
+         */
+        int countLess(int[] arr, int from, int to, int key);
+    }
+}
@@ -0,0 +1,252 @@
+package binarySearch;
+
+import java.util.Arrays;
+
+/**
+ * A learned index over a sorted int or long array: a piecewise-linear model predicts where a key
+ * sits, and a short binary search inside the model's error window finds it.
+ * <p>
+ * When keys are close to uniformly distributed, such as timestamps or sequential IDs, a key's
+ * position is nearly a linear function of its value. The build greedily cuts the array into
+ * segments where one line predicts every key's position to within {@code epsilon} slots (the
+ * shrinking-cone algorithm). A lookup binary-searches the small segment table, evaluates the line,
+ * and searches at most {@code 2 * epsilon + 3} slots of the array. With a handful of segments that is
+ * far fewer probes than halving the whole array.
+ * <p>
+ * A lookup costs about log2(segments) + log2(2 * epsilon + 3) probes against log2(n) for a plain
+ * binary search. When the data is too skewed for that to pay off, the index drops the model and
+ * falls back to a plain binary search. Results are the same either way.
+ */
+public final class LearnedIndex {
+
+    private static final int DEFAULT_EPSILON = 32;
+
+    // Exactly one of these holds the indexed keys
+    private final int[] intKeys;
+    private final long[] longKeys;
+    private final int size;
+    private final int epsilon;
+
+    // First key, first position and slope of each segment; null when falling back to binary search
+    private final long[] segmentKeys;
+    private final int[] segmentStarts;
+    private final double[] slopes;
+
+    private LearnedIndex(int[] intKeys, long[] longKeys, int size, int epsilon) {
+        if (epsilon < 1) {
+            throw new IllegalArgumentException("Epsilon must be positive");
+        }
+        this.intKeys = intKeys;
+        this.longKeys = longKeys;
+        this.size = size;
+        this.epsilon = epsilon;
+
+        // The model is fitted on the first position of every distinct key
+        long[] keys = new long[size];
+        int[] starts = new int[size];
+        double[] fitted = new double[size];
+        int segments = 0;
+        int distinct = 0;
+        long originKey = 0;
+        int originPosition = 0;
+        double lowSlope = Double.NEGATIVE_INFINITY;
+        double highSlope = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < size; i++) {
+            long key = keyAt(i);
+            if (i > 0 && key == keyAt(i - 1)) {
+                continue;
+            }
+            distinct++;
+            if (segments > 0) {
+                // Narrow the cone of slopes that keep every point of the segment within epsilon
+                double dx = unsignedToDouble(key - originKey);
+                double low = Math.max(lowSlope, (i - epsilon - originPosition) / dx);
+                double high = Math.min(highSlope, (i + epsilon - originPosition) / dx);
+                if (low <= high) {
+                    lowSlope = low;
+                    highSlope = high;
+                    continue;
+                }
+                fitted[segments - 1] = slope(lowSlope, highSlope);
+            }
+            // This point does not fit the current segment, so it starts a new one
+            keys[segments] = key;
+            starts[segments] = i;
+            segments++;
+            originKey = key;
+            originPosition = i;
+            lowSlope = Double.NEGATIVE_INFINITY;
+            highSlope = Double.POSITIVE_INFINITY;
+        }
+        if (segments > 0) {
+            fitted[segments - 1] = slope(lowSlope, highSlope);
+        }
+
+        // The model only saves probes if the segments are much longer than the search window
+        if ((long) segments * (2L * epsilon + 3) > distinct) {
+            segmentKeys = null;
+            segmentStarts = null;
+            slopes = null;
+        } else {
+            segmentKeys = Arrays.copyOf(keys, segments);
+            segmentStarts = Arrays.copyOf(starts, segments);
+            slopes = Arrays.copyOf(fitted, segments);
+        }
+    }
+
+    /**
+     * Builds a learned index over a sorted int array with the default error bound.
+     *
+     * @param sorted The sorted array to index. It is referenced, not copied, and must not change.
+     * @return The index.
+     * @throws IllegalArgumentException if the array is null or empty.
+     */
+    public static LearnedIndex of(int[] sorted) {
+        return of(sorted, DEFAULT_EPSILON);
+    }
+
+    /**
+     * Builds a learned index over a sorted int array.
+     *
+     * @param sorted  The sorted array to index. It is referenced, not copied, and must not change.
+     * @param epsilon The maximum distance between a predicted and an actual position.
+     * @return The index.
+     * @throws IllegalArgumentException if the array is null or empty, or epsilon is not positive.
+     */
+    public static LearnedIndex of(int[] sorted, int epsilon) {
+        if (sorted == null || sorted.length == 0) {
+            throw new IllegalArgumentException("Array is null or empty");
+        }
+        return new LearnedIndex(sorted, null, sorted.length, epsilon);
+    }
+
+    /**
+     * Builds a learned index over a sorted long array with the default error bound.
+     *
+     * @param sorted The sorted array to index. It is referenced, not copied, and must not change.
+     * @return The index.
+     * @throws IllegalArgumentException if the array is null or empty.
+     */
+    public static LearnedIndex of(long[] sorted) {
+        return of(sorted, DEFAULT_EPSILON);
+    }
+
+    /**
+     * Builds a learned index over a sorted long array.
+     *
+     * @param sorted  The sorted array to index. It is referenced, not copied, and must not change.
+     * @param epsilon The maximum distance between a predicted and an actual position.
+     * @return The index.
+     * @throws IllegalArgumentException if the array is null or empty, or epsilon is not positive.
+     */
+    public static LearnedIndex of(long[] sorted, int epsilon) {
+        if (sorted == null || sorted.length == 0) {
+            throw new IllegalArgumentException("Array is null or empty");
+        }
+        return new LearnedIndex(null, sorted, sorted.length, epsilon);
+    }
+
+    /**
+     * Returns the number of linear segments in the model.
+     *
+     * @return The segment count, or 0 if the data was too skewed and the index uses plain binary search.
+     */
+    public int segmentCount() {
+        return segmentKeys == null ? 0 : segmentKeys.length;
+    }
+
+    /**
+     * Searches the index for a key.
+     *
+     * @param target The key to search for.
+     * @return The index of the first occurrence of the key, or -1 if it is absent. For arrays
+     *         without duplicates this is exactly what {@link BinarySearch#binarySearch(int[], int)} returns.
+     */
+    public int search(long target) {
+        if (intKeys != null && (int) target != target) {
+            return -1;
+        }
+        int from = 0;
+        int to = size;
+        if (segmentKeys != null) {
+            // The key belongs to the last segment starting at or below it
+            int segment = BinarySearch.upperBound(segmentKeys, 0, segmentKeys.length, target) - 1;
+            if (segment < 0) {
+                return -1;
+            }
+            int segmentEnd = segment + 1 < segmentStarts.length ? segmentStarts[segment + 1] : size;
+            double predicted = segmentStarts[segment] + slopes[segment] * unsignedToDouble(target - segmentKeys[segment]);
+            // One extra slot on each side absorbs floating-point rounding in the prediction
+            from = (int) Math.max(segmentStarts[segment], predicted - epsilon - 1);
+            to = (int) Math.min(segmentEnd, predicted + epsilon + 2);
+            if (from >= to) {
+                return -1;
+            }
+        }
+        if (intKeys != null) {
+            int index = BinarySearch.lowerBound(intKeys, from, to, (int) target);
+            return index < to && intKeys[index] == target ? index : -1;
+        }
+        int index = BinarySearch.lowerBound(longKeys, from, to, target);
+        return index < to && longKeys[index] == target ? index : -1;
+    }
+
+    /**
+     * Searches a sorted array by interpolation: each probe is placed where the target would sit if
+     * the keys between the current bounds were evenly spaced. On uniform data this takes about
+     * log(log(n)) probes. Whenever a probe fails to halve the range, the next probe bisects instead,
+     * so skewed data never costs more than about twice a binary search.
+     *
+     * @param arr    The sorted array to search.
+     * @param target The key to search for.
+     * @return The index of the first occurrence of the key, or -1 if it is absent.
+     * @throws IllegalArgumentException if the array is null or empty.
+     */
+    public static int interpolationSearch(int[] arr, int target) {
+        if (arr == null || arr.length == 0) {
+            throw new IllegalArgumentException("Array is null or empty");
+        }
+        // The first occurrence of the target, if any, always lies in [low, high]
+        int low = 0;
+        int high = arr.length - 1;
+        if (target < arr[low] || target > arr[high]) {
+            return -1;
+        }
+        boolean bisect = false;
+        while (high - low > 8) {
+            int before = high - low;
+            int probe;
+            if (bisect || arr[high] == arr[low]) {
+                probe = low + (high - low) / 2;
+            } else {
+                double fraction = ((double) target - arr[low]) / ((double) arr[high] - arr[low]);
+                probe = low + (int) (fraction * (high - low));
+            }
+            // Never probe high itself, so every step shrinks the range
+            probe = Math.max(low, Math.min(probe, high - 1));
+            if (arr[probe] < target) {
+                low = probe + 1;
+            } else {
+                high = probe;
+            }
+            bisect = high - low > before / 2;
+        }
+        int index = BinarySearch.lowerBound(arr, low, high + 1, target);
+        return index <= high && arr[index] == target ? index : -1;
+    }
+
+    private long keyAt(int i) {
+        return intKeys != null ? intKeys[i] : longKeys[i];
+    }
+
+    // Any slope inside the final cone works; a single-point segment has an unbounded cone
+    private static double slope(double low, double high) {
+        return low == Double.NEGATIVE_INFINITY ? 0 : (low + high) / 2;
+    }
+
+    // Key differences inside a segment are non-negative but can exceed Long.MAX_VALUE
+    private static double unsignedToDouble(long value) {
+        double result = (double) (value >>> 1) * 2;
+        return result + (value & 1);
+    }
+}
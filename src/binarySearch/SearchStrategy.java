@@ -0,0 +1,54 @@
+package binarySearch;
+
+/**
+ * The algorithms {@link BinarySearch#binarySearch(int[], int, SearchStrategy)} can use to search a
+ * sorted int array.
+ */
+public enum SearchStrategy {
+
+    /**
+     * The original recursive halving search. With duplicates it returns whichever matching index
+     * the halving reaches first.
+     */
+    RECURSIVE {
+        @Override
+        int search(int[] arr, int target) {
+            return BinarySearch.binarySearchRecursive(arr, 0, arr.length - 1, target);
+        }
+    },
+
+    /**
+     * An iterative halving search that narrows the range with a conditional move instead of a
+     * branch. Returns the first matching index.
+     */
+    BRANCHLESS {
+        @Override
+        int search(int[] arr, int target) {
+            int index = BinarySearch.lowerBound(arr, 0, arr.length, target);
+            return index < arr.length && arr[index] == target ? index : -1;
+        }
+    },
+
+    /**
+     * A k-ary search that compares the key against 15 pivots per step, cutting the range by 16
+     * instead of 2. Once the range fits in a few cache lines it finishes with a linear scan, which
+     * uses the Vector API when the build includes it (see {@link KarySearch}). Returns the first
+     * matching index.
+     */
+    K_ARY {
+        @Override
+        int search(int[] arr, int target) {
+            int index = KarySearch.lowerBound(arr, target);
+            return index < arr.length && arr[index] == target ? index : -1;
+        }
+    };
+
+    /**
+     * Searches a non-empty sorted array.
+     *
+     * @param arr    The sorted array to search.
+     * @param target The key to search for.
+     * @return The index of a matching element, or -1 if there is none.
+     */
+    abstract int search(int[] arr, int target);
+}
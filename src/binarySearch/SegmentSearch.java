@@ -0,0 +1,211 @@
+package binarySearch;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary search over sorted keys stored in a {@link MemorySegment} instead of a Java array.
+ * <p>
+ * The segment can be off-heap memory or a file mapped with {@link #mapReadOnly(Path, Arena)}, so a
+ * multi-gigabyte sorted key file is searched in place: nothing is copied onto the heap, opening it
+ * costs one {@code mmap} call, and the garbage collector never sees the data. Indices are
+ * {@code long} because a segment may hold more than {@code Integer.MAX_VALUE} keys.
+ * <p>
+ * Two key formats are supported:
+ * <ul>
+ *   <li>Fixed-width int or long keys, one after another. The caller passes the layout, which fixes
+ *       the byte order, for example {@code ValueLayout.JAVA_INT.withOrder(ByteOrder.BIG_ENDIAN)}.</li>
+ *   <li>Variable-length byte keys, each stored as an int length followed by that many bytes, sorted
+ *       by unsigned lexicographic byte order. These are searched through an offsets table built once
+ *       with {@link #recordOffsets(MemorySegment, ValueLayout.OfInt, Arena)}.</li>
+ * </ul>
+ */
+public class SegmentSearch {
+
+    /**
+     * Maps a file read-only into memory.
+     *
+     * @param file  The file to map.
+     * @param arena The arena controlling how long the mapping stays valid.
+     * @return A read-only segment covering the whole file.
+     * @throws IOException if the file cannot be opened or mapped.
+     */
+    public static MemorySegment mapReadOnly(Path file, Arena arena) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping outlives the channel; it is released when the arena closes
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+        }
+    }
+
+    /**
+     * Finds the first index whose int key is not less than the given key.
+     *
+     * @param keys   The segment holding the sorted keys.
+     * @param layout The layout of one key, which determines its byte order.
+     * @param key    The key to search for.
+     * @return The lower bound of the key, or the number of keys if every key is smaller.
+     */
+    public static long lowerBound(MemorySegment keys, ValueLayout.OfInt layout, int key) {
+        long base = 0;
+        long length = keys.byteSize() / layout.byteSize();
+        while (length > 1) {
+            long half = length >>> 1;
+            base = keys.getAtIndex(layout, base + half - 1) < key ? base + half : base;
+            length -= half;
+        }
+        return length == 1 && keys.getAtIndex(layout, base) < key ? base + 1 : base;
+    }
+
+    /**
+     * Searches a segment of sorted int keys.
+     *
+     * @param keys   The segment holding the sorted keys.
+     * @param layout The layout of one key, which determines its byte order.
+     * @param target The key to search for.
+     * @return The index of the first occurrence of the key, or -1 if it is absent.
+     */
+    public static long binarySearch(MemorySegment keys, ValueLayout.OfInt layout, int target) {
+        long index = lowerBound(keys, layout, target);
+        return index < keys.byteSize() / layout.byteSize() && keys.getAtIndex(layout, index) == target ? index : -1;
+    }
+
+    /**
+     * Finds the first index whose long key is not less than the given key.
+     *
+     * @param keys   The segment holding the sorted keys.
+     * @param layout The layout of one key, which determines its byte order.
+     * @param key    The key to search for.
+     * @return The lower bound of the key, or the number of keys if every key is smaller.
+     */
+    public static long lowerBound(MemorySegment keys, ValueLayout.OfLong layout, long key) {
+        long base = 0;
+        long length = keys.byteSize() / layout.byteSize();
+        while (length > 1) {
+            long half = length >>> 1;
+            base = keys.getAtIndex(layout, base + half - 1) < key ? base + half : base;
+            length -= half;
+        }
+        return length == 1 && keys.getAtIndex(layout, base) < key ? base + 1 : base;
+    }
+
+    /**
+     * Searches a segment of sorted long keys.
+     *
+     * @param keys   The segment holding the sorted keys.
+     * @param layout The layout of one key, which determines its byte order.
+     * @param target The key to search for.
+     * @return The index of the first occurrence of the key, or -1 if it is absent.
+     */
+    public static long binarySearch(MemorySegment keys, ValueLayout.OfLong layout, long target) {
+        long index = lowerBound(keys, layout, target);
+        return index < keys.byteSize() / layout.byteSize() && keys.getAtIndex(layout, index) == target ? index : -1;
+    }
+
+    /**
+     * Builds the offsets table for a segment of length-prefixed byte keys. The table is a segment of
+     * native-order longs, one per key, allocated in the given arena so it stays off the heap too.
+     *
+     * @param records      The segment holding the length-prefixed keys.
+     * @param lengthLayout The layout of each length prefix, which determines its byte order.
+     * @param arena        The arena to allocate the table in.
+     * @return A segment holding the byte offset of each key's length prefix.
+     * @throws IllegalArgumentException if a length prefix is negative or runs past the end of the segment.
+     */
+    public static MemorySegment recordOffsets(MemorySegment records, ValueLayout.OfInt lengthLayout, Arena arena) {
+        ValueLayout.OfInt prefix = lengthLayout.withByteAlignment(1);
+        // First pass validates the records and counts them so the table can be sized exactly
+        long count = 0;
+        for (long offset = 0; offset < records.byteSize(); count++) {
+            offset = nextRecord(records, prefix, offset);
+        }
+        MemorySegment offsets = arena.allocate(count * Long.BYTES, Long.BYTES);
+        long offset = 0;
+        for (long i = 0; i < count; i++) {
+            offsets.setAtIndex(ValueLayout.JAVA_LONG, i, offset);
+            offset = nextRecord(records, prefix, offset);
+        }
+        return offsets;
+    }
+
+    private static long nextRecord(MemorySegment records, ValueLayout.OfInt prefix, long offset) {
+        if (records.byteSize() - offset < prefix.byteSize()) {
+            throw new IllegalArgumentException("Truncated length prefix at offset " + offset);
+        }
+        int length = records.get(prefix, offset);
+        long end = offset + prefix.byteSize() + length;
+        if (length < 0 || end > records.byteSize()) {
+            throw new IllegalArgumentException("Invalid key length " + length + " at offset " + offset);
+        }
+        return end;
+    }
+
+    /**
+     * Finds the first key that is not less than the given key in unsigned lexicographic byte order.
+     *
+     * @param records      The segment holding the length-prefixed keys.
+     * @param lengthLayout The layout of each length prefix, which determines its byte order.
+     * @param offsets      The offsets table built by {@link #recordOffsets}.
+     * @param key          The key to search for.
+     * @return The lower bound of the key, or the number of keys if every key is smaller.
+     */
+    public static long lowerBound(MemorySegment records, ValueLayout.OfInt lengthLayout,
+                                  MemorySegment offsets, MemorySegment key) {
+        ValueLayout.OfInt prefix = lengthLayout.withByteAlignment(1);
+        long base = 0;
+        long length = offsets.byteSize() / Long.BYTES;
+        while (length > 1) {
+            long half = length >>> 1;
+            base = compareRecord(records, prefix, offsets, base + half - 1, key) < 0 ? base + half : base;
+            length -= half;
+        }
+        return length == 1 && compareRecord(records, prefix, offsets, base, key) < 0 ? base + 1 : base;
+    }
+
+    /**
+     * Searches a segment of length-prefixed byte keys.
+     *
+     * @param records      The segment holding the length-prefixed keys.
+     * @param lengthLayout The layout of each length prefix, which determines its byte order.
+     * @param offsets      The offsets table built by {@link #recordOffsets}.
+     * @param target       The key to search for; use {@link MemorySegment#ofArray(byte[])} for a heap array.
+     * @return The index of the key, or -1 if it is absent.
+     */
+    public static long binarySearch(MemorySegment records, ValueLayout.OfInt lengthLayout,
+                                    MemorySegment offsets, MemorySegment target) {
+        ValueLayout.OfInt prefix = lengthLayout.withByteAlignment(1);
+        long index = lowerBound(records, prefix, offsets, target);
+        return index < offsets.byteSize() / Long.BYTES
+                && compareRecord(records, prefix, offsets, index, target) == 0 ? index : -1;
+    }
+
+    /**
+     * Compares one stored key with a search key without copying either of them.
+     *
+     * @return A negative number, zero, or a positive number as the stored key is less than, equal to,
+     *         or greater than the search key.
+     */
+    private static int compareRecord(MemorySegment records, ValueLayout.OfInt prefix,
+                                     MemorySegment offsets, long index, MemorySegment key) {
+        long offset = offsets.getAtIndex(ValueLayout.JAVA_LONG, index);
+        long start = offset + prefix.byteSize();
+        long length = records.get(prefix, offset);
+        long mismatch = MemorySegment.mismatch(records, start, start + length, key, 0, key.byteSize());
+        if (mismatch == -1) {
+            return 0;
+        }
+        // When one key is a prefix of the other, the shorter one sorts first
+        if (mismatch == length) {
+            return -1;
+        }
+        if (mismatch == key.byteSize()) {
+            return 1;
+        }
+        return Integer.compare(Byte.toUnsignedInt(records.get(ValueLayout.JAVA_BYTE, start + mismatch)),
+                Byte.toUnsignedInt(key.get(ValueLayout.JAVA_BYTE, mismatch)));
+    }
+}
@@ -1,18 +1,410 @@
 package binarySearch;
 
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
 public class SumOfDigits {
-    
-    // Recursive function to calculate the sum of digits
+
+    // Arrays longer than this are split across cores
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    // Digits per chunk when a long digit string is summed in parallel
+    private static final int CHUNK_DIGITS = 1 << 20;
+    // BigIntegers with fewer bits than this are split on the calling thread
+    private static final int PARALLEL_BITS = 1 << 18;
+    // Eight ASCII digits pass both checks: every high nibble is 3, and adding 6 does not carry out of it
+    private static final long ZEROS = 0x3030303030303030L;
+    private static final long SIXES = 0x0606060606060606L;
+    private static final long HIGH_NIBBLES = 0xF0F0F0F0F0F0F0F0L;
+    private static final long LOW_NIBBLES = 0x0F0F0F0F0F0F0F0FL;
+    private static final long ONES = 0x0101010101010101L;
+    private static final BigInteger NINE = BigInteger.valueOf(9);
+
+    // Digit sums of 0..9999, so four digits cost one lookup
+    private static final byte[] DIGIT_SUMS = new byte[10_000];
+
+    static {
+        for (int i = 1; i < DIGIT_SUMS.length; i++) {
+            DIGIT_SUMS[i] = (byte) (DIGIT_SUMS[i / 10] + i % 10);
+        }
+    }
+
+    /**
+     * Calculates the sum of the decimal digits of a number, ignoring its sign.
+     * <p>
+     * Digits are taken four at a time from a lookup table, so an int costs at most two divisions.
+     *
+     * @param number The number, which may be negative, including {@code Integer.MIN_VALUE}.
+     * @return The sum of the digits of the absolute value of the number.
+     */
     public static int sumOfDigits(int number) {
-        // Convert to positive if the number is negative
-        number = Math.abs(number);
-        
-        // Base case: if number becomes 0, return 0
-        if (number == 0) {
+        // Widen before negating so that Integer.MIN_VALUE does not overflow
+        long value = Math.abs((long) number);
+        int low = (int) (value % 10_000);
+        value /= 10_000;
+        int middle = (int) (value % 10_000);
+        int high = (int) (value / 10_000);
+        return DIGIT_SUMS[low] + DIGIT_SUMS[middle] + DIGIT_SUMS[high];
+    }
+
+    /**
+     * Calculates the sum of the decimal digits of a long, ignoring its sign.
+     *
+     * @param number The number, which may be negative, including {@code Long.MIN_VALUE}.
+     * @return The sum of the digits of the absolute value of the number.
+     */
+    public static int sumOfDigits(long number) {
+        // Negating Long.MIN_VALUE leaves it unchanged, but read as unsigned it is the right magnitude
+        long value = number < 0 ? -number : number;
+        int sum = DIGIT_SUMS[(int) Long.remainderUnsigned(value, 10_000)];
+        value = Long.divideUnsigned(value, 10_000);
+        while (value != 0) {
+            sum += DIGIT_SUMS[(int) (value % 10_000)];
+            value /= 10_000;
+        }
+        return sum;
+    }
+
+    /**
+     * Calculates the digit sum of every number in an array. Large arrays are processed in parallel.
+     *
+     * @param numbers The numbers.
+     * @return An array where element {@code i} is the digit sum of {@code numbers[i]}.
+     * @throws IllegalArgumentException if the array is null.
+     */
+    public static int[] sumOfDigits(int[] numbers) {
+        if (numbers == null) {
+            throw new IllegalArgumentException("Array is null");
+        }
+        int[] sums = new int[numbers.length];
+        if (numbers.length > PARALLEL_THRESHOLD) {
+            Arrays.parallelSetAll(sums, i -> sumOfDigits(numbers[i]));
+        } else {
+            for (int i = 0; i < numbers.length; i++) {
+                sums[i] = sumOfDigits(numbers[i]);
+            }
+        }
+        return sums;
+    }
+
+    /**
+     * Calculates the digit sum of every number in an array. Large arrays are processed in parallel.
+     *
+     * @param numbers The numbers.
+     * @return An array where element {@code i} is the digit sum of {@code numbers[i]}.
+     * @throws IllegalArgumentException if the array is null.
+     */
+    public static int[] sumOfDigits(long[] numbers) {
+        if (numbers == null) {
+            throw new IllegalArgumentException("Array is null");
+        }
+        int[] sums = new int[numbers.length];
+        if (numbers.length > PARALLEL_THRESHOLD) {
+            Arrays.parallelSetAll(sums, i -> sumOfDigits(numbers[i]));
+        } else {
+            for (int i = 0; i < numbers.length; i++) {
+                sums[i] = sumOfDigits(numbers[i]);
+            }
+        }
+        return sums;
+    }
+
+    /**
+     * Maps a stream of numbers to their digit sums. The result is parallel if the input is.
+     *
+     * @param numbers The numbers.
+     * @return A stream of digit sums in the same order.
+     * @throws IllegalArgumentException if the stream is null.
+     */
+    public static IntStream sumOfDigits(IntStream numbers) {
+        if (numbers == null) {
+            throw new IllegalArgumentException("Stream is null");
+        }
+        return numbers.map(SumOfDigits::sumOfDigits);
+    }
+
+    /**
+     * Maps a stream of numbers to their digit sums. The result is parallel if the input is.
+     *
+     * @param numbers The numbers.
+     * @return A stream of digit sums in the same order.
+     * @throws IllegalArgumentException if the stream is null.
+     */
+    public static IntStream sumOfDigits(LongStream numbers) {
+        if (numbers == null) {
+            throw new IllegalArgumentException("Stream is null");
+        }
+        return numbers.mapToInt(SumOfDigits::sumOfDigits);
+    }
+
+    /**
+     * Calculates the sum of the decimal digits of a number written out as text, such as a number
+     * with millions of digits. Long inputs are summed in parallel chunks.
+     *
+     * @param digits The decimal digits, optionally preceded by a sign; line breaks are skipped.
+     * @return The sum of the digits.
+     * @throws IllegalArgumentException if the text is null, has no digits, or has a character that is
+     *                                  not a digit, a line break or a leading sign.
+     */
+    public static long sumOfDigits(CharSequence digits) {
+        if (digits == null) {
+            throw new IllegalArgumentException("Digits are null");
+        }
+        int length = digits.length();
+        int start = length > 0 && (digits.charAt(0) == '-' || digits.charAt(0) == '+') ? 1 : 0;
+        int chunks = (length - start + CHUNK_DIGITS - 1) / CHUNK_DIGITS;
+        LongStream sums = LongStream.range(0, chunks).map(chunk -> {
+            int from = start + (int) chunk * CHUNK_DIGITS;
+            return sumDigits(digits, from, Math.min(length, from + CHUNK_DIGITS));
+        });
+        return total((chunks > 1 ? sums.parallel() : sums).toArray());
+    }
+
+    /**
+     * Calculates the sum of the decimal digits of a number stored as ASCII text in a file. The file
+     * is memory-mapped and summed in parallel chunks, eight digits at a time.
+     *
+     * @param file The file holding the digits, optionally preceded by a sign; line breaks are skipped.
+     * @return The sum of the digits.
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalArgumentException if the file is null, has no digits, or has a byte that is not a
+     *                                  digit, a line break or a leading sign.
+     */
+    public static long sumOfDigits(Path file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("File is null");
+        }
+        try (Arena arena = Arena.ofShared()) {
+            MemorySegment data = SegmentSearch.mapReadOnly(file, arena);
+            long size = data.byteSize();
+            byte first = size > 0 ? data.get(ValueLayout.JAVA_BYTE, 0) : 0;
+            long start = first == '-' || first == '+' ? 1 : 0;
+            long chunks = (size - start + CHUNK_DIGITS - 1) / CHUNK_DIGITS;
+            LongStream sums = LongStream.range(0, chunks).map(chunk -> {
+                long from = start + chunk * CHUNK_DIGITS;
+                return sumDigits(data, from, Math.min(size, from + CHUNK_DIGITS));
+            });
+            return total((chunks > 1 ? sums.parallel() : sums).toArray());
+        }
+    }
+
+    /**
+     * Calculates the sum of the decimal digits of a BigInteger, ignoring its sign.
+     * <p>
+     * The number is never converted to a string. It is split in half by a power of ten, {@code 10^(2^k)},
+     * recursively until each part fits in a long, and the digit sums of the parts are added.
+     * Leading zeros of a lower part add nothing, so no padding is needed. Large halves are split in
+     * parallel.
+     *
+     * @param number The number.
+     * @return The sum of the digits of the absolute value of the number.
+     * @throws IllegalArgumentException if the number is null.
+     */
+    public static long sumOfDigits(BigInteger number) {
+        if (number == null) {
+            throw new IllegalArgumentException("Number is null");
+        }
+        BigInteger value = number.abs();
+        if (value.bitLength() < Long.SIZE) {
+            return sumOfDigits(value.longValue());
+        }
+        // Powers 10^(18 * 2^k) up to about the square root of the number
+        List<BigInteger> powers = new ArrayList<>();
+        BigInteger power = BigInteger.TEN.pow(18);
+        while (power.bitLength() * 2 - 1 <= value.bitLength()) {
+            powers.add(power);
+            power = power.multiply(power);
+        }
+        powers.add(power);
+        return new DigitSumTask(value, powers, powers.size() - 1).invoke();
+    }
+
+    /**
+     * Calculates the digital root of a number: its digit sum, repeated until one digit is left.
+     *
+     * @param number The number, which may be negative.
+     * @return The digital root of the absolute value of the number, from 0 to 9.
+     */
+    public static int digitalRoot(long number) {
+        return digitalRootOfSum(sumOfDigits(number));
+    }
+
+    /**
+     * Calculates the digital root of a BigInteger from its remainder modulo 9, which takes a single
+     * pass over the number.
+     *
+     * @param number The number.
+     * @return The digital root of the absolute value of the number, from 0 to 9.
+     * @throws IllegalArgumentException if the number is null.
+     */
+    public static int digitalRoot(BigInteger number) {
+        if (number == null) {
+            throw new IllegalArgumentException("Number is null");
+        }
+        if (number.signum() == 0) {
             return 0;
         }
-        
-        // Recursive case: sum the last digit and recursively process the rest
-        return number % 10 + sumOfDigits(number / 10);
+        return 1 + number.abs().subtract(BigInteger.ONE).mod(NINE).intValue();
+    }
+
+    /**
+     * Calculates the digital root of a number written out as text.
+     *
+     * @param digits The decimal digits, as accepted by {@link #sumOfDigits(CharSequence)}.
+     * @return The digital root, from 0 to 9.
+     * @throws IllegalArgumentException if the text is not a valid number.
+     */
+    public static int digitalRoot(CharSequence digits) {
+        return digitalRootOfSum(sumOfDigits(digits));
+    }
+
+    /**
+     * Calculates the digital root of a number stored as ASCII text in a file.
+     *
+     * @param file The file holding the digits, as accepted by {@link #sumOfDigits(Path)}.
+     * @return The digital root, from 0 to 9.
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalArgumentException if the file does not hold a valid number.
+     */
+    public static int digitalRoot(Path file) throws IOException {
+        return digitalRootOfSum(sumOfDigits(file));
+    }
+
+    private static int digitalRootOfSum(long sum) {
+        // A number and its digit sum are congruent modulo 9
+        return sum == 0 ? 0 : (int) (1 + (sum - 1) % 9);
+    }
+
+    /**
+     * Adds up the sums of the chunks of a number, where -1 marks a chunk without digits.
+     */
+    private static long total(long[] chunkSums) {
+        long sum = 0;
+        boolean any = false;
+        for (long chunkSum : chunkSums) {
+            if (chunkSum >= 0) {
+                sum += chunkSum;
+                any = true;
+            }
+        }
+        if (!any) {
+            throw new IllegalArgumentException("No digits");
+        }
+        return sum;
+    }
+
+    /**
+     * Sums a range of characters.
+     *
+     * @return The digit sum, or -1 if the range has no digits.
+     */
+    private static long sumDigits(CharSequence digits, int from, int to) {
+        long sum = 0;
+        boolean any = false;
+        for (int i = from; i < to; i++) {
+            char c = digits.charAt(i);
+            if (c >= '0' && c <= '9') {
+                sum += c - '0';
+                any = true;
+            } else if (c != '\n' && c != '\r') {
+                throw new IllegalArgumentException("Invalid digit '" + c + "' at index " + i);
+            }
+        }
+        return any ? sum : -1;
+    }
+
+    /**
+     * Sums a range of ASCII bytes, eight at a time.
+     *
+     * @return The digit sum, or -1 if the range has no digits.
+     */
+    private static long sumDigits(MemorySegment data, long from, long to) {
+        long sum = 0;
+        boolean any = false;
+        long position = from;
+        for (; position + Long.BYTES <= to; position += Long.BYTES) {
+            long word = data.get(ValueLayout.JAVA_LONG_UNALIGNED, position);
+            if ((word & HIGH_NIBBLES) == ZEROS && ((word + SIXES) & HIGH_NIBBLES) == ZEROS) {
+                // Eight digits: add their low nibbles in the top byte with one multiplication
+                sum += ((word & LOW_NIBBLES) * ONES) >>> 56;
+                any = true;
+            } else {
+                long partial = sumBytes(data, position, position + Long.BYTES);
+                if (partial >= 0) {
+                    sum += partial;
+                    any = true;
+                }
+            }
+        }
+        long partial = sumBytes(data, position, to);
+        if (partial >= 0) {
+            sum += partial;
+            any = true;
+        }
+        return any ? sum : -1;
+    }
+
+    private static long sumBytes(MemorySegment data, long from, long to) {
+        long sum = 0;
+        boolean any = false;
+        for (long i = from; i < to; i++) {
+            byte b = data.get(ValueLayout.JAVA_BYTE, i);
+            if (b >= '0' && b <= '9') {
+                sum += b - '0';
+                any = true;
+            } else if (b != '\n' && b != '\r') {
+                throw new IllegalArgumentException("Invalid digit '" + (char) (b & 0xFF) + "' at index " + i);
+            }
+        }
+        return any ? sum : -1;
+    }
+
+    /**
+     * Sums the digits of a number below {@code powers[level]^2} by splitting it at {@code powers[level]}.
+     */
+    private static class DigitSumTask extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final BigInteger value;
+        // Tasks are never serialized, so the shared table of powers is not written out
+        private final transient List<BigInteger> powers;
+        private final int level;
+
+        DigitSumTask(BigInteger value, List<BigInteger> powers, int level) {
+            this.value = value;
+            this.powers = powers;
+            this.level = level;
+        }
+
+        @Override
+        protected Long compute() {
+            if (value.bitLength() < Long.SIZE) {
+                return (long) sumOfDigits(value.longValue());
+            }
+            // Skip powers larger than the value; its upper part would be zero
+            int split = level;
+            while (split > 0 && powers.get(split).compareTo(value) > 0) {
+                split--;
+            }
+            BigInteger[] parts = value.divideAndRemainder(powers.get(split));
+            DigitSumTask high = new DigitSumTask(parts[0], powers, split);
+            DigitSumTask low = new DigitSumTask(parts[1], powers, split - 1);
+            if (split > 0 && value.bitLength() >= PARALLEL_BITS) {
+                low.fork();
+                return high.compute() + low.join();
+            }
+            return high.compute() + low.compute();
+        }
     }
 }
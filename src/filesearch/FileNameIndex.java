@@ -0,0 +1,817 @@
+package filesearch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import binarySearch.SegmentSearch;
+
+/**
+ * An index of the file names below a directory, built once and then kept current, that answers the
+ * queries of {@link FileSearchEnhanced} without walking the tree.
+ * <p>
+ * The index is stored in one compact block, which {@link #save(Path)} writes to a file and
+ * {@link #open(Path)} maps back into memory after a restart:
+ * <ul>
+ * <li>a table of directories, each with its parent, its name and its modification time;</li>
+ * <li>a table of files, each with its directory, its name and its case-folded name, sorted by the
+ * case-folded name in unsigned UTF-8 byte order;</li>
+ * <li>a pool of UTF-8 names, each distinct name stored once, and shared by a name and its folded
+ * form when they are equal.</li>
+ * </ul>
+ * A query binary-searches the file table for the folded name, so it costs a few microseconds however
+ * large the tree is. Case-sensitive queries then keep only the exact names.
+ * <p>
+ * The stored block never changes. When a directory changes, it is listed again and its files are
+ * kept in a small in-memory overlay that hides the stored files of that directory. A directory is
+ * listed again when a {@link WatchService} reports a change in it (see {@link #startWatching}), or
+ * when {@link #refresh()} finds that its modification time differs from the one recorded. Refreshing
+ * costs one stat per directory rather than one per file, and {@link #open(Path)} does it once so that
+ * changes made while the index was not running are picked up. Saving writes the overlay back into a
+ * new block.
+ * <p>
+ * Symbolic links are indexed by name and are not followed. Directories that cannot be read are
+ * indexed as empty. All methods are synchronized, so the index can be queried while a watcher thread
+ * updates it.
+ */
+public final class FileNameIndex implements Closeable {
+
+    private static final int MAGIC = 0x464E4958; // "FNIX"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    // parent, name offset, name length, modification time
+    private static final int DIRECTORY_BYTES = 20;
+    // directory, name offset, name length, folded offset, folded length
+    private static final int FILE_BYTES = 20;
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    // The stored block: mapped from a file, or on the heap for an index built in this process
+    private final Arena arena;
+    private final MemorySegment data;
+    private final int fileCount;
+    private final long filesStart;
+    private final long poolStart;
+
+    // Directories of the stored block, by id; a removed one keeps its place so file records still
+    // resolve, and it is marked removed instead
+    private final List<Directory> directories = new ArrayList<>();
+    // Directories found since the block was built, parents before their subdirectories; dropped as
+    // soon as they are removed
+    private final Set<Directory> addedDirectories = new LinkedHashSet<>();
+    // Files of re-listed directories, by folded name
+    private final Map<String, List<Entry>> overlay = new HashMap<>();
+
+    private WatchService watchService;
+    private final Map<WatchKey, Directory> watchKeys = new HashMap<>();
+    // Set when a directory could not be watched, so the watcher falls back to mtime rescans
+    private boolean unwatched;
+    private Thread watcher;
+
+    private FileNameIndex(MemorySegment data, Arena arena) throws IOException {
+        this.data = data;
+        this.arena = arena;
+        if (data.byteSize() < HEADER_BYTES || data.get(INT, 0) != MAGIC || data.get(INT, 4) != VERSION) {
+            throw new IOException("Not a file name index");
+        }
+        int directoryCount = data.get(INT, 8);
+        fileCount = data.get(INT, 12);
+        filesStart = HEADER_BYTES + (long) directoryCount * DIRECTORY_BYTES;
+        poolStart = filesStart + (long) fileCount * FILE_BYTES;
+        if (directoryCount <= 0 || fileCount < 0 || poolStart > data.byteSize()) {
+            throw new IOException("Corrupt file name index");
+        }
+        // Check every reference in the block, so that a damaged file fails here rather than in a query
+        for (int id = 0; id < directoryCount; id++) {
+            long record = HEADER_BYTES + (long) id * DIRECTORY_BYTES;
+            int parentId = data.get(INT, record);
+            if (id == 0 ? parentId != -1 : parentId < 0 || parentId >= id) {
+                throw new IOException("Corrupt file name index");
+            }
+            checkName(record + 4);
+            String name = string(data.get(INT, record + 4), data.get(INT, record + 8));
+            Directory parent = parentId < 0 ? null : directories.get(parentId);
+            Directory directory;
+            try {
+                directory = new Directory(parent, parent == null ? Path.of(name) : parent.path.resolve(name));
+            } catch (InvalidPathException e) {
+                throw new IOException("Corrupt file name index", e);
+            }
+            directory.modified = data.get(LONG, record + 12);
+            directories.add(directory);
+        }
+        for (int i = 0; i < fileCount; i++) {
+            long record = filesStart + (long) i * FILE_BYTES;
+            int directoryId = directoryOf(i);
+            if (directoryId < 0 || directoryId >= directoryCount) {
+                throw new IOException("Corrupt file name index");
+            }
+            checkName(record + 4);
+            checkName(record + 12);
+            directories.get(directoryId).storedFiles++;
+        }
+    }
+
+    /**
+     * Checks that the name offset and length stored at a position lie within the pool.
+     */
+    private void checkName(long position) throws IOException {
+        int offset = data.get(INT, position);
+        int length = data.get(INT, position + 4);
+        if (offset < 0 || length < 0 || offset + (long) length > data.byteSize() - poolStart) {
+            throw new IOException("Corrupt file name index");
+        }
+    }
+
+    /**
+     * Builds an index of every file below a directory.
+     *
+     * @param root The directory to index.
+     * @return The index, held in memory until it is saved.
+     * @throws IOException if the directory cannot be read.
+     * @throws IllegalArgumentException if the root is null or not a directory.
+     */
+    public static FileNameIndex build(Path root) throws IOException {
+        if (root == null || !Files.isDirectory(root)) {
+            throw new IllegalArgumentException("Root is not a directory: " + root);
+        }
+        Tree tree = new Tree();
+        tree.walk(root.toAbsolutePath());
+        return new FileNameIndex(MemorySegment.ofArray(tree.encode()), null);
+    }
+
+    /**
+     * Maps an index saved by {@link #save(Path)} and brings it up to date by re-listing every
+     * directory whose modification time changed since.
+     *
+     * @param file The index file.
+     * @return The index; close it to unmap the file.
+     * @throws IOException if the file cannot be read, is not an index or is damaged.
+     */
+    public static FileNameIndex open(Path file) throws IOException {
+        Arena arena = Arena.ofShared();
+        try {
+            FileNameIndex index = new FileNameIndex(SegmentSearch.mapReadOnly(file, arena), arena);
+            index.refresh();
+            return index;
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the current state of the index, including every change seen so far, to a file. The
+     * file is written next to its final location and then moved into place, so a reader never sees
+     * a partly written index.
+     *
+     * @param file The file to create or replace.
+     * @throws IOException if the file cannot be written.
+     */
+    public synchronized void save(Path file) throws IOException {
+        Tree tree = new Tree();
+        Map<Directory, Integer> ids = new HashMap<>();
+        Map<Directory, List<String>> storedNames = new HashMap<>();
+        for (int i = 0; i < fileCount; i++) {
+            Directory directory = directories.get(directoryOf(i));
+            if (!directory.removed && directory.files == null) {
+                storedNames.computeIfAbsent(directory, d -> new ArrayList<>()).add(nameOf(i));
+            }
+        }
+        for (Directory directory : liveDirectories()) {
+            // Parents always come before their subdirectories
+            int parent = directory.parent == null ? -1 : ids.get(directory.parent);
+            String name = directory.parent == null ? directory.path.toString() : directory.path.getFileName().toString();
+            int id = tree.addDirectory(parent, name, directory.modified);
+            ids.put(directory, id);
+            List<String> names = directory.files != null ? directory.files : storedNames.get(directory);
+            if (names != null) {
+                for (String fileName : names) {
+                    tree.addFile(id, fileName);
+                }
+            }
+        }
+        Path absolute = file.toAbsolutePath();
+        Path temporary = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporary, tree.encode());
+            Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Returns the indexed directory.
+     *
+     * @return The absolute path of the root.
+     */
+    public synchronized Path root() {
+        return directories.get(0).path;
+    }
+
+    /**
+     * Returns the number of files in the index.
+     *
+     * @return The number of files.
+     */
+    public synchronized int size() {
+        int size = 0;
+        for (Directory directory : liveDirectories()) {
+            size += directory.files != null ? directory.files.size() : directory.storedFiles;
+        }
+        return size;
+    }
+
+    /**
+     * Finds every file with one of the given names, like
+     * {@link FileSearchEnhanced#searchFiles(java.io.File, List, boolean)} on the root. The paths in
+     * each list are in no particular order.
+     *
+     * @param fileNames      The list of file names to search for.
+     * @param caseSensitive  Specifies if the search should be case-sensitive.
+     * @return A map where keys are file names and values are lists of full paths for each occurrence.
+     */
+    public synchronized Map<String, List<String>> searchFiles(List<String> fileNames, boolean caseSensitive) {
+        Map<String, List<String>> foundFiles = new HashMap<>();
+        for (String fileName : fileNames) {
+            List<String> paths = foundFiles.computeIfAbsent(fileName, name -> new ArrayList<>());
+            lookup(fileName, caseSensitive, paths);
+        }
+        return foundFiles;
+    }
+
+    /**
+     * Counts the files with each of the given names, like
+     * {@link FileSearchEnhanced#countFileOccurrences(java.io.File, List, boolean)} on the root.
+     *
+     * @param fileNames      The list of file names to search for.
+     * @param caseSensitive  Specifies if the search should be case-sensitive.
+     * @return A map where keys are file names and values are the count of occurrences.
+     */
+    public synchronized Map<String, Integer> countFileOccurrences(List<String> fileNames, boolean caseSensitive) {
+        Map<String, List<String>> found = searchFiles(fileNames, caseSensitive);
+        Map<String, Integer> fileCounts = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : found.entrySet()) {
+            fileCounts.put(entry.getKey(), entry.getValue().size());
+        }
+        return fileCounts;
+    }
+
+    /**
+     * Re-lists every directory whose modification time differs from the one recorded, and drops
+     * directories that no longer exist. A directory's modification time changes when a file is
+     * created, deleted or renamed in it.
+     *
+     * @return The number of directories re-listed or dropped.
+     */
+    public synchronized int refresh() {
+        int changed = 0;
+        // Subdirectories found while re-listing are current already, so only the known ones are checked
+        for (Directory directory : liveDirectories()) {
+            if (directory.removed) {
+                continue; // Dropped with a parent earlier in this refresh
+            }
+            BasicFileAttributes attributes = attributes(directory.path);
+            if (attributes == null || !attributes.isDirectory() || modified(attributes) != directory.modified) {
+                relist(directory, attributes);
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Starts a daemon thread that keeps the index current. Every directory is registered with a
+     * {@link WatchService}, and a directory is re-listed as soon as an event arrives for it. If
+     * events were lost, or a directory could not be registered (for example because the system's
+     * limit on watches was reached), the thread falls back to {@link #refresh()}, at most once per
+     * rescan interval.
+     *
+     * @param rescanInterval How often to refresh while falling back to rescans.
+     * @throws IOException if the watch service cannot be created.
+     * @throws IllegalArgumentException if the interval is null or not positive.
+     * @throws IllegalStateException if the index is already being watched.
+     */
+    public synchronized void startWatching(Duration rescanInterval) throws IOException {
+        if (rescanInterval == null || rescanInterval.isNegative() || rescanInterval.isZero()) {
+            throw new IllegalArgumentException("Rescan interval must be positive");
+        }
+        if (watchService != null) {
+            throw new IllegalStateException("Already watching");
+        }
+        watchService = root().getFileSystem().newWatchService();
+        for (Directory directory : liveDirectories()) {
+            watch(directory);
+        }
+        // Catch up with changes made before the directories were registered
+        refresh();
+        WatchService service = watchService;
+        long interval = rescanInterval.toMillis();
+        watcher = new Thread(() -> watchLoop(service, Math.max(1, interval)), "file-name-index-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Stops watching and, for an index opened from a file, unmaps the file. The index must not be
+     * used afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        Thread thread;
+        synchronized (this) {
+            thread = watcher;
+            watcher = null;
+            if (watchService != null) {
+                watchService.close();
+                watchService = null;
+                watchKeys.clear();
+            }
+        }
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (arena != null) {
+            arena.close();
+        }
+    }
+
+    private void watchLoop(WatchService service, long interval) {
+        try {
+            while (true) {
+                WatchKey key = service.poll(interval, TimeUnit.MILLISECONDS);
+                synchronized (this) {
+                    if (watchService != service) {
+                        return;
+                    }
+                    if (key == null) {
+                        if (unwatched) {
+                            refresh();
+                        }
+                        continue;
+                    }
+                    boolean overflow = false;
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        overflow |= event.kind() == StandardWatchEventKinds.OVERFLOW;
+                    }
+                    Directory directory = watchKeys.get(key);
+                    if (!key.reset()) {
+                        watchKeys.remove(key);
+                    }
+                    if (overflow) {
+                        refresh();
+                    } else if (directory != null && !directory.removed) {
+                        relist(directory, attributes(directory.path));
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    private void watch(Directory directory) {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            directory.key = directory.path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+            watchKeys.put(directory.key, directory);
+        } catch (IOException e) {
+            unwatched = true;
+        }
+    }
+
+    /**
+     * Lists a directory again and replaces its files in the overlay. Subdirectories that appeared
+     * are indexed in full; subdirectories that disappeared are dropped with everything below them.
+     *
+     * @param attributes The attributes of the directory, read before listing it so that a change
+     *                   made during the listing leaves a newer modification time behind.
+     */
+    private void relist(Directory directory, BasicFileAttributes attributes) {
+        if (attributes == null || !attributes.isDirectory()) {
+            remove(directory);
+            return;
+        }
+        Map<String, Directory> children = new LinkedHashMap<>();
+        for (Directory child : directory.children) {
+            children.put(child.path.getFileName().toString(), child);
+        }
+        List<String> files = new ArrayList<>();
+        List<Path> added = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory.path)) {
+            for (Path entry : stream) {
+                BasicFileAttributes entryAttributes = attributes(entry);
+                if (entryAttributes == null) {
+                    continue; // Deleted while listing
+                }
+                String name = entry.getFileName().toString();
+                if (!entryAttributes.isDirectory()) {
+                    files.add(name);
+                } else if (children.remove(name) == null) {
+                    added.add(entry);
+                }
+            }
+        } catch (IOException | DirectoryIteratorException e) {
+            // Keep what could be listed
+        }
+        for (Directory child : children.values()) {
+            remove(child);
+        }
+        setFiles(directory, files);
+        directory.modified = modified(attributes);
+        for (Path path : added) {
+            addTree(directory, path);
+        }
+    }
+
+    /**
+     * Indexes a new directory and everything below it into the overlay.
+     */
+    private void addTree(Directory parent, Path path) {
+        try {
+            Files.walkFileTree(path, new SimpleFileVisitor<>() {
+                private final List<Directory> stack = new ArrayList<>(List.of(parent));
+                private final List<List<String>> files = new ArrayList<>();
+
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) {
+                    Directory directory = new Directory(stack.get(stack.size() - 1), dir);
+                    directory.modified = modified(attributes);
+                    addedDirectories.add(directory);
+                    watch(directory);
+                    stack.add(directory);
+                    files.add(new ArrayList<>());
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    files.get(files.size() - 1).add(file.getFileName().toString());
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException e) {
+                    setFiles(stack.remove(stack.size() - 1), files.remove(files.size() - 1));
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            // Not reached: the visitor skips every entry that fails
+        }
+    }
+
+    /**
+     * Drops a directory and everything below it.
+     */
+    private void remove(Directory directory) {
+        List<Directory> pending = new ArrayList<>(List.of(directory));
+        while (!pending.isEmpty()) {
+            Directory next = pending.remove(pending.size() - 1);
+            setFiles(next, List.of());
+            next.removed = true;
+            addedDirectories.remove(next);
+            if (next.key != null) {
+                next.key.cancel();
+                watchKeys.remove(next.key);
+            }
+            pending.addAll(next.children);
+        }
+        if (directory.parent != null) {
+            directory.parent.children.remove(directory);
+        }
+    }
+
+    /**
+     * Returns the directories that still exist, parents before their subdirectories.
+     */
+    private List<Directory> liveDirectories() {
+        List<Directory> live = new ArrayList<>(directories.size() + addedDirectories.size());
+        for (Directory directory : directories) {
+            if (!directory.removed) {
+                live.add(directory);
+            }
+        }
+        live.addAll(addedDirectories);
+        return live;
+    }
+
+    /**
+     * Replaces the files of a directory in the overlay, hiding its stored files.
+     */
+    private void setFiles(Directory directory, List<String> files) {
+        if (directory.files != null) {
+            for (String name : directory.files) {
+                List<Entry> entries = overlay.get(FileNameMatcher.fold(name));
+                entries.removeIf(entry -> entry.directory == directory && entry.name.equals(name));
+                if (entries.isEmpty()) {
+                    overlay.remove(FileNameMatcher.fold(name));
+                }
+            }
+        }
+        directory.files = files;
+        for (String name : files) {
+            overlay.computeIfAbsent(FileNameMatcher.fold(name), key -> new ArrayList<>()).add(new Entry(directory, name));
+        }
+    }
+
+    private void lookup(String fileName, boolean caseSensitive, List<String> paths) {
+        String folded = FileNameMatcher.fold(fileName);
+        byte[] key = folded.getBytes(StandardCharsets.UTF_8);
+        for (int i = lowerBound(key); i < fileCount && compareFolded(i, key) == 0; i++) {
+            Directory directory = directories.get(directoryOf(i));
+            if (directory.removed || directory.files != null) {
+                continue;
+            }
+            String name = nameOf(i);
+            if (!caseSensitive || name.equals(fileName)) {
+                paths.add(directory.prefix + name);
+            }
+        }
+        for (Entry entry : overlay.getOrDefault(folded, List.of())) {
+            if (!caseSensitive || entry.name.equals(fileName)) {
+                paths.add(entry.directory.prefix + entry.name);
+            }
+        }
+    }
+
+    /**
+     * Finds the first stored file whose folded name is not less than the key.
+     */
+    private int lowerBound(byte[] key) {
+        int low = 0;
+        int high = fileCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareFolded(middle, key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compares the folded name of a stored file with a key in unsigned byte order, in place.
+     */
+    private int compareFolded(int file, byte[] key) {
+        long record = filesStart + (long) file * FILE_BYTES;
+        long offset = poolStart + data.get(INT, record + 12);
+        int length = data.get(INT, record + 16);
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int difference = Byte.toUnsignedInt(data.get(ValueLayout.JAVA_BYTE, offset + i)) - Byte.toUnsignedInt(key[i]);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - key.length;
+    }
+
+    private int directoryOf(int file) {
+        return data.get(INT, filesStart + (long) file * FILE_BYTES);
+    }
+
+    private String nameOf(int file) {
+        long record = filesStart + (long) file * FILE_BYTES;
+        return string(data.get(INT, record + 4), data.get(INT, record + 8));
+    }
+
+    private String string(int offset, int length) {
+        byte[] bytes = new byte[length];
+        MemorySegment.copy(data, ValueLayout.JAVA_BYTE, poolStart + offset, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the attributes of a path without following links; null if it does not exist.
+     */
+    private static BasicFileAttributes attributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static long modified(BasicFileAttributes attributes) {
+        return attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * A directory of the index.
+     */
+    private static final class Directory {
+
+        final Directory parent;
+        final Path path;
+        // The path with a trailing separator, to which file names are appended
+        final String prefix;
+        final List<Directory> children = new ArrayList<>();
+        long modified;
+        // Files in the stored block
+        int storedFiles;
+        // Files in the overlay, or null if the stored files are current
+        List<String> files;
+        boolean removed;
+        WatchKey key;
+
+        Directory(Directory parent, Path path) {
+            this.parent = parent;
+            this.path = path;
+            String separator = path.getFileSystem().getSeparator();
+            prefix = path.toString().endsWith(separator) ? path.toString() : path + separator;
+            if (parent != null) {
+                parent.children.add(this);
+            }
+        }
+    }
+
+    /**
+     * A file in the overlay.
+     */
+    private static final class Entry {
+
+        final Directory directory;
+        final String name;
+
+        Entry(Directory directory, String name) {
+            this.directory = directory;
+            this.name = name;
+        }
+    }
+
+    /**
+     * Directories and files collected for encoding into a stored block.
+     */
+    private static final class Tree {
+
+        private final List<Integer> parents = new ArrayList<>();
+        private final List<String> directoryNames = new ArrayList<>();
+        private final List<Long> modified = new ArrayList<>();
+        private final List<Integer> fileDirectories = new ArrayList<>();
+        private final List<String> fileNames = new ArrayList<>();
+
+        int addDirectory(int parent, String name, long modified) {
+            parents.add(parent);
+            directoryNames.add(name);
+            this.modified.add(modified);
+            return parents.size() - 1;
+        }
+
+        void addFile(int directory, String name) {
+            fileDirectories.add(directory);
+            fileNames.add(name);
+        }
+
+        /**
+         * Walks a directory tree, adding the root and every directory and file below it.
+         */
+        void walk(Path root) throws IOException {
+            List<Integer> stack = new ArrayList<>(List.of(-1));
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) {
+                    int top = stack.get(stack.size() - 1);
+                    String name = top < 0 ? dir.toString() : dir.getFileName().toString();
+                    stack.add(addDirectory(top, name, modified(attributes)));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    addFile(stack.get(stack.size() - 1), file.getFileName().toString());
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+                    if (file.equals(root)) {
+                        throw e;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException e) {
+                    stack.remove(stack.size() - 1);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+
+        byte[] encode() {
+            // Pool every distinct name once
+            Map<String, Integer> offsets = new HashMap<>();
+            ByteArrayPool pool = new ByteArrayPool();
+            int files = fileNames.size();
+            int[] nameOffsets = new int[files];
+            byte[][] foldedKeys = new byte[files][];
+            int[] foldedOffsets = new int[files];
+            for (int i = 0; i < files; i++) {
+                String name = fileNames.get(i);
+                String folded = FileNameMatcher.fold(name);
+                nameOffsets[i] = offsets.computeIfAbsent(name, pool::add);
+                foldedOffsets[i] = offsets.computeIfAbsent(folded, pool::add);
+                foldedKeys[i] = folded.getBytes(StandardCharsets.UTF_8);
+            }
+            int directories = parents.size();
+            int[] directoryOffsets = new int[directories];
+            for (int i = 0; i < directories; i++) {
+                directoryOffsets[i] = offsets.computeIfAbsent(directoryNames.get(i), pool::add);
+            }
+            Integer[] order = new Integer[files];
+            Arrays.setAll(order, i -> i);
+            Arrays.sort(order, (a, b) -> {
+                int compare = Arrays.compareUnsigned(foldedKeys[a], foldedKeys[b]);
+                return compare != 0 ? compare : Integer.compare(fileDirectories.get(a), fileDirectories.get(b));
+            });
+
+            long size = HEADER_BYTES + (long) directories * DIRECTORY_BYTES + (long) files * FILE_BYTES + pool.length;
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Index too large: " + size + " bytes");
+            }
+            ByteBuffer out = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+            out.putInt(MAGIC).putInt(VERSION).putInt(directories).putInt(files);
+            for (int i = 0; i < directories; i++) {
+                out.putInt(parents.get(i)).putInt(directoryOffsets[i]).putInt(utf8Length(directoryNames.get(i)))
+                        .putLong(modified.get(i));
+            }
+            for (int i : order) {
+                out.putInt(fileDirectories.get(i)).putInt(nameOffsets[i]).putInt(utf8Length(fileNames.get(i)))
+                        .putInt(foldedOffsets[i]).putInt(foldedKeys[i].length);
+            }
+            out.put(pool.bytes, 0, pool.length);
+            return out.array();
+        }
+
+        private static int utf8Length(String name) {
+            return name.getBytes(StandardCharsets.UTF_8).length;
+        }
+    }
+
+    /**
+     * A growable pool of UTF-8 strings.
+     */
+    private static final class ByteArrayPool {
+
+        byte[] bytes = new byte[1 << 12];
+        int length;
+
+        int add(String name) {
+            byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+            if (length + encoded.length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + encoded.length));
+            }
+            System.arraycopy(encoded, 0, bytes, length, encoded.length);
+            int offset = length;
+            length += encoded.length;
+            return offset;
+        }
+    }
+}
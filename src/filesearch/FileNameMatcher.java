@@ -0,0 +1,690 @@
+package filesearch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Matches file names against many names and patterns at once, at a cost that barely depends on how
+ * many there are.
+ * <p>
+ * Patterns use the syntax of {@link java.nio.file.FileSystem#getPathMatcher}: {@code glob:*.log}
+ * and {@code regex:report-\d+\.txt} match the whole name, and a pattern without a prefix is an exact
+ * name. Exact names and globs are each matched in one step per file:
+ * <ul>
+ * <li>exact names are keys of a single hash table, so a file costs one lookup however many names
+ * there are. In case-insensitive mode the keys and the file name are case-folded first, so the
+ * table never calls {@code equalsIgnoreCase};</li>
+ * <li>globs, including suffix sets such as {@code *.log} and {@code *.{gz,zip}}, are combined into
+ * one automaton that reads each name once. The automaton is a DFA built lazily from the combined
+ * NFA of all globs: a DFA state is created the first time a name reaches it, so only the states
+ * real names need are ever built. Names are read a code point at a time, so {@code ?} matches a
+ * character outside the Basic Multilingual Plane as a whole, as it does for a PathMatcher;</li>
+ * <li>regular expressions are not combined: each one still runs through its own {@link Pattern},
+ * one after another, so their cost grows with their number. An expression only runs on names that
+ * contain a literal it cannot match without, when it has one.</li>
+ * </ul>
+ * A matcher can be shared by threads.
+ */
+public final class FileNameMatcher {
+
+    private static final int[] NONE = new int[0];
+    // Regex escapes followed by an argument, such as \x41, \p{Lu} or \k<name>, and \Q quoting
+    private static final String ARGUMENT_ESCAPES = "xucpPNkQ";
+    // The lazy DFA starts over when it grows beyond this many states
+    private static final int MAX_DFA_STATES = 4096;
+
+    private final int patternCount;
+    private final boolean caseSensitive;
+    // Exact names: key to the indices of the patterns with that key
+    private final Map<String, int[]> exact = new HashMap<>();
+    // Globs: the combined NFA and the DFA built from it so far; null without globs
+    private final Nfa nfa;
+    private Map<Key, DfaState> dfaStates;
+    private volatile DfaState dfaStart;
+    // Regular expressions, with the literal each requires or null
+    private final int[] regexIndices;
+    private final Pattern[] regexes;
+    private final String[] requiredLiterals;
+
+    private FileNameMatcher(List<String> patterns, boolean caseSensitive, boolean exactOnly) {
+        if (patterns == null) {
+            throw new IllegalArgumentException("Pattern list is null");
+        }
+        this.patternCount = patterns.size();
+        this.caseSensitive = caseSensitive;
+        Nfa globs = new Nfa();
+        List<Integer> indices = new ArrayList<>();
+        List<Pattern> compiled = new ArrayList<>();
+        List<String> literals = new ArrayList<>();
+        for (int i = 0; i < patternCount; i++) {
+            String pattern = patterns.get(i);
+            if (pattern == null) {
+                throw new IllegalArgumentException("Pattern at index " + i + " is null");
+            }
+            if (!exactOnly && pattern.startsWith("glob:")) {
+                globs.addGlob(pattern.substring(5), i, caseSensitive);
+            } else if (!exactOnly && pattern.startsWith("regex:")) {
+                String regex = pattern.substring(6);
+                try {
+                    compiled.add(Pattern.compile(regex, caseSensitive ? 0 : Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE));
+                } catch (PatternSyntaxException e) {
+                    throw new IllegalArgumentException("Invalid regex: " + regex, e);
+                }
+                indices.add(i);
+                literals.add(requiredLiteral(regex, caseSensitive));
+            } else {
+                String name = exactOnly ? pattern : pattern.startsWith("name:") ? pattern.substring(5) : pattern;
+                exact.merge(key(name), new int[] {i}, FileNameMatcher::concat);
+            }
+        }
+        nfa = globs.isEmpty() ? null : globs;
+        if (nfa != null) {
+            resetDfa();
+        }
+        regexIndices = indices.stream().mapToInt(Integer::intValue).toArray();
+        regexes = compiled.toArray(new Pattern[0]);
+        requiredLiterals = literals.toArray(new String[0]);
+    }
+
+    /**
+     * Creates a matcher for exact file names.
+     *
+     * @param fileNames     The names; a name may appear more than once.
+     * @param caseSensitive Specifies if the names should be compared case-sensitively.
+     * @return The matcher; the index of a match is the index of the name in the list.
+     * @throws IllegalArgumentException if the list or a name is null.
+     */
+    public static FileNameMatcher exactNames(List<String> fileNames, boolean caseSensitive) {
+        return new FileNameMatcher(fileNames, caseSensitive, true);
+    }
+
+    /**
+     * Creates a matcher for patterns: {@code glob:} and {@code regex:} patterns, and exact names,
+     * optionally written as {@code name:}.
+     *
+     * @param patterns      The patterns; a pattern may appear more than once.
+     * @param caseSensitive Specifies if names should be matched case-sensitively.
+     * @return The matcher; the index of a match is the index of the pattern in the list.
+     * @throws IllegalArgumentException if the list or a pattern is null, or a pattern is invalid.
+     */
+    public static FileNameMatcher compile(List<String> patterns, boolean caseSensitive) {
+        return new FileNameMatcher(patterns, caseSensitive, false);
+    }
+
+    /**
+     * Returns the number of names and patterns.
+     *
+     * @return The pattern count.
+     */
+    public int size() {
+        return patternCount;
+    }
+
+    /**
+     * Finds every name or pattern that matches a file name.
+     *
+     * @param fileName The file name, without its directory.
+     * @return The indices of the matching patterns in ascending order; empty if none match.
+     */
+    public int[] match(String fileName) {
+        String key = key(fileName);
+        int[] exactMatches = exact.getOrDefault(key, NONE);
+        int[] globMatches = nfa == null ? NONE : runDfa(key);
+        if (regexes.length == 0) {
+            if (globMatches.length == 0) {
+                return exactMatches.length == 0 ? NONE : exactMatches.clone();
+            }
+            if (exactMatches.length == 0) {
+                return globMatches.clone();
+            }
+        }
+        int[] matches = concat(exactMatches.clone(), globMatches);
+        for (int i = 0; i < regexes.length; i++) {
+            String literal = requiredLiterals[i];
+            if ((literal == null || key.contains(literal)) && regexes[i].matcher(fileName).matches()) {
+                matches = concat(matches, new int[] {regexIndices[i]});
+            }
+        }
+        Arrays.sort(matches);
+        return matches;
+    }
+
+    /**
+     * Checks whether any name or pattern matches a file name.
+     *
+     * @param fileName The file name, without its directory.
+     * @return true if at least one pattern matches.
+     */
+    public boolean matchesAny(String fileName) {
+        String key = key(fileName);
+        if (exact.containsKey(key) || nfa != null && runDfa(key).length > 0) {
+            return true;
+        }
+        for (int i = 0; i < regexes.length; i++) {
+            String literal = requiredLiterals[i];
+            if ((literal == null || key.contains(literal)) && regexes[i].matcher(fileName).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Folds a name so that two names are equal ignoring case, in the sense of
+     * {@link String#equalsIgnoreCase}, exactly when their folded forms are equal.
+     */
+    static String fold(String name) {
+        StringBuilder folded = null;
+        for (int i = 0; i < name.length(); ) {
+            int c = name.codePointAt(i);
+            int f = Character.toLowerCase(Character.toUpperCase(c));
+            if (f != c && folded == null) {
+                folded = new StringBuilder(name.length()).append(name, 0, i);
+            }
+            if (folded != null) {
+                folded.appendCodePoint(f);
+            }
+            i += Character.charCount(c);
+        }
+        return folded == null ? name : folded.toString();
+    }
+
+    private String key(String name) {
+        return caseSensitive ? name : fold(name);
+    }
+
+    private static int[] concat(int[] first, int[] second) {
+        if (second.length == 0) {
+            return first;
+        }
+        int[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    // ---- Lazy DFA over the glob NFA ----
+
+    private int[] runDfa(String key) {
+        DfaState state = dfaStart;
+        // One step per code point, so that ? and [...] match a supplementary character whole
+        for (int i = 0; i < key.length() && state.nfaStates.length > 0; ) {
+            int c = key.codePointAt(i);
+            i += Character.charCount(c);
+            DfaState next = c < 128 ? state.ascii[c] : state.other.get(c);
+            state = next != null ? next : step(state, c);
+        }
+        return state.accepts;
+    }
+
+    /**
+     * Computes and caches a transition. The states and their caches are only ever added to, so
+     * threads that read a transition without the lock see either nothing, and come here, or a
+     * complete state.
+     */
+    private synchronized DfaState step(DfaState from, int c) {
+        DfaState cached = c < 128 ? from.ascii[c] : from.other.get(c);
+        if (cached != null) {
+            return cached;
+        }
+        DfaState next = state(nfa.move(from.nfaStates, c));
+        if (dfaStates.size() > MAX_DFA_STATES) {
+            // Too many distinct states: drop the cache and start over with a fresh one
+            resetDfa();
+            return next;
+        }
+        if (c < 128) {
+            from.ascii[c] = next;
+        } else {
+            from.other.put(c, next);
+        }
+        return next;
+    }
+
+    private DfaState state(int[] nfaStates) {
+        return dfaStates.computeIfAbsent(new Key(nfaStates), key -> new DfaState(nfaStates, nfa.accepts(nfaStates)));
+    }
+
+    private synchronized void resetDfa() {
+        dfaStates = new HashMap<>();
+        dfaStart = state(nfa.closure(new int[] {0}));
+    }
+
+    /**
+     * A state of the lazy DFA: the set of NFA states it stands for, the patterns it accepts and the
+     * transitions computed so far.
+     */
+    private static final class DfaState {
+
+        final int[] nfaStates;
+        final int[] accepts;
+        final DfaState[] ascii = new DfaState[128];
+        final Map<Integer, DfaState> other = new ConcurrentHashMap<>();
+
+        DfaState(int[] nfaStates, int[] accepts) {
+            this.nfaStates = nfaStates;
+            this.accepts = accepts;
+        }
+    }
+
+    /**
+     * A sorted set of NFA states, usable as a hash key.
+     */
+    private static final class Key {
+
+        private final int[] states;
+        private final int hash;
+
+        Key(int[] states) {
+            this.states = states;
+            this.hash = Arrays.hashCode(states);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && Arrays.equals(states, ((Key) other).states);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * The combined NFA of every glob. State 0 is the start, with an epsilon transition to the start
+     * of each glob.
+     */
+    private static final class Nfa {
+
+        private final List<CharTest[]> tests = new ArrayList<>();
+        private final List<int[]> targets = new ArrayList<>();
+        private final List<int[]> epsilons = new ArrayList<>();
+        private final List<Integer> accepting = new ArrayList<>();
+
+        Nfa() {
+            newState();
+        }
+
+        boolean isEmpty() {
+            return epsilons.get(0).length == 0;
+        }
+
+        private int newState() {
+            tests.add(new CharTest[0]);
+            targets.add(new int[0]);
+            epsilons.add(new int[0]);
+            accepting.add(-1);
+            return tests.size() - 1;
+        }
+
+        private void addTransition(int from, CharTest test, int to) {
+            CharTest[] oldTests = tests.get(from);
+            CharTest[] newTests = Arrays.copyOf(oldTests, oldTests.length + 1);
+            newTests[oldTests.length] = test;
+            tests.set(from, newTests);
+            targets.set(from, concat(targets.get(from), new int[] {to}));
+        }
+
+        private void addEpsilon(int from, int to) {
+            epsilons.set(from, concat(epsilons.get(from), new int[] {to}));
+        }
+
+        /**
+         * Adds a glob whose final state accepts the given pattern index.
+         */
+        void addGlob(String glob, int index, boolean caseSensitive) {
+            int start = newState();
+            addEpsilon(0, start);
+            GlobParser parser = new GlobParser(glob, caseSensitive);
+            int end = parser.sequence(start, false);
+            if (parser.position < glob.length()) {
+                throw new IllegalArgumentException("Invalid glob: unexpected '" + glob.charAt(parser.position)
+                        + "' in " + glob);
+            }
+            accepting.set(end, index);
+        }
+
+        /**
+         * Returns the states reachable from the given ones through epsilon transitions, sorted.
+         */
+        int[] closure(int[] states) {
+            boolean[] seen = new boolean[tests.size()];
+            int[] stack = new int[tests.size()];
+            int size = 0;
+            for (int state : states) {
+                if (!seen[state]) {
+                    seen[state] = true;
+                    stack[size++] = state;
+                }
+            }
+            int count = size;
+            while (size > 0) {
+                for (int next : epsilons.get(stack[--size])) {
+                    if (!seen[next]) {
+                        seen[next] = true;
+                        stack[size++] = next;
+                        count++;
+                    }
+                }
+            }
+            int[] closure = new int[count];
+            int i = 0;
+            for (int state = 0; state < seen.length; state++) {
+                if (seen[state]) {
+                    closure[i++] = state;
+                }
+            }
+            return closure;
+        }
+
+        /**
+         * Returns the closure of the states reached from the given ones on a code point.
+         */
+        int[] move(int[] states, int c) {
+            int[] reached = new int[8];
+            int size = 0;
+            for (int state : states) {
+                CharTest[] stateTests = tests.get(state);
+                int[] stateTargets = targets.get(state);
+                for (int t = 0; t < stateTests.length; t++) {
+                    if (stateTests[t].test(c)) {
+                        if (size == reached.length) {
+                            reached = Arrays.copyOf(reached, size * 2);
+                        }
+                        reached[size++] = stateTargets[t];
+                    }
+                }
+            }
+            return closure(Arrays.copyOf(reached, size));
+        }
+
+        /**
+         * Returns the distinct pattern indices accepted by any of the states, sorted.
+         */
+        int[] accepts(int[] states) {
+            return Arrays.stream(states).map(accepting::get).filter(index -> index >= 0).distinct().sorted().toArray();
+        }
+
+        /**
+         * Turns glob syntax into NFA states: {@code *} matches any run of characters, {@code ?}
+         * one character, {@code [a-z]} and {@code [!a-z]} one character of a set, {@code {a,b}}
+         * one of several alternatives and a backslash escapes the next character.
+         */
+        private final class GlobParser {
+
+            final String glob;
+            final boolean caseSensitive;
+            int position;
+
+            GlobParser(String glob, boolean caseSensitive) {
+                this.glob = glob;
+                this.caseSensitive = caseSensitive;
+            }
+
+            /**
+             * Parses elements until the end, or until a ',' or '}' inside a group.
+             *
+             * @return The state reached after the last element.
+             */
+            int sequence(int current, boolean inGroup) {
+                while (position < glob.length()) {
+                    int c = glob.codePointAt(position);
+                    if (inGroup && (c == ',' || c == '}')) {
+                        break;
+                    }
+                    position += Character.charCount(c);
+                    switch (c) {
+                        case '*': {
+                            int loop = newState();
+                            addEpsilon(current, loop);
+                            addTransition(loop, CharTest.ANY, loop);
+                            current = loop;
+                            break;
+                        }
+                        case '?':
+                            current = literal(current, CharTest.ANY);
+                            break;
+                        case '[':
+                            current = literal(current, characterClass());
+                            break;
+                        case '{': {
+                            if (inGroup) {
+                                throw new IllegalArgumentException("Invalid glob: nested groups in " + glob);
+                            }
+                            int end = newState();
+                            while (true) {
+                                int alternative = newState();
+                                addEpsilon(current, alternative);
+                                addEpsilon(sequence(alternative, true), end);
+                                if (position >= glob.length()) {
+                                    throw new IllegalArgumentException("Invalid glob: unclosed group in " + glob);
+                                }
+                                if (glob.charAt(position++) == '}') {
+                                    break;
+                                }
+                            }
+                            current = end;
+                            break;
+                        }
+                        case '\\':
+                            if (position >= glob.length()) {
+                                throw new IllegalArgumentException("Invalid glob: trailing escape in " + glob);
+                            }
+                            current = literal(current, CharTest.of(next(), caseSensitive));
+                            break;
+                        default:
+                            current = literal(current, CharTest.of(c, caseSensitive));
+                    }
+                }
+                return current;
+            }
+
+            /**
+             * Consumes and returns the next code point of the glob.
+             */
+            private int next() {
+                int c = glob.codePointAt(position);
+                position += Character.charCount(c);
+                return c;
+            }
+
+            private int literal(int current, CharTest test) {
+                int next = newState();
+                addTransition(current, test, next);
+                return next;
+            }
+
+            private CharTest characterClass() {
+                boolean negated = position < glob.length() && glob.charAt(position) == '!';
+                if (negated) {
+                    position++;
+                }
+                List<int[]> ranges = new ArrayList<>();
+                boolean first = true;
+                while (true) {
+                    if (position >= glob.length()) {
+                        throw new IllegalArgumentException("Invalid glob: unclosed character class in " + glob);
+                    }
+                    int low = next();
+                    if (low == ']' && !first) {
+                        break;
+                    }
+                    if (low == '\\' && position < glob.length()) {
+                        low = next();
+                    }
+                    int high = low;
+                    if (position + 1 < glob.length() && glob.charAt(position) == '-' && glob.charAt(position + 1) != ']') {
+                        position++;
+                        high = next();
+                        if (high < low) {
+                            throw new IllegalArgumentException("Invalid glob: empty range in " + glob);
+                        }
+                    }
+                    ranges.add(new int[] {low, high});
+                    first = false;
+                }
+                return CharTest.ofRanges(ranges.toArray(new int[0][]), negated, caseSensitive);
+            }
+        }
+    }
+
+    /**
+     * A test of one code point of a (case-folded, in case-insensitive mode) file name.
+     */
+    @FunctionalInterface
+    private interface CharTest {
+
+        CharTest ANY = c -> true;
+
+        boolean test(int c);
+
+        static CharTest of(int literal, boolean caseSensitive) {
+            int expected = caseSensitive ? literal : foldChar(literal);
+            return c -> c == expected;
+        }
+
+        static CharTest ofRanges(int[][] ranges, boolean negated, boolean caseSensitive) {
+            return c -> {
+                boolean inside = contains(ranges, c)
+                        || !caseSensitive && (contains(ranges, Character.toUpperCase(c)) || contains(ranges, Character.toLowerCase(c)));
+                return inside != negated;
+            };
+        }
+
+        private static boolean contains(int[][] ranges, int c) {
+            for (int[] range : ranges) {
+                if (c >= range[0] && c <= range[1]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static int foldChar(int c) {
+            return Character.toLowerCase(Character.toUpperCase(c));
+        }
+    }
+
+    // ---- Regex prefilter ----
+
+    /**
+     * Finds the longest run of literal characters that every match of a regular expression must
+     * contain, or null if there is none that can be found safely. Only characters outside groups,
+     * classes and alternations count, and a character followed by a quantifier that allows zero
+     * occurrences ends the run without being part of it. The bound of a counted quantifier, such
+     * as {@code {10}} or {@code {2,3}}, ends the run as well. Escapes that take an argument, such as
+     * {@code \x41}, {@code \p{Lu}} or a back-reference, make the whole expression unsafe to scan,
+     * since their argument would otherwise be read as literal text.
+     */
+    static String requiredLiteral(String regex, boolean caseSensitive) {
+        if (regex.contains("(?")) {
+            // Inline flags may change how the literals match
+            return null;
+        }
+        String best = null;
+        StringBuilder run = new StringBuilder();
+        int depth = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            char literal = 0;
+            boolean isLiteral = false;
+            if (c == '\\') {
+                if (i + 1 >= regex.length()) {
+                    break;
+                }
+                char escaped = regex.charAt(++i);
+                if (ARGUMENT_ESCAPES.indexOf(escaped) >= 0 || escaped >= '0' && escaped <= '9') {
+                    // Code points, properties, control characters, back-references and quoting
+                    return null;
+                }
+                if (Character.isLetter(escaped)) {
+                    // Predefined classes and boundaries are not plain literals
+                    best = longer(best, run);
+                    run.setLength(0);
+                    continue;
+                }
+                literal = escaped;
+                isLiteral = depth == 0;
+            } else if (c == '|' && depth == 0) {
+                // An alternation makes nothing required at the top level
+                return null;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth = Math.max(0, depth - 1);
+            } else if (c == '[') {
+                i = skipClass(regex, i);
+            } else if (c == '{') {
+                // The bound of a counted quantifier, such as {10} or {2,3}, is not literal text
+                int close = regex.indexOf('}', i);
+                i = close < 0 ? regex.length() : close;
+            } else if (".^$?*+}]".indexOf(c) < 0) {
+                literal = c;
+                isLiteral = depth == 0;
+            }
+            if (isLiteral) {
+                char next = i + 1 < regex.length() ? regex.charAt(i + 1) : 0;
+                if (next == '?' || next == '*' || next == '{') {
+                    // May occur zero times
+                    best = longer(best, run);
+                    run.setLength(0);
+                    continue;
+                }
+                if (!caseSensitive && literal >= 128) {
+                    // Unicode case rules of the regex engine and of folding differ for a few letters
+                    best = longer(best, run);
+                    run.setLength(0);
+                    continue;
+                }
+                run.append(caseSensitive ? literal : Character.toLowerCase(Character.toUpperCase(literal)));
+                if (next == '+') {
+                    // Occurs at least once, but the run cannot continue past the repetition
+                    best = longer(best, run);
+                    run.setLength(0);
+                }
+            } else {
+                best = longer(best, run);
+                run.setLength(0);
+            }
+        }
+        return longerOrNull(longer(best, run));
+    }
+
+    private static int skipClass(String regex, int open) {
+        int i = open + 1;
+        if (i < regex.length() && regex.charAt(i) == '^') {
+            i++;
+        }
+        if (i < regex.length() && regex.charAt(i) == ']') {
+            i++;
+        }
+        int nested = 0;
+        for (; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                nested++;
+            } else if (c == ']') {
+                if (nested-- == 0) {
+                    return i;
+                }
+            }
+        }
+        return regex.length();
+    }
+
+    private static String longer(String best, StringBuilder run) {
+        return run.length() > (best == null ? 0 : best.length()) ? run.toString() : best;
+    }
+
+    private static String longerOrNull(String best) {
+        return best == null || best.isEmpty() ? null : best;
+    }
+}
@@ -0,0 +1,127 @@
+package filesearch;
+
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Publishes the files of a walk to subscribers, never more than they have requested.
+ * <p>
+ * Every subscription starts a walk of its own, which runs on the executor only while the subscriber
+ * has outstanding demand. The walk pauses when the demand is used up and resumes on the next
+ * {@link Flow.Subscription#request}. Cancelling stops the walk and closes its directories. Signals to
+ * one subscriber never overlap.
+ */
+final class FilePublisher implements Flow.Publisher<Path> {
+
+    private final Supplier<FileWalker> walks;
+    private final Executor executor;
+
+    FilePublisher(Supplier<FileWalker> walks, Executor executor) {
+        this.walks = walks;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Path> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        WalkSubscription subscription = new WalkSubscription(subscriber, walks.get(), executor);
+        subscriber.onSubscribe(subscription);
+    }
+
+    /**
+     * One subscriber's walk. Requests and cancellation only record what to do and schedule a drain;
+     * drains are serialized by the work-in-progress counter, so the walker is used by one thread at
+     * a time.
+     */
+    private static final class WalkSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super Path> subscriber;
+        private final FileWalker walker;
+        private final Executor executor;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile IllegalArgumentException invalidRequest;
+        // Set once a terminal signal was sent; only read and written by the draining thread
+        private boolean terminated;
+
+        WalkSubscription(Flow.Subscriber<? super Path> subscriber, FileWalker walker,
+                         Executor executor) {
+            this.subscriber = subscriber;
+            this.walker = walker;
+            this.executor = executor;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Request must be positive: " + n);
+            } else {
+                demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (pending.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                if (terminated) {
+                    return;
+                }
+                if (cancelled) {
+                    terminate();
+                    return;
+                }
+                if (invalidRequest != null) {
+                    terminate();
+                    subscriber.onError(invalidRequest);
+                    return;
+                }
+                long requested = demand.get();
+                long emitted = 0;
+                while (emitted != requested && !cancelled) {
+                    boolean advanced;
+                    try {
+                        advanced = walker.tryAdvance(subscriber::onNext);
+                    } catch (RuntimeException e) {
+                        terminate();
+                        subscriber.onError(e);
+                        return;
+                    }
+                    if (!advanced) {
+                        terminate();
+                        subscriber.onComplete();
+                        return;
+                    }
+                    emitted++;
+                }
+                if (emitted != 0 && requested != Long.MAX_VALUE) {
+                    demand.addAndGet(-emitted);
+                }
+                missed = pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void terminate() {
+            terminated = true;
+            walker.close();
+        }
+    }
+}
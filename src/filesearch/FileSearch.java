@@ -1,32 +1,44 @@
 package filesearch;
 import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public class FileSearch {
 
     /**
-     * Recursively searches for the specified file within the directory and its subdirectories.
+     * Recursively searches for the specified file within the directory and its subdirectories,
+     * and prints where it was found, or that it was not found, once the search is over.
      *
      * @param directory The starting directory to search within.
      * @param fileName  The name of the file to search for.
      * @return true if the file is found, false otherwise.
      */
     public static boolean searchFile(File directory, String fileName) {
-        File[] files = directory.listFiles();
-
-        if (files == null) return false;
+        Optional<Path> found = findFile(directory, fileName);
+        System.out.println(found.isPresent() ? "File found at: " + found.get() : "File not found!");
+        return found.isPresent();
+    }
 
-        for (File file : files) {
-            if (file.isDirectory()) {
-                // Recursive call to search within subdirectories
-                if (searchFile(file, fileName)) {
-                    return true;
-                }
-            } else if (file.getName().equals(fileName)) {
-                System.out.println("File found at: " + file.getAbsolutePath());
-                return true;
-            }
+    /**
+     * Recursively searches for the specified file within the directory and its subdirectories,
+     * without printing anything. The search stops at the first match.
+     * <p>
+     * Subdirectories are searched depth first in directory order. Symbolic links are followed,
+     * links that lead back to an ancestor are skipped, and directories that cannot be read are
+     * skipped.
+     *
+     * @param directory The starting directory to search within.
+     * @param fileName  The name of the file to search for.
+     * @return The absolute path of the first file found, or empty if there is none.
+     */
+    public static Optional<Path> findFile(File directory, String fileName) {
+        if (fileName == null) {
+            return Optional.empty();
+        }
+        try (Stream<Path> files = FileSearchEnhanced.streamFiles(directory, List.of(fileName), true)) {
+            return files.findFirst();
         }
-        System.out.println("File not found!");
-        return false;
     }
 }
@@ -2,10 +2,27 @@
 package filesearch;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class FileSearchEnhanced {
 
@@ -22,38 +39,84 @@ public class FileSearchEnhanced {
         for (String fileName : fileNames) {
             foundFiles.put(fileName, new ArrayList<>());
         }
-        searchFilesRecursive(directory, fileNames, caseSensitive, foundFiles);
+        searchFilesRecursive(directory, new Targets(fileNames, caseSensitive, false), foundFiles);
         return foundFiles;
     }
 
     /**
-     * Recursively searches for the specified files in the directory and subdirectories.
+     * Searches for multiple files within a given directory and its subdirectories, listing
+     * subdirectories concurrently on a work-stealing pool. The result is the same as that of
+     * {@link #searchFiles(File, List, boolean)}, including the order of the paths in each list.
      *
-     * @param directory      The current directory to search in.
+     * @param directory      The root directory to search in.
      * @param fileNames      The list of file names to search for.
      * @param caseSensitive  Specifies if the search should be case-sensitive.
-     * @param foundFiles     The map that stores the found file paths.
+     * @param parallelism    The number of threads to use.
+     * @return A map where keys are file names and values are lists of full paths for each occurrence.
+     * @throws IllegalArgumentException if the parallelism is not positive.
      */
-    private static void searchFilesRecursive(File directory, List<String> fileNames, boolean caseSensitive,
-                                             Map<String, List<String>> foundFiles) {
-        if (directory == null || !directory.isDirectory()) {
-            return;
+    public static Map<String, List<String>> searchFiles(File directory, List<String> fileNames, boolean caseSensitive,
+                                                        int parallelism) {
+        checkParallelism(parallelism);
+        Map<String, List<String>> foundFiles = new HashMap<>();
+        for (String fileName : fileNames) {
+            foundFiles.put(fileName, new ArrayList<>());
         }
+        Path root = directoryPath(directory);
+        if (root == null) {
+            return foundFiles;
+        }
+        Targets targets = new Targets(fileNames, caseSensitive, false);
+        List<List<String>> found = invoke(parallelism, new SearchTask(root, FileWalker.fileKey(root), null, targets));
+        for (int i = 0; i < targets.names.length; i++) {
+            foundFiles.get(targets.names[i]).addAll(found.get(i));
+        }
+        return foundFiles;
+    }
 
-        File[] files = directory.listFiles();
-
+    /**
+     * Searches for files matching any of several patterns within a given directory and its
+     * subdirectories. Patterns are written as for {@link FileNameMatcher#compile}: {@code glob:*.log},
+     * {@code regex:report-\d+\.txt}, or an exact name. All patterns are matched together, in one
+     * pass over each file name.
+     *
+     * @param directory      The root directory to search in.
+     * @param patterns       The list of patterns to search for.
+     * @param caseSensitive  Specifies if the search should be case-sensitive.
+     * @return A map where keys are patterns and values are lists of full paths for each match.
+     * @throws IllegalArgumentException if a pattern is invalid.
+     */
+    public static Map<String, List<String>> searchPatterns(File directory, List<String> patterns, boolean caseSensitive) {
+        Targets targets = new Targets(patterns, caseSensitive, true);
+        Map<String, List<String>> foundFiles = new HashMap<>();
+        for (String pattern : patterns) {
+            foundFiles.put(pattern, new ArrayList<>());
+        }
+        searchFilesRecursive(directory, targets, foundFiles);
+        return foundFiles;
+    }
 
-        for (File file : files) {
-            if (file.isDirectory()) {
-                searchFilesRecursive(file, fileNames, caseSensitive, foundFiles);
-            } else {
-                for (String fileName : fileNames) {
-                    if (matches(file.getName(), fileName, caseSensitive)) {
-                        foundFiles.get(fileName).add(file.getAbsolutePath());
-                    }
+    /**
+     * Searches for the specified files in the directory and subdirectories.
+     *
+     * @param directory      The root directory to search in.
+     * @param targets        The names or patterns to search for.
+     * @param foundFiles     The map that stores the found file paths.
+     */
+    private static void searchFilesRecursive(File directory, Targets targets, Map<String, List<String>> foundFiles) {
+        walkFiles(directory, file -> {
+            int[] matched = targets.matcher.match(file.getFileName().toString());
+            if (matched.length == 0) {
+                return;
+            }
+            String path = file.toString();
+            for (int j : matched) {
+                List<String> paths = foundFiles.get(targets.names[j]);
+                for (int k = 0; k < targets.repeats[j]; k++) {
+                    paths.add(path);
                 }
             }
-        }
+        });
     }
 
     /**
@@ -69,51 +132,349 @@ public class FileSearchEnhanced {
         for (String fileName : fileNames) {
             fileCounts.put(fileName, 0);
         }
-        countOccurrencesRecursive(directory, fileNames, caseSensitive, fileCounts);
+        countOccurrencesRecursive(directory, new Targets(fileNames, caseSensitive, false), fileCounts);
         return fileCounts;
     }
 
     /**
-     * Recursively counts occurrences of each specified file within the directory and subdirectories.
+     * Counts the occurrences of each specified file within the directory and subdirectories,
+     * listing subdirectories concurrently on a work-stealing pool.
      *
-     * @param directory      The current directory to search in.
+     * @param directory      The root directory to search in.
      * @param fileNames      The list of file names to search for.
      * @param caseSensitive  Specifies if the search should be case-sensitive.
+     * @param parallelism    The number of threads to use.
+     * @return A map where keys are file names and values are the count of occurrences.
+     * @throws IllegalArgumentException if the parallelism is not positive.
+     */
+    public static Map<String, Integer> countFileOccurrences(File directory, List<String> fileNames, boolean caseSensitive,
+                                                            int parallelism) {
+        checkParallelism(parallelism);
+        Map<String, Integer> fileCounts = new HashMap<>();
+        for (String fileName : fileNames) {
+            fileCounts.put(fileName, 0);
+        }
+        Path root = directoryPath(directory);
+        if (root == null) {
+            return fileCounts;
+        }
+        Targets targets = new Targets(fileNames, caseSensitive, false);
+        int[] counts = invoke(parallelism, new CountTask(root, FileWalker.fileKey(root), null, targets));
+        for (int i = 0; i < targets.names.length; i++) {
+            fileCounts.put(targets.names[i], counts[i]);
+        }
+        return fileCounts;
+    }
+
+    /**
+     * Counts the files matching each of several patterns within the directory and subdirectories.
+     *
+     * @param directory      The root directory to search in.
+     * @param patterns       The list of patterns to search for, as for {@link #searchPatterns}.
+     * @param caseSensitive  Specifies if the search should be case-sensitive.
+     * @return A map where keys are patterns and values are the count of matches.
+     * @throws IllegalArgumentException if a pattern is invalid.
+     */
+    public static Map<String, Integer> countPatternOccurrences(File directory, List<String> patterns,
+                                                               boolean caseSensitive) {
+        Targets targets = new Targets(patterns, caseSensitive, true);
+        Map<String, Integer> fileCounts = new HashMap<>();
+        for (String pattern : patterns) {
+            fileCounts.put(pattern, 0);
+        }
+        countOccurrencesRecursive(directory, targets, fileCounts);
+        return fileCounts;
+    }
+
+    /**
+     * Counts occurrences of each specified file within the directory and subdirectories.
+     *
+     * @param directory      The root directory to search in.
+     * @param targets        The names or patterns to search for.
      * @param fileCounts     The map that stores the count of occurrences.
      */
-    private static void countOccurrencesRecursive(File directory, List<String> fileNames, boolean caseSensitive,
-                                                  Map<String, Integer> fileCounts) {
-        if (directory == null || !directory.isDirectory()) {
-            return;
+    private static void countOccurrencesRecursive(File directory, Targets targets, Map<String, Integer> fileCounts) {
+        int[] counts = new int[targets.names.length];
+        walkFiles(directory, file -> {
+            for (int j : targets.matcher.match(file.getFileName().toString())) {
+                counts[j] += targets.repeats[j];
+            }
+        });
+        for (int j = 0; j < counts.length; j++) {
+            fileCounts.put(targets.names[j], counts[j]);
         }
+    }
 
-        File[] files = directory.listFiles();
-        if (files == null) {
-            return;
+    /**
+     * Returns the absolute path of a directory, or null if it is not a readable directory.
+     */
+    static Path directoryPath(File directory) {
+        if (directory == null) {
+            return null;
         }
+        Path path = directory.toPath().toAbsolutePath();
+        return Files.isDirectory(path) ? path : null;
+    }
+
+    /**
+     * Calls the action for every file below a directory, depth first in directory order, by
+     * driving a {@link FileWalker} to the end, so the streaming methods see exactly the same files.
+     * Symbolic links are followed, links that lead back to an ancestor are skipped, and a broken
+     * link counts as a file. Directories that cannot be read are skipped.
+     *
+     * @param directory The root directory; nothing is visited if it is not a directory.
+     * @param action    Called with the absolute path of every file.
+     */
+    private static void walkFiles(File directory, Consumer<Path> action) {
+        try (FileWalker walker = new FileWalker(directoryPath(directory), name -> true, 0, false)) {
+            walker.forEachRemaining(action);
+        }
+    }
+
+    /**
+     * Returns a lazy stream of the files with one of the given names. Files are produced while the
+     * tree is walked, in the order of {@link #searchFiles(File, List, boolean)}, and each file appears
+     * once even if it matches several names. The walk goes no further than the stream is consumed,
+     * so {@code findFirst()} or {@code limit(n)} stop it early. Close the stream, for example with
+     * try-with-resources, to release the directories still open if it is not consumed to the end.
+     *
+     * @param directory      The root directory to search in.
+     * @param fileNames      The list of file names to search for.
+     * @param caseSensitive  Specifies if the search should be case-sensitive.
+     * @return The matching files, with absolute paths; empty if the directory is invalid.
+     */
+    public static Stream<Path> streamFiles(File directory, List<String> fileNames, boolean caseSensitive) {
+        Predicate<String> filter = FileNameMatcher.exactNames(fileNames, caseSensitive)::matchesAny;
+        FileWalker walker = new FileWalker(directoryPath(directory), filter, 0, false);
+        return StreamSupport.stream(walker, false).onClose(walker::close);
+    }
 
-        for (File file : files) {
-            if (file.isDirectory()) {
-                countOccurrencesRecursive(file, fileNames, caseSensitive, fileCounts);
-            } else {
-                for (String fileName : fileNames) {
-                    if (matches(file.getName(), fileName, caseSensitive)) {
-                        fileCounts.put(fileName, fileCounts.get(fileName) + 1);
+    /**
+     * Returns a lazy stream of the files with one of the given names that ends when the timeout
+     * has passed, even if the tree has not been walked completely.
+     *
+     * @param directory      The root directory to search in.
+     * @param fileNames      The list of file names to search for.
+     * @param caseSensitive  Specifies if the search should be case-sensitive.
+     * @param timeout        How long the walk may run, counted from this call.
+     * @return The matching files found in time, with absolute paths.
+     * @throws IllegalArgumentException if the timeout is null or negative.
+     * @see #streamFiles(File, List, boolean)
+     */
+    public static Stream<Path> streamFiles(File directory, List<String> fileNames, boolean caseSensitive,
+                                           Duration timeout) {
+        if (timeout == null || timeout.isNegative()) {
+            throw new IllegalArgumentException("Timeout must not be negative");
+        }
+        long deadline = System.nanoTime() + timeout.toNanos();
+        Predicate<String> filter = FileNameMatcher.exactNames(fileNames, caseSensitive)::matchesAny;
+        FileWalker walker = new FileWalker(directoryPath(directory), filter, deadline, true);
+        return StreamSupport.stream(walker, false).onClose(walker::close);
+    }
+
+    /**
+     * Returns a publisher of the files with one of the given names. Each subscriber gets a walk of
+     * its own, run on the executor. The walk only advances while the subscriber has requested more
+     * files, and stops as soon as the subscriber cancels.
+     *
+     * @param directory      The root directory to search in.
+     * @param fileNames      The list of file names to search for.
+     * @param caseSensitive  Specifies if the search should be case-sensitive.
+     * @param executor       Runs the walks.
+     * @return A publisher of the matching files, with absolute paths, in walk order.
+     * @throws IllegalArgumentException if the executor is null.
+     */
+    public static Flow.Publisher<Path> publishFiles(File directory, List<String> fileNames, boolean caseSensitive,
+                                                    Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor is null");
+        }
+        Predicate<String> filter = FileNameMatcher.exactNames(fileNames, caseSensitive)::matchesAny;
+        return new FilePublisher(() -> new FileWalker(directoryPath(directory), filter, 0, false), executor);
+    }
+
+    private static void checkParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+    }
+
+    private static <T> T invoke(int parallelism, RecursiveTask<T> task) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.invoke(task);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * The names or patterns searched for, without duplicates, and one matcher for all of them. A
+     * name listed several times is matched once and its paths or counts are repeated.
+     */
+    private static final class Targets {
+
+        final String[] names;
+        final int[] repeats;
+        final FileNameMatcher matcher;
+
+        Targets(List<String> fileNames, boolean caseSensitive, boolean patterns) {
+            Map<String, Integer> distinct = new LinkedHashMap<>();
+            for (String fileName : fileNames) {
+                distinct.merge(fileName, 1, Integer::sum);
+            }
+            names = distinct.keySet().toArray(new String[0]);
+            repeats = new int[names.length];
+            int i = 0;
+            for (int repeat : distinct.values()) {
+                repeats[i++] = repeat;
+            }
+            List<String> distinctNames = Arrays.asList(names);
+            matcher = patterns ? FileNameMatcher.compile(distinctNames, caseSensitive)
+                    : FileNameMatcher.exactNames(distinctNames, caseSensitive);
+        }
+    }
+
+    /**
+     * One directory of the parallel walk, which sees the tree exactly as {@link #walkFiles} does.
+     */
+    private abstract static class DirectoryTask<T> extends RecursiveTask<T> {
+
+        private static final long serialVersionUID = 1L;
+
+        // Tasks are never serialized, so the walk state is transient
+        final transient Path directory;
+        final transient Targets targets;
+        // The task of the parent directory, for detecting symbolic link cycles
+        private final DirectoryTask<?> parent;
+        private final transient Object fileKey;
+
+        DirectoryTask(Path directory, Object fileKey, DirectoryTask<?> parent, Targets targets) {
+            this.directory = directory;
+            this.fileKey = fileKey;
+            this.parent = parent;
+            this.targets = targets;
+        }
+
+        /**
+         * Lists the directory in directory order, forking a task for every subdirectory. Files are
+         * added to the list with a null task.
+         */
+        void list(List<Path> entries, List<DirectoryTask<T>> subdirectories) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (Path entry : stream) {
+                    BasicFileAttributes attributes = FileWalker.attributes(entry);
+                    DirectoryTask<T> task = null;
+                    if (attributes != null && attributes.isDirectory()) {
+                        if (isAncestor(attributes.fileKey())) {
+                            continue;
+                        }
+                        task = subdirectory(entry, attributes.fileKey());
+                        task.fork();
                     }
+                    entries.add(entry);
+                    subdirectories.add(task);
                 }
+            } catch (IOException | DirectoryIteratorException e) {
+                // An unreadable directory contributes what was listed before the failure
             }
         }
+
+        abstract DirectoryTask<T> subdirectory(Path entry, Object key);
+
+        private boolean isAncestor(Object key) {
+            for (DirectoryTask<?> task = this; task != null && key != null; task = task.parent) {
+                if (key.equals(task.fileKey)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
     }
 
     /**
-     * Checks if a file name matches a target name, with optional case sensitivity.
-     *
-     * @param fileName       The name of the file found in the directory.
-     * @param targetName     The target file name to match.
-     * @param caseSensitive  Specifies if the comparison should be case-sensitive.
-     * @return True if the file names match, otherwise false.
+     * Searches one directory. Subdirectories are forked as tasks of their own; their paths are
+     * appended when they are joined, in listing order, so the lists come out in the same order as
+     * a sequential walk.
+     */
+    private static final class SearchTask extends DirectoryTask<List<List<String>>> {
+
+        private static final long serialVersionUID = 1L;
+
+        SearchTask(Path directory, Object fileKey, DirectoryTask<?> parent, Targets targets) {
+            super(directory, fileKey, parent, targets);
+        }
+
+        @Override
+        DirectoryTask<List<List<String>>> subdirectory(Path entry, Object key) {
+            return new SearchTask(entry, key, this, targets);
+        }
+
+        @Override
+        protected List<List<String>> compute() {
+            List<List<String>> found = new ArrayList<>(targets.names.length);
+            for (int i = 0; i < targets.names.length; i++) {
+                found.add(new ArrayList<>());
+            }
+            List<Path> entries = new ArrayList<>();
+            List<DirectoryTask<List<List<String>>>> subdirectories = new ArrayList<>();
+            list(entries, subdirectories);
+            for (int i = 0; i < entries.size(); i++) {
+                if (subdirectories.get(i) != null) {
+                    List<List<String>> nested = subdirectories.get(i).join();
+                    for (int j = 0; j < found.size(); j++) {
+                        found.get(j).addAll(nested.get(j));
+                    }
+                    continue;
+                }
+                int[] matched = targets.matcher.match(entries.get(i).getFileName().toString());
+                for (int j : matched) {
+                    String path = entries.get(i).toString();
+                    for (int k = 0; k < targets.repeats[j]; k++) {
+                        found.get(j).add(path);
+                    }
+                }
+            }
+            return found;
+        }
+    }
+
+    /**
+     * Counts the matches in one directory, forking a task for every subdirectory.
      */
-    private static boolean matches(String fileName, String targetName, boolean caseSensitive) {
-        return caseSensitive ? fileName.equals(targetName) : fileName.equalsIgnoreCase(targetName);
+    private static final class CountTask extends DirectoryTask<int[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        CountTask(Path directory, Object fileKey, DirectoryTask<?> parent, Targets targets) {
+            super(directory, fileKey, parent, targets);
+        }
+
+        @Override
+        DirectoryTask<int[]> subdirectory(Path entry, Object key) {
+            return new CountTask(entry, key, this, targets);
+        }
+
+        @Override
+        protected int[] compute() {
+            int[] counts = new int[targets.names.length];
+            List<Path> entries = new ArrayList<>();
+            List<DirectoryTask<int[]>> subdirectories = new ArrayList<>();
+            list(entries, subdirectories);
+            for (int i = 0; i < entries.size(); i++) {
+                if (subdirectories.get(i) != null) {
+                    int[] nested = subdirectories.get(i).join();
+                    for (int j = 0; j < counts.length; j++) {
+                        counts[j] += nested[j];
+                    }
+                    continue;
+                }
+                for (int j : targets.matcher.match(entries.get(i).getFileName().toString())) {
+                    counts[j] += targets.repeats[j];
+                }
+            }
+            return counts;
+        }
     }
 }
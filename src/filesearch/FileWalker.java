@@ -0,0 +1,179 @@
+package filesearch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Walks a directory tree one file at a time, producing the files whose name is accepted.
+ * <p>
+ * This is the walk behind the sequential {@link FileSearchEnhanced#searchFiles} as well as the
+ * streaming methods: depth first in directory order, following symbolic links but not back to an
+ * ancestor, with a broken link counted as a file and unreadable directories skipped. Only the directories on the path to the current entry are
+ * open, so the walk holds a handful of directory handles and no results. Nothing is read before the
+ * first call to {@link #tryAdvance}, and nothing more once a caller stops asking, the deadline passes
+ * or the walk is closed.
+ */
+final class FileWalker implements Spliterator<Path>, Closeable {
+
+    private final Path root;
+    private final Predicate<String> accepts;
+    private final long deadline;
+    private final boolean hasDeadline;
+    // The directories being listed, innermost first
+    private final ArrayDeque<Frame> open = new ArrayDeque<>();
+    private boolean started;
+    private boolean finished;
+
+    /**
+     * @param root     The absolute path of the directory to walk, or null to produce nothing.
+     * @param accepts  Tests the name of each file.
+     * @param deadline The {@link System#nanoTime()} at which to stop, if hasDeadline is set.
+     */
+    FileWalker(Path root, Predicate<String> accepts, long deadline, boolean hasDeadline) {
+        this.root = root;
+        this.accepts = accepts;
+        this.deadline = deadline;
+        this.hasDeadline = hasDeadline;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Path> action) {
+        if (!started) {
+            started = true;
+            if (root != null) {
+                enter(root, fileKey(root));
+            }
+        }
+        while (!finished && !open.isEmpty()) {
+            if (hasDeadline && System.nanoTime() - deadline >= 0) {
+                break;
+            }
+            Frame frame = open.peek();
+            Path entry;
+            try {
+                if (!frame.entries.hasNext()) {
+                    leave();
+                    continue;
+                }
+                entry = frame.entries.next();
+            } catch (DirectoryIteratorException e) {
+                leave();
+                continue;
+            }
+            BasicFileAttributes attributes = attributes(entry);
+            if (attributes != null && attributes.isDirectory()) {
+                if (!isOpen(attributes.fileKey())) {
+                    enter(entry, attributes.fileKey());
+                }
+                continue;
+            }
+            if (accepts.test(entry.getFileName().toString())) {
+                action.accept(entry);
+                return true;
+            }
+        }
+        close();
+        return false;
+    }
+
+    @Override
+    public Spliterator<Path> trySplit() {
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    /**
+     * Closes every directory still open. The walk produces nothing more afterwards.
+     */
+    @Override
+    public void close() {
+        finished = true;
+        while (!open.isEmpty()) {
+            leave();
+        }
+    }
+
+    private void enter(Path directory, Object key) {
+        try {
+            DirectoryStream<Path> stream = Files.newDirectoryStream(directory);
+            open.push(new Frame(stream, key));
+        } catch (IOException e) {
+            // Unreadable directories are skipped
+        }
+    }
+
+    private void leave() {
+        try {
+            open.pop().stream.close();
+        } catch (IOException e) {
+            // Nothing was written, so there is nothing to lose
+        }
+    }
+
+    private boolean isOpen(Object key) {
+        if (key == null) {
+            return false;
+        }
+        for (Frame frame : open) {
+            if (key.equals(frame.key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the attributes of an entry, following links; null for a broken link.
+     */
+    static BasicFileAttributes attributes(Path entry) {
+        try {
+            return Files.readAttributes(entry, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the key that identifies a directory when a link leads back to it; null if unknown.
+     */
+    static Object fileKey(Path directory) {
+        BasicFileAttributes attributes = attributes(directory);
+        return attributes == null ? null : attributes.fileKey();
+    }
+
+    /**
+     * A directory being listed.
+     */
+    private static final class Frame {
+
+        final DirectoryStream<Path> stream;
+        final Iterator<Path> entries;
+        // Identifies the directory when a link leads back to it
+        final Object key;
+
+        Frame(DirectoryStream<Path> stream, Object key) {
+            this.stream = stream;
+            this.entries = stream.iterator();
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package binarySearch.test;
+
+import binarySearch.BPlusTreeIndex;
+import binarySearch.BinarySearch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.Random;
+
+public class BPlusTreeIndexTest {
+
+    // Test case for hits and misses on a small array
+    @Test
+    public void testSearch() {
+        BPlusTreeIndex index = new BPlusTreeIndex(new int[] {1, 2, 3, 4, 5, 6, 7, 8, 9});
+        assertEquals(4, index.search(5)); // Should return index 4
+        assertEquals(-1, index.search(10)); // Should return -1 (not found)
+        assertEquals(-1, index.search(0)); // Smaller than every key
+    }
+
+    // Test case comparing the index against binarySearch on arrays spanning several tree levels
+    @Test
+    public void testMatchesBinarySearch() {
+        Random random = new Random(7);
+        for (int size : new int[] {1, 15, 16, 17, 272, 289, 4913, 100_000}) {
+            int[] sorted = new int[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = 3 * i + 1;
+            }
+            BPlusTreeIndex index = new BPlusTreeIndex(sorted);
+            for (int i = 0; i < 2000; i++) {
+                int key = random.nextInt(3 * size + 4) - 2;
+                assertEquals(BinarySearch.binarySearch(sorted, key), index.search(key), "size " + size + " key " + key);
+                assertEquals(BinarySearch.lowerBound(sorted, key), index.lowerBound(key), "size " + size + " key " + key);
+            }
+        }
+    }
+
+    // Test case for duplicates and the extreme int values
+    @Test
+    public void testDuplicatesAndExtremes() {
+        int[] sorted = new int[100];
+        Arrays.fill(sorted, 0, 40, Integer.MIN_VALUE);
+        Arrays.fill(sorted, 40, 70, 5);
+        Arrays.fill(sorted, 70, 100, Integer.MAX_VALUE);
+        BPlusTreeIndex index = new BPlusTreeIndex(sorted);
+        assertEquals(0, index.search(Integer.MIN_VALUE));
+        assertEquals(40, index.search(5)); // First occurrence of the run
+        assertEquals(70, index.search(Integer.MAX_VALUE));
+        assertEquals(-1, index.search(6));
+        assertEquals(70, index.lowerBound(6));
+    }
+
+    // Test case for a null or empty array
+    @Test
+    public void testNullOrEmptyArray() {
+        assertThrows(IllegalArgumentException.class, () -> new BPlusTreeIndex(null));
+        assertThrows(IllegalArgumentException.class, () -> new BPlusTreeIndex(new int[0]));
+    }
+}
@@ -0,0 +1,61 @@
+package binarySearch.test;
+
+import binarySearch.BatchBinarySearch;
+import binarySearch.BinarySearch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.Random;
+
+public class BatchBinarySearchTest {
+
+    // Test case for a small unsorted batch with hits and misses
+    @Test
+    public void testUnsortedKeys() {
+        int[] sorted = {1, 2, 3, 4, 5, 6, 7, 8, 9};
+        int[] keys = {5, 10, 1, 0, 9, 4};
+        assertArrayEquals(new int[] {4, -1, 0, -1, 8, 3}, BatchBinarySearch.binarySearchAll(sorted, keys));
+    }
+
+    // Test case for ascending keys, which take the galloping merge walk
+    @Test
+    public void testSortedKeysWithDuplicates() {
+        int[] sorted = {1, 3, 3, 3, 7, 9, 9, 12};
+        int[] keys = {0, 3, 3, 4, 9, 12, 13};
+        assertArrayEquals(new int[] {-1, 1, 1, -1, 5, 7, -1}, BatchBinarySearch.binarySearchAll(sorted, keys));
+    }
+
+    // Test case for large batches that are split across the ForkJoin pool
+    @Test
+    public void testLargeBatchMatchesSingleSearches() {
+        Random random = new Random(11);
+        int[] sorted = new int[50_000];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = 2 * i;
+        }
+        int[] keys = new int[100_003];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextInt(2 * sorted.length + 10) - 5;
+        }
+        int[] expected = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            expected[i] = BinarySearch.binarySearch(sorted, keys[i]);
+        }
+        assertArrayEquals(expected, BatchBinarySearch.binarySearchAll(sorted, keys));
+
+        Arrays.sort(keys);
+        for (int i = 0; i < keys.length; i++) {
+            expected[i] = BinarySearch.binarySearch(sorted, keys[i]);
+        }
+        assertArrayEquals(expected, BatchBinarySearch.binarySearchAll(sorted, keys));
+    }
+
+    // Test case for null and empty inputs
+    @Test
+    public void testInvalidArrays() {
+        assertThrows(IllegalArgumentException.class, () -> BatchBinarySearch.binarySearchAll(new int[0], new int[] {1}));
+        assertThrows(IllegalArgumentException.class, () -> BatchBinarySearch.binarySearchAll(new int[] {1}, null));
+        assertEquals(0, BatchBinarySearch.binarySearchAll(new int[] {1}, new int[0]).length);
+    }
+}
@@ -0,0 +1,87 @@
+package binarySearch.test;
+
+import binarySearch.BatchEvaluator;
+import binarySearch.ExpressionParser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+public class BatchEvaluatorTest {
+
+    @TempDir
+    Path directory;
+
+    // Test case for results matching line-by-line evaluation across many chunks
+    @Test
+    public void testMatchesLineByLineEvaluation() throws IOException {
+        Random random = new Random(17);
+        int lines = 200_000; // Several megabytes, so several chunks
+        StringBuilder text = new StringBuilder();
+        String[] expressions = new String[lines];
+        for (int i = 0; i < lines; i++) {
+            expressions[i] = random.nextInt(1000) + " * (" + random.nextInt(100) + ".25 - " + random.nextInt(50)
+                    + ") / " + (random.nextInt(9) + 1);
+            text.append(expressions[i]).append(i % 7 == 0 ? "\r\n" : "\n");
+        }
+        Path input = write(text.toString());
+
+        BatchEvaluator.Result result = BatchEvaluator.evaluate(input, 4);
+        assertEquals(lines, result.lineCount());
+        assertTrue(result.errors().isEmpty());
+        for (int i = 0; i < lines; i++) {
+            assertEquals(ExpressionParser.evaluateExpression(expressions[i]), result.values()[i]);
+        }
+
+        Path output = directory.resolve("results.txt");
+        BatchEvaluator.Result written = BatchEvaluator.evaluate(input, output, 3);
+        assertNull(written.values());
+        assertEquals(lines, written.lineCount());
+        List<String> outputLines = Files.readAllLines(output);
+        assertEquals(lines, outputLines.size());
+        for (int i = 0; i < lines; i++) {
+            assertEquals(result.values()[i], Double.parseDouble(outputLines.get(i)));
+        }
+    }
+
+    // Test case for errors being reported per line without stopping the batch
+    @Test
+    public void testErrorsAreReportedPerLine() throws IOException {
+        Path input = write("1 + 2\n(3\n\nx * 2\n4 / 2"); // No newline at the end
+        BatchEvaluator.Result result = BatchEvaluator.evaluate(input);
+        assertEquals(5, result.lineCount());
+        assertEquals(3.0, result.values()[0]);
+        assertTrue(Double.isNaN(result.values()[1]));
+        assertTrue(Double.isNaN(result.values()[2]));
+        assertTrue(Double.isNaN(result.values()[3]));
+        assertEquals(2.0, result.values()[4]);
+        assertEquals(3, result.errors().size());
+        assertEquals(2, result.errors().get(0).line());
+        assertEquals("Mismatched parentheses.", result.errors().get(0).message());
+        assertEquals(3, result.errors().get(1).line());
+        assertEquals(4, result.errors().get(2).line());
+    }
+
+    // Test case for an empty file and invalid arguments
+    @Test
+    public void testEmptyFileAndInvalidArguments() throws IOException {
+        Path input = write("");
+        assertEquals(0, BatchEvaluator.evaluate(input).lineCount());
+        assertThrows(IllegalArgumentException.class, () -> BatchEvaluator.evaluate(null));
+        assertThrows(IllegalArgumentException.class, () -> BatchEvaluator.evaluate(input, 0));
+        assertThrows(IllegalArgumentException.class, () -> BatchEvaluator.evaluate(input, (Path) null));
+    }
+
+    private Path write(String text) throws IOException {
+        Path file = Files.createTempFile(directory, "expressions", ".txt");
+        Files.write(file, text.getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+}
@@ -1,10 +1,12 @@
 package binarySearch.test;
 
 import binarySearch.BinarySearch;
+import binarySearch.SearchStrategy;
 
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.Test;
 import java.util.ArrayList;
+import java.util.Random;
 
 public class BinarySearchTest {
 
@@ -26,6 +28,7 @@ public class BinarySearchTest {
 
     // Test case for findAllIndices when target appears multiple times
     @Test
+    @SuppressWarnings("deprecation") // Covers the legacy method on purpose
     public void testFindAllIndices() {
         int[] arr = {1, 2, 3, 5, 5, 5, 7, 8};
         ArrayList<Integer> indices = BinarySearch.findAllIndices(arr, 5);
@@ -38,6 +41,7 @@ public class BinarySearchTest {
 
     // Test case for findAllIndices when target is not in the array
     @Test
+    @SuppressWarnings("deprecation") // Covers the legacy method on purpose
     public void testFindAllIndicesNotFound() {
         int[] arr = {1, 2, 3, 4, 5, 6, 7};
         ArrayList<Integer> indices = BinarySearch.findAllIndices(arr, 8);
@@ -62,4 +66,102 @@ public class BinarySearchTest {
             BinarySearch.binarySearch(arr, 5); // Should throw an IllegalArgumentException
         });
     }
+
+    // Test case for lowerBound and upperBound around a run of duplicates
+    @Test
+    public void testLowerAndUpperBoundInt() {
+        int[] arr = {1, 2, 3, 5, 5, 5, 7, 8};
+        assertEquals(3, BinarySearch.lowerBound(arr, 5)); // First 5 is at index 3
+        assertEquals(6, BinarySearch.upperBound(arr, 5)); // First element after the 5s
+        assertEquals(3, BinarySearch.lowerBound(arr, 4)); // Insertion point of a missing key
+        assertEquals(0, BinarySearch.lowerBound(arr, 0)); // Smaller than every element
+        assertEquals(8, BinarySearch.upperBound(arr, 9)); // Larger than every element
+        assertEquals(0, BinarySearch.lowerBound(new int[0], 1)); // Empty array has insertion point 0
+    }
+
+    // Test case for equalRange on int, long and String arrays
+    @Test
+    public void testEqualRange() {
+        long range = BinarySearch.equalRange(new int[] {1, 2, 2, 2, 2, 3}, 2);
+        assertEquals(1, BinarySearch.rangeStart(range));
+        assertEquals(5, BinarySearch.rangeEnd(range));
+
+        range = BinarySearch.equalRange(new long[] {10L, 20L, 20L, 30L}, 20L);
+        assertEquals(1, BinarySearch.rangeStart(range));
+        assertEquals(3, BinarySearch.rangeEnd(range));
+
+        range = BinarySearch.equalRange(new String[] {"apple", "fig", "fig", "kiwi"}, "date");
+        assertEquals(1, BinarySearch.rangeStart(range)); // Empty range at the insertion point
+        assertEquals(1, BinarySearch.rangeEnd(range));
+    }
+
+    // Test case for bound searches restricted to a sub-range
+    @Test
+    public void testBoundsWithinRange() {
+        int[] arr = {5, 5, 5, 5, 5, 5};
+        assertEquals(2, BinarySearch.lowerBound(arr, 2, 5, 5));
+        assertEquals(5, BinarySearch.upperBound(arr, 2, 5, 5));
+        assertThrows(IndexOutOfBoundsException.class, () -> BinarySearch.lowerBound(arr, 4, 2, 5));
+    }
+
+    // Test case for findAllIndices when the whole array is the target
+    @Test
+    @SuppressWarnings("deprecation") // Covers the legacy method on purpose
+    public void testFindAllIndicesAllEqual() {
+        int[] arr = {4, 4, 4, 4};
+        ArrayList<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < arr.length; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, BinarySearch.findAllIndices(arr, 4));
+    }
+
+    // Test case for indicesOf, which returns the same indices as findAllIndices without boxing
+    @Test
+    public void testIndicesOf() {
+        int[] arr = {1, 2, 3, 5, 5, 5, 7, 8};
+        assertArrayEquals(new int[] {3, 4, 5}, BinarySearch.indicesOf(arr, 5));
+        assertArrayEquals(new int[0], BinarySearch.indicesOf(arr, 4)); // Absent key gives an empty array
+        assertArrayEquals(new int[] {0, 1, 2}, BinarySearch.indicesOf(new int[] {9, 9, 9}, 9));
+        assertThrows(IllegalArgumentException.class, () -> BinarySearch.indicesOf(new int[0], 1));
+    }
+
+    // Test case for a null array in lowerBound
+    @Test
+    public void testNullArrayLowerBound() {
+        assertThrows(IllegalArgumentException.class, () -> BinarySearch.lowerBound((int[]) null, 5));
+    }
+
+    // Test case for every search strategy against the recursive search on arrays of many sizes
+    @Test
+    public void testSearchStrategies() {
+        Random random = new Random(13);
+        for (int size : new int[] {1, 2, 63, 64, 65, 1000, 65_537}) {
+            int[] arr = new int[size];
+            for (int i = 0; i < size; i++) {
+                arr[i] = 2 * i;
+            }
+            for (int i = 0; i < 1000; i++) {
+                int key = random.nextInt(2 * size + 2) - 1;
+                int expected = BinarySearch.binarySearch(arr, key);
+                for (SearchStrategy strategy : SearchStrategy.values()) {
+                    assertEquals(expected, BinarySearch.binarySearch(arr, key, strategy), strategy + " key " + key);
+                }
+            }
+        }
+    }
+
+    // Test case for the strategies that return the first of several duplicates
+    @Test
+    public void testSearchStrategiesWithDuplicates() {
+        int[] arr = new int[200];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = i / 50;
+        }
+        assertEquals(50, BinarySearch.binarySearch(arr, 1, SearchStrategy.BRANCHLESS));
+        assertEquals(50, BinarySearch.binarySearch(arr, 1, SearchStrategy.K_ARY));
+        assertEquals(150, BinarySearch.binarySearch(arr, 3, SearchStrategy.K_ARY));
+        assertEquals(-1, BinarySearch.binarySearch(arr, 4, SearchStrategy.K_ARY));
+        assertThrows(IllegalArgumentException.class, () -> BinarySearch.binarySearch(arr, 1, null));
+    }
 }
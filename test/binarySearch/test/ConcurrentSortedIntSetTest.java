@@ -0,0 +1,85 @@
+package binarySearch.test;
+
+import binarySearch.ConcurrentSortedIntSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ConcurrentSortedIntSetTest {
+
+    // Test case for single-key adds and removes
+    @Test
+    public void testAddAndRemove() {
+        ConcurrentSortedIntSet set = new ConcurrentSortedIntSet();
+        assertTrue(set.add(5));
+        assertTrue(set.add(1));
+        assertFalse(set.add(5)); // Already present
+        assertTrue(set.contains(5));
+        assertFalse(set.contains(3));
+        assertTrue(set.remove(5));
+        assertFalse(set.remove(5)); // Already removed
+        assertEquals(1, set.size());
+    }
+
+    // Test case for batched updates and the sorted snapshot
+    @Test
+    public void testBatchUpdatesAndSnapshot() {
+        ConcurrentSortedIntSet set = new ConcurrentSortedIntSet();
+        set.addAll(new int[] {9, 3, 7, 3, 1});
+        ConcurrentSortedIntSet.Snapshot before = set.snapshot();
+        set.removeAll(new int[] {3, 4});
+        assertArrayEquals(new int[] {1, 3, 7, 9}, before.toArray()); // Snapshot is unaffected
+        assertArrayEquals(new int[] {1, 7, 9}, set.snapshot().toArray());
+        assertEquals(1, set.snapshot().rank(5));
+        assertEquals(7, set.snapshot().get(1));
+    }
+
+    // Test case for concurrent writers with a reader that must always see a sorted snapshot
+    @Test
+    public void testConcurrentWriters() throws InterruptedException {
+        ConcurrentSortedIntSet set = new ConcurrentSortedIntSet();
+        AtomicBoolean failed = new AtomicBoolean();
+        AtomicBoolean done = new AtomicBoolean();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                int[] keys = set.snapshot().toArray();
+                for (int i = 1; i < keys.length; i++) {
+                    if (keys[i - 1] >= keys[i]) {
+                        failed.set(true);
+                    }
+                }
+            }
+        });
+        reader.start();
+
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int offset = t;
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    int key = i * 4 + offset;
+                    if (!set.add(key) || !set.contains(key)) {
+                        failed.set(true);
+                    }
+                    if (i % 2 == 1 && !set.remove(key)) {
+                        failed.set(true);
+                    }
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        done.set(true);
+        reader.join();
+
+        assertFalse(failed.get());
+        assertEquals(4000, set.size()); // Every even iteration of every writer stays
+    }
+}
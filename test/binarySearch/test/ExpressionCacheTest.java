@@ -0,0 +1,114 @@
+package binarySearch.test;
+
+import binarySearch.CompiledExpression;
+import binarySearch.ExpressionCache;
+import binarySearch.ExpressionParser;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ExpressionCacheTest {
+
+    // Test case for a repeated expression being compiled only once
+    @Test
+    public void testHitsAndMisses() {
+        ExpressionCache cache = new ExpressionCache(8);
+        CompiledExpression first = cache.compile("1 + 2");
+        assertSame(first, cache.compile("1 + 2"));
+        assertEquals(3.0, cache.evaluate("1 + 2"));
+        assertEquals(1, cache.misses());
+        assertEquals(2, cache.hits());
+        assertEquals(1, cache.size());
+    }
+
+    // Test case for least-recently-used eviction
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        ExpressionCache cache = new ExpressionCache(2, 1);
+        CompiledExpression a = cache.compile("1");
+        cache.compile("2");
+        cache.compile("1"); // "2" is now the least recently used
+        cache.compile("3");
+        assertEquals(1, cache.evictions());
+        assertEquals(2, cache.size());
+        assertSame(a, cache.compile("1"));
+        long misses = cache.misses();
+        cache.compile("2");
+        assertEquals(misses + 1, cache.misses());
+    }
+
+    // Test case for the size never exceeding the capacity
+    @Test
+    public void testCapacityIsBound() {
+        ExpressionCache cache = new ExpressionCache(100);
+        for (int i = 0; i < 1000; i++) {
+            cache.compile(i + " * 2");
+        }
+        assertEquals(100, cache.capacity());
+        assertTrue(cache.size() <= 100);
+        assertEquals(1000, cache.misses());
+        assertEquals(1000 - cache.size(), cache.evictions());
+    }
+
+    // Test case for errors not being cached
+    @Test
+    public void testErrorsAreNotCached() {
+        ExpressionCache cache = new ExpressionCache(8);
+        assertThrows(IllegalArgumentException.class, () -> cache.compile("(1 + 2"));
+        assertThrows(IllegalArgumentException.class, () -> cache.compile("(1 + 2"));
+        assertThrows(IllegalArgumentException.class, () -> cache.compile(null));
+        assertThrows(IllegalArgumentException.class, () -> cache.compile(""));
+        assertEquals(0, cache.size());
+    }
+
+    // Test case for invalid capacities
+    @Test
+    public void testInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new ExpressionCache(0));
+        assertThrows(IllegalArgumentException.class, () -> new ExpressionCache(10, 0));
+    }
+
+    // Test case for the shared cache behind evaluateExpression
+    @Test
+    public void testSharedCache() {
+        ExpressionCache cache = ExpressionParser.cache();
+        ExpressionParser.evaluateExpression("41 + 1");
+        long hits = cache.hits();
+        assertEquals(42.0, ExpressionParser.evaluateExpression("41 + 1"));
+        assertTrue(cache.hits() > hits);
+    }
+
+    // Test case for concurrent lookups returning correct results
+    @Test
+    public void testConcurrentLookups() throws Exception {
+        ExpressionCache cache = new ExpressionCache(64);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        int n = i % 100;
+                        if (cache.evaluate(n + " + 1") != n + 1) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(80_000, cache.hits() + cache.misses());
+        assertTrue(cache.size() <= 64);
+    }
+}
@@ -0,0 +1,81 @@
+package binarySearch.test;
+
+import binarySearch.CompiledExpression;
+import binarySearch.ExpressionCompiler;
+import binarySearch.ExpressionParser;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.ToDoubleFunction;
+
+public class ExpressionCompilerTest {
+
+    // Test case for a constant expression
+    @Test
+    public void testConstantExpression() {
+        ToDoubleFunction<double[]> function = ExpressionCompiler.toFunction(ExpressionParser.compile("3 + 5 * 2"));
+        assertEquals(13.0, function.applyAsDouble(new double[0]));
+    }
+
+    // Test case for generated code matching the interpreter bit for bit
+    @Test
+    public void testVariablesMatchInterpreter() {
+        CompiledExpression compiled = ExpressionParser.compile("(price - cost) * -qty / 0.5 + 1 - 0 * price");
+        ToDoubleFunction<double[]> function = ExpressionCompiler.toFunction(compiled);
+        Random random = new Random(21);
+        for (int i = 0; i < 1000; i++) {
+            double[] values = {random.nextDouble() * 100, random.nextDouble() * 100, random.nextInt(20)};
+            assertEquals(compiled.evaluate(values), function.applyAsDouble(values)); // Bit-identical
+        }
+    }
+
+    // Test case for many variables and constants
+    @Test
+    public void testManyVariablesAndConstants() {
+        // More than 127 variables needs sipush, and many distinct literals fill the constant pool
+        StringBuilder source = new StringBuilder("0");
+        double[] values = new double[200];
+        for (int i = 0; i < values.length; i++) {
+            source.append(" + v").append(i).append(" * ").append(i).append(".25");
+            values[i] = i;
+        }
+        CompiledExpression compiled = ExpressionParser.compile(source.toString());
+        assertEquals(compiled.evaluate(values), ExpressionCompiler.toFunction(compiled).applyAsDouble(values));
+    }
+
+    // Test case for the wrong number of values, on generated code and on the interpreter fallback
+    @Test
+    public void testWrongNumberOfValues() {
+        // Too many terms for the 64 KB limit of one JVM method, so this one is interpreted
+        StringBuilder source = new StringBuilder("a + b");
+        for (int i = 0; i < 20000; i++) {
+            source.append(" + a");
+        }
+        for (String formula : new String[] {"a + b", source.toString()}) {
+            ToDoubleFunction<double[]> function = ExpressionCompiler.toFunction(ExpressionParser.compile(formula));
+            assertThrows(IllegalArgumentException.class, () -> function.applyAsDouble(new double[] {1}));
+            assertThrows(IllegalArgumentException.class, () -> function.applyAsDouble(new double[] {1, 2, 3}));
+            assertThrows(IllegalArgumentException.class, () -> function.applyAsDouble(null));
+            assertEquals(formula.length() == 5 ? 3.0 : 20003.0, function.applyAsDouble(new double[] {1, 2}));
+        }
+    }
+
+    // Test case for single-variable operators
+    @Test
+    public void testUnaryOperator() {
+        DoubleUnaryOperator square = ExpressionCompiler.toUnaryOperator(ExpressionParser.compile("x * x + 1"));
+        assertEquals(10.0, square.applyAsDouble(3));
+        assertEquals(7.0, ExpressionCompiler.toUnaryOperator(ExpressionParser.compile("7")).applyAsDouble(42));
+        assertThrows(IllegalArgumentException.class,
+                () -> ExpressionCompiler.toUnaryOperator(ExpressionParser.compile("x + y")));
+    }
+
+    // Test case for null expression
+    @Test
+    public void testNullExpression() {
+        assertThrows(IllegalArgumentException.class, () -> ExpressionCompiler.toFunction(null));
+    }
+}
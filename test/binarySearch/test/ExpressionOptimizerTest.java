@@ -0,0 +1,153 @@
+package binarySearch.test;
+
+import binarySearch.CompiledExpression;
+import binarySearch.ExpressionCompiler;
+import binarySearch.ExpressionParser;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import java.util.function.ToDoubleFunction;
+
+public class ExpressionOptimizerTest {
+
+    private static final double[] SPECIAL = {0.0, -0.0, 1.0, -1.0, Double.NaN, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY, Double.MIN_VALUE, Double.MAX_VALUE, 3.5};
+
+    // Test case for identities that must keep the sign of zero and NaN
+    @Test
+    public void testIdentitiesKeepSpecialValues() {
+        String[] expressions = {"x * 1", "1 * x", "x / 1", "x - 0", "x + -0", "-0 + x", "--x", "x + 0", "0 + x",
+                "x * 0", "0 - x", "x - x", "x / x", "x * -1"};
+        for (String source : expressions) {
+            CompiledExpression compiled = ExpressionParser.compile(source);
+            for (double x : SPECIAL) {
+                assertEquals(Double.doubleToLongBits(reference(source, x)),
+                        Double.doubleToLongBits(compiled.evaluate(x)), source + " at " + x);
+            }
+        }
+    }
+
+    // Test case for folding constant sub-expressions
+    @Test
+    public void testConstantFolding() {
+        assertEquals(0.1 + 0.2, ExpressionParser.evaluateExpression("0.1 + 0.2"));
+        assertEquals(Double.POSITIVE_INFINITY, ExpressionParser.evaluateExpression("1 / 0"));
+        assertEquals(-0.0, ExpressionParser.evaluateExpression("-0 * 1"));
+        assertEquals((10.0 / 3.0) * 3.0 + 2.0, ExpressionParser.compile("x + (10 / 3) * 3 + 2").evaluate(0));
+    }
+
+    // Test case for random expressions with repeated sub-expressions on every backend
+    @Test
+    public void testRandomExpressionsAreBitIdentical() {
+        Random random = new Random(15);
+        for (int round = 0; round < 300; round++) {
+            Node tree = randomTree(random, 6);
+            CompiledExpression compiled = ExpressionParser.compile(tree.source);
+            ToDoubleFunction<double[]> generated = ExpressionCompiler.toFunction(compiled);
+            int variableCount = compiled.variables().size();
+            double[][] columns = new double[variableCount][SPECIAL.length * 3];
+            double[][] rows = new double[SPECIAL.length * 3][variableCount];
+            for (int row = 0; row < rows.length; row++) {
+                for (int v = 0; v < variableCount; v++) {
+                    double value = row < SPECIAL.length ? SPECIAL[(row + v) % SPECIAL.length] : random.nextDouble() * 10 - 5;
+                    rows[row][v] = value;
+                    columns[v][row] = value;
+                }
+            }
+            double[] results = new double[rows.length];
+            compiled.evaluateColumns(columns, results);
+            for (int row = 0; row < rows.length; row++) {
+                double x = 0;
+                double y = 0;
+                for (int v = 0; v < variableCount; v++) {
+                    if (compiled.variables().get(v).equals("x")) {
+                        x = rows[row][v];
+                    } else {
+                        y = rows[row][v];
+                    }
+                }
+                long expected = Double.doubleToLongBits(tree.evaluate(x, y));
+                assertEquals(expected, Double.doubleToLongBits(compiled.evaluate(rows[row])), tree.source);
+                assertEquals(expected, Double.doubleToLongBits(results[row]), tree.source);
+                assertEquals(expected, Double.doubleToLongBits(generated.applyAsDouble(rows[row])), tree.source);
+            }
+        }
+    }
+
+    private static double reference(String source, double x) {
+        switch (source) {
+            case "x * 1": return x * 1;
+            case "1 * x": return 1 * x;
+            case "x / 1": return x / 1;
+            case "x - 0": return x - 0.0;
+            case "x + -0": return x + -0.0;
+            case "-0 + x": return -0.0 + x;
+            case "--x": return -(-x);
+            case "x + 0": return x + 0.0;
+            case "0 + x": return 0.0 + x;
+            case "x * 0": return x * 0.0;
+            case "0 - x": return 0.0 - x;
+            case "x - x": return x - x;
+            case "x / x": return x / x;
+            default: return x * -1;
+        }
+    }
+
+    /**
+     * A random expression tree that evaluates itself with plain Java arithmetic.
+     */
+    private static final class Node {
+        final String source;
+        final char operator;
+        final Node left;
+        final Node right;
+        final double value;
+
+        Node(String source, char operator, Node left, Node right, double value) {
+            this.source = source;
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+            this.value = value;
+        }
+
+        double evaluate(double x, double y) {
+            switch (operator) {
+                case 'x': return x;
+                case 'y': return y;
+                case 'c': return value;
+                case '~': return -left.evaluate(x, y);
+                case '+': return left.evaluate(x, y) + right.evaluate(x, y);
+                case '-': return left.evaluate(x, y) - right.evaluate(x, y);
+                case '*': return left.evaluate(x, y) * right.evaluate(x, y);
+                default: return left.evaluate(x, y) / right.evaluate(x, y);
+            }
+        }
+    }
+
+    private static Node randomTree(Random random, int depth) {
+        int choice = depth == 0 ? random.nextInt(3) : random.nextInt(10);
+        switch (choice) {
+            case 0: return new Node("x", 'x', null, null, 0);
+            case 1: return new Node("y", 'y', null, null, 0);
+            case 2:
+                double value = new double[] {0, 1, 2, 0.5, 3}[random.nextInt(5)];
+                return new Node(Double.toString(value), 'c', null, null, value);
+            case 3:
+                Node operand = randomTree(random, depth - 1);
+                return new Node("-(" + operand.source + ")", '~', operand, null, 0);
+            case 4:
+                // The same sub-expression on both sides
+                Node shared = randomTree(random, depth - 1);
+                char op = "+-*/".charAt(random.nextInt(4));
+                return new Node("(" + shared.source + ")" + op + "(" + shared.source + ")", op, shared, shared, 0);
+            default:
+                Node left = randomTree(random, depth - 1);
+                Node right = randomTree(random, depth - 1);
+                char operator = "+-*/".charAt(random.nextInt(4));
+                return new Node("(" + left.source + ")" + operator + "(" + right.source + ")", operator, left, right, 0);
+        }
+    }
+}
@@ -1,8 +1,18 @@
 package binarySearch.test;
 
+import binarySearch.CompiledExpression;
 import binarySearch.ExpressionParser;
 
 import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class ExpressionParserTest {
@@ -55,4 +65,226 @@ public class ExpressionParserTest {
         });
     }
 
+    @Test
+    public void testCompileOnceEvaluateMany() {
+        CompiledExpression compiled = ExpressionParser.compile("(3 + 5) * 2 - 10 / 4");
+        for (int i = 0; i < 3; i++) {
+            assertEquals(13.5, compiled.evaluate());
+        }
+        assertEquals("(3 + 5) * 2 - 10 / 4", compiled.source());
+    }
+
+    @Test
+    public void testCompileRejectsInvalidExpressions() {
+        assertThrows(IllegalArgumentException.class, () -> ExpressionParser.compile(null));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionParser.compile("3 + * 5"));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionParser.compile("(1 + 2"));
+    }
+
+    @Test
+    public void testConcurrentEvaluation() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int operand = t;
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        double expected = (operand + i) * 2.0;
+                        if (ExpressionParser.evaluateExpression("(" + operand + " + " + i + ") * 2") != expected) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get(), "Concurrent evaluations should not interfere with each other.");
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testVariables() {
+        CompiledExpression compiled = ExpressionParser.compile("(price - cost) * qty + price");
+        assertEquals(List.of("price", "cost", "qty"), compiled.variables());
+        assertEquals(40.0, compiled.evaluate(10, 4, 5));
+        assertThrows(IllegalArgumentException.class, () -> compiled.evaluate(10, 4));
+        assertThrows(IllegalArgumentException.class, compiled::evaluate);
+    }
+
+    @Test
+    public void testColumnarEvaluationMatchesRowByRow() {
+        CompiledExpression compiled = ExpressionParser.compile("(price - cost) * qty / 2 + 1 - price / (cost + 3)");
+        Random random = new Random(17);
+        int rows = 5000; // Spans several blocks
+        double[] price = new double[rows];
+        double[] cost = new double[rows];
+        double[] qty = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            price[i] = random.nextDouble() * 100;
+            cost[i] = random.nextDouble() * 100;
+            qty[i] = random.nextInt(50);
+        }
+        double[] results = new double[rows];
+        compiled.evaluateColumns(Map.of("price", price, "cost", cost, "qty", qty), results);
+        for (int i = 0; i < rows; i++) {
+            assertEquals(compiled.evaluate(price[i], cost[i], qty[i]), results[i]); // Bit-identical
+        }
+    }
+
+    @Test
+    public void testColumnarEvaluationEdgeCases() {
+        double[] results = new double[3];
+        ExpressionParser.compile("2 * 3").evaluateColumns(new double[0][], results);
+        assertArrayEquals(new double[] {6, 6, 6}, results); // Constant expression fills every row
+        ExpressionParser.compile("x").evaluateColumns(new double[][] {{1, 2, 3}}, results);
+        assertArrayEquals(new double[] {1, 2, 3}, results);
+        assertThrows(IllegalArgumentException.class,
+                () -> ExpressionParser.compile("x + y").evaluateColumns(Map.of("x", new double[3]), results));
+        assertThrows(IllegalArgumentException.class,
+                () -> ExpressionParser.compile("x").evaluateColumns(new double[][] {{1, 2}}, results));
+    }
+
+    @Test
+    public void testExponentsAndUnaryMinus() {
+        assertEquals(1500.0, ExpressionParser.evaluateExpression("1.5e3"));
+        assertEquals(0.0025, ExpressionParser.evaluateExpression("2.5E-3"));
+        assertEquals(200.0, ExpressionParser.evaluateExpression("2e+2"));
+        assertEquals(-3.0, ExpressionParser.evaluateExpression("-3"));
+        assertEquals(5.0, ExpressionParser.evaluateExpression("2 - -3"));
+        assertEquals(-6.0, ExpressionParser.evaluateExpression("2 * -(1 + 2)"));
+        assertEquals(3.0, ExpressionParser.evaluateExpression("--3"));
+        assertEquals(-4.0, ExpressionParser.compile("-x * 2").evaluate(2));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionParser.evaluateExpression("1e"));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionParser.evaluateExpression("1e+"));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionParser.evaluateExpression("."));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionParser.evaluateExpression("2 * -"));
+    }
+
+    @Test
+    public void testNumbersMatchDoubleParseDouble() {
+        String[] literals = {"0", "0.1", "0.3", "123.456", "9007199254740993", "1e22", "1e23", "4.9e-324",
+                "1.7976931348623157e308", "1e400", "1e-400", "123456789012345678901234567890",
+                "0.000000000000000000000000000001", "2.2250738585072014e-308", ".5", "5."};
+        for (String literal : literals) {
+            assertEquals(Double.parseDouble(literal), ExpressionParser.evaluateExpression(literal), literal);
+        }
+        Random random = new Random(14);
+        for (int i = 0; i < 10_000; i++) {
+            String literal = random.nextInt(1_000_000) + "." + random.nextInt(1_000_000) + "e" + (random.nextInt(60) - 30);
+            assertEquals(Double.parseDouble(literal), ExpressionParser.evaluateExpression(literal), literal);
+            literal = Double.toString(Double.longBitsToDouble(random.nextLong() >>> 2));
+            if (!literal.contains("N") && !literal.contains("I")) {
+                assertEquals(Double.parseDouble(literal), ExpressionParser.evaluateExpression(literal), literal);
+            }
+        }
+    }
+
+    @Test
+    public void testWhitespaceAndCharSequenceInput() {
+        assertEquals(7.0, ExpressionParser.evaluateExpression(" \t1 +\n2\r* 3 "));
+        assertEquals(7.0, ExpressionParser.compile(new StringBuilder("1 + 2 * 3")).evaluate());
+        byte[] buffer = "xx(price - 1) * 2yy".getBytes(StandardCharsets.US_ASCII);
+        CompiledExpression compiled = ExpressionParser.compile(buffer, 2, 15);
+        assertEquals("(price - 1) * 2", compiled.source());
+        assertEquals(18.0, compiled.evaluate(10));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionParser.compile(buffer, 10, 15));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionParser.compile((byte[]) null, 0, 0));
+    }
+
+    @Test
+    public void testColumnarNegation() {
+        CompiledExpression compiled = ExpressionParser.compile("-x * -2 + -(-3)");
+        double[] results = new double[2000];
+        double[] x = new double[2000];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = i - 1000;
+        }
+        compiled.evaluateColumns(new double[][] {x}, results);
+        for (int i = 0; i < x.length; i++) {
+            assertEquals(compiled.evaluate(x[i]), results[i]);
+        }
+    }
+
+    @Test
+    public void testDeepNestingOnSmallStack() throws Exception {
+        int depth = 1_000_000;
+        StringBuilder nested = new StringBuilder(depth * 6);
+        for (int i = 0; i < depth; i++) {
+            nested.append("(x + ");
+        }
+        nested.append("-(-1)");
+        for (int i = 0; i < depth; i++) {
+            nested.append(')');
+        }
+        StringBuilder negations = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            negations.append('-');
+        }
+        negations.append('5');
+        double[] results = new double[2];
+        Throwable[] failure = new Throwable[1];
+        // A 256 KB stack is far too small for one frame per nesting level
+        Thread thread = new Thread(null, () -> {
+            try {
+                results[0] = ExpressionParser.compile(nested).evaluate(1);
+                results[1] = ExpressionParser.evaluateExpression(negations.toString());
+            } catch (Throwable e) {
+                failure[0] = e;
+            }
+        }, "small-stack", 256 * 1024);
+        thread.start();
+        thread.join();
+        assertNull(failure[0]);
+        assertEquals(depth + 1, results[0]);
+        assertEquals(5.0, results[1]);
+    }
+
+    @Test
+    public void testOperatorPrecedenceAndErrors() {
+        assertEquals(-7.0, ExpressionParser.evaluateExpression("1 - 2 * 3 - 2"));
+        assertEquals(0.5, ExpressionParser.evaluateExpression("8 / 4 / 4"));
+        assertEquals(-4.0, ExpressionParser.evaluateExpression("-(1 + 1) * 2"));
+        assertEquals(3.0, ExpressionParser.evaluateExpression("((1)) + ((2))"));
+        assertEquals(3.0, ExpressionParser.evaluateExpression("1 + 2) * 5")); // Trailing text is ignored
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ExpressionParser.evaluateExpression("((1 + 2)"));
+        assertEquals("Mismatched parentheses.", e.getMessage());
+        e = assertThrows(IllegalArgumentException.class, () -> ExpressionParser.evaluateExpression("(1 + 2 ]"));
+        assertEquals("Mismatched parentheses.", e.getMessage());
+        e = assertThrows(IllegalArgumentException.class, () -> ExpressionParser.evaluateExpression("(1 + 2 3)"));
+        assertEquals("Missing operator between numbers.", e.getMessage());
+        e = assertThrows(IllegalArgumentException.class, () -> ExpressionParser.evaluateExpression("(1 + "));
+        assertEquals("Unexpected end of expression.", e.getMessage());
+        e = assertThrows(IllegalArgumentException.class, () -> ExpressionParser.evaluateExpression(")"));
+        assertEquals("Invalid number format.", e.getMessage());
+    }
+
+    @Test
+    public void testWhitespaceDoesNotJoinNumbers() {
+        // Whitespace was stripped before parsing, which read "1 2" as 12; juxtaposed numbers are now an error
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ExpressionParser.evaluateExpression("1 2"));
+        assertEquals("Missing operator between numbers.", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> ExpressionParser.evaluateExpression("3 + 4 .5"));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionParser.compile("(1 + x) 2"));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionParser.compile("x\t7"));
+        // Inside parentheses the missing operator is reported, not the parentheses
+        e = assertThrows(IllegalArgumentException.class, () -> ExpressionParser.evaluateExpression("(1 2)"));
+        assertEquals("Missing operator between numbers.", e.getMessage());
+        e = assertThrows(IllegalArgumentException.class, () -> ExpressionParser.compile("((x + 1) 2) * 3"));
+        assertEquals("Missing operator between numbers.", e.getMessage());
+        // A dangling exponent is an invalid number rather than a number followed by stray text
+        e = assertThrows(IllegalArgumentException.class, () -> ExpressionParser.evaluateExpression("2e"));
+        assertEquals("Invalid number format.", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> ExpressionParser.evaluateExpression("2e - 1"));
+        // Whitespace between tokens is still ignored, and so is other trailing text
+        assertEquals(12.0, ExpressionParser.evaluateExpression(" 12 "));
+        assertEquals(3.0, ExpressionParser.evaluateExpression(" 1 +\n 2 "));
+        assertEquals(1.0, ExpressionParser.evaluateExpression("1 )2"));
+    }
+
 }
@@ -0,0 +1,108 @@
+package binarySearch.test;
+
+import binarySearch.FormulaGraph;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+public class FormulaGraphTest {
+
+    // Test case for formulas that refer to each other
+    @Test
+    public void testDependentFormulas() {
+        FormulaGraph graph = new FormulaGraph();
+        graph.set("price", 10);
+        graph.set("qty", 3);
+        graph.define("total", "price * qty");
+        graph.define("taxed", "total * 1.5 + fee");
+        assertTrue(Double.isNaN(graph.get("taxed"))); // fee is not defined yet
+        graph.set("fee", 2);
+        assertEquals(47.0, graph.get("taxed"));
+        assertEquals(List.of("total", "fee"), graph.dependencies("taxed"));
+        graph.define("total", "price + qty");
+        assertEquals(21.5, graph.get("taxed"));
+    }
+
+    // Test case for recomputing only the names downstream of a change
+    @Test
+    public void testOnlyDirtyNamesAreRecomputed() {
+        FormulaGraph graph = new FormulaGraph();
+        graph.set("a", 1);
+        graph.set("b", 2);
+        graph.define("fromA", "a * 10");
+        graph.define("fromB", "b * 10");
+        graph.define("both", "fromA + fromB");
+        assertEquals(3, graph.recalculate());
+        assertEquals(0, graph.recalculate());
+        graph.set("a", 5);
+        assertEquals(2, graph.recalculate()); // fromA and both, but not fromB
+        assertEquals(70.0, graph.get("both"));
+    }
+
+    // Test case for rejecting cycles without changing the graph
+    @Test
+    public void testCyclesAreRejected() {
+        FormulaGraph graph = new FormulaGraph();
+        graph.define("a", "b + 1");
+        graph.define("b", "c + 1");
+        graph.set("c", 1);
+        assertThrows(IllegalArgumentException.class, () -> graph.define("c", "a + 1"));
+        assertThrows(IllegalArgumentException.class, () -> graph.define("d", "d * 2"));
+        assertEquals(3.0, graph.get("a"));
+        assertThrows(IllegalArgumentException.class, () -> graph.define("", "1"));
+        assertThrows(IllegalArgumentException.class, () -> graph.define("e", "(1"));
+        assertThrows(IllegalArgumentException.class, () -> graph.get("missing"));
+    }
+
+    // Test case for removing a name that others refer to
+    @Test
+    public void testRemove() {
+        FormulaGraph graph = new FormulaGraph();
+        graph.set("x", 4);
+        graph.define("y", "x * x");
+        assertEquals(16.0, graph.get("y"));
+        assertTrue(graph.remove("x"));
+        assertTrue(Double.isNaN(graph.get("y")));
+        assertFalse(graph.remove("x"));
+        graph.set("x", 3);
+        assertEquals(9.0, graph.get("y"));
+        assertTrue(graph.remove("y"));
+        assertEquals(1, graph.size());
+    }
+
+    // Test case for redefining a formula over an input that is not defined yet
+    @Test
+    public void testRedefineKeepsUndefinedInput() {
+        FormulaGraph graph = new FormulaGraph();
+        graph.define("a", "x + 1");
+        graph.define("a", "x * 2");
+        graph.set("x", 5);
+        assertEquals(10.0, graph.get("a"));
+        assertEquals(2, graph.size());
+        graph.define("a", "y * 2");
+        assertEquals(3, graph.size()); // x is still set, so it stays next to y
+        graph.remove("x");
+        graph.define("a", "z");
+        assertEquals(2, graph.size()); // y is dropped once nothing refers to it
+    }
+
+    // Test case for a wide graph recomputed in parallel waves
+    @Test
+    public void testWideGraph() {
+        FormulaGraph graph = new FormulaGraph();
+        int width = 5000;
+        graph.set("base", 1);
+        StringBuilder sum = new StringBuilder("0");
+        for (int i = 0; i < width; i++) {
+            graph.define("n" + i, "base * " + i);
+            sum.append(" + n").append(i);
+        }
+        graph.define("sum", sum.toString());
+        assertEquals(width * (width - 1) / 2.0, graph.get("sum"));
+        graph.set("base", 2);
+        assertEquals(width + 1, graph.recalculate());
+        assertEquals(width * (width - 1.0), graph.get("sum"));
+    }
+}
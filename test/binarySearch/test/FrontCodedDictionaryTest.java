@@ -0,0 +1,99 @@
+package binarySearch.test;
+
+import binarySearch.BinarySearch;
+import binarySearch.FrontCodedDictionary;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class FrontCodedDictionaryTest {
+
+    private static final String[] FRUITS = {"apple", "apricot", "banana", "band", "bandana", "cherry", "date", "elderberry"};
+
+    // Test case for exact lookups of present and absent keys
+    @Test
+    public void testIndexOf() {
+        FrontCodedDictionary dictionary = new FrontCodedDictionary(FRUITS);
+        for (int i = 0; i < FRUITS.length; i++) {
+            assertEquals(i, dictionary.indexOf(FRUITS[i]));
+            assertEquals(FRUITS[i], dictionary.get(i));
+        }
+        assertEquals(-1, dictionary.indexOf("ban")); // Prefix of a key
+        assertEquals(-1, dictionary.indexOf("bandanas")); // Extension of a key
+        assertEquals(-1, dictionary.indexOf("fig"));
+        assertEquals(-1, dictionary.indexOf(""));
+    }
+
+    // Test case for rank of keys between and outside the stored keys
+    @Test
+    public void testRank() {
+        FrontCodedDictionary dictionary = new FrontCodedDictionary(FRUITS);
+        assertEquals(0, dictionary.rank("a"));
+        assertEquals(2, dictionary.rank("b"));
+        assertEquals(3, dictionary.rank("band"));
+        assertEquals(8, dictionary.rank("zebra"));
+    }
+
+    // Test case for prefix range queries
+    @Test
+    public void testPrefixRange() {
+        FrontCodedDictionary dictionary = new FrontCodedDictionary(FRUITS);
+        assertRange(2, 5, dictionary.prefixRange("ban"));
+        assertRange(3, 5, dictionary.prefixRange("band"));
+        assertRange(0, 2, dictionary.prefixRange("ap"));
+        assertRange(5, 5, dictionary.prefixRange("c0")); // No key starts with c0
+        assertRange(0, 8, dictionary.prefixRange(""));
+    }
+
+    // Test case comparing against String[] search on a vocabulary spanning many buckets
+    @Test
+    public void testMatchesStringArraySearch() {
+        Random random = new Random(3);
+        TreeSet<String> words = new TreeSet<>();
+        while (words.size() < 5000) {
+            words.add(randomWord(random));
+        }
+        String[] sorted = words.toArray(new String[0]);
+        FrontCodedDictionary dictionary = new FrontCodedDictionary(sorted);
+        assertEquals(sorted.length, dictionary.size());
+        for (int i = 0; i < 3000; i++) {
+            String query = randomWord(random);
+            assertEquals(BinarySearch.lowerBound(sorted, query), dictionary.rank(query), query);
+            assertEquals(Arrays.binarySearch(sorted, query) >= 0 ? BinarySearch.lowerBound(sorted, query) : -1,
+                    dictionary.indexOf(query), query);
+            String prefix = query.substring(0, Math.min(2, query.length()));
+            long range = dictionary.prefixRange(prefix);
+            for (int j = 0; j < sorted.length; j++) {
+                boolean inRange = j >= BinarySearch.rangeStart(range) && j < BinarySearch.rangeEnd(range);
+                assertEquals(sorted[j].startsWith(prefix), inRange, prefix + " " + sorted[j]);
+            }
+        }
+    }
+
+    // Test case for unsorted input, duplicates and null
+    @Test
+    public void testInvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> new FrontCodedDictionary(null));
+        assertThrows(IllegalArgumentException.class, () -> new FrontCodedDictionary(new String[] {"b", "a"}));
+        assertThrows(IllegalArgumentException.class, () -> new FrontCodedDictionary(new String[] {"a", "a"}));
+        assertThrows(IllegalArgumentException.class, () -> new FrontCodedDictionary(new String[] {"a", null}));
+        assertEquals(-1, new FrontCodedDictionary(new String[0]).indexOf("a"));
+    }
+
+    private static void assertRange(int start, int end, long range) {
+        assertEquals(start, BinarySearch.rangeStart(range));
+        assertEquals(end, BinarySearch.rangeEnd(range));
+    }
+
+    private static String randomWord(Random random) {
+        int length = 1 + random.nextInt(6);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + random.nextInt(4)));
+        }
+        return sb.toString();
+    }
+}
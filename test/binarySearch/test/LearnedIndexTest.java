@@ -0,0 +1,105 @@
+package binarySearch.test;
+
+import binarySearch.BinarySearch;
+import binarySearch.LearnedIndex;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.Random;
+
+public class LearnedIndexTest {
+
+    // Test case for hits and misses on a small array
+    @Test
+    public void testSearch() {
+        int[] arr = {1, 2, 3, 4, 5, 6, 7, 8, 9};
+        LearnedIndex index = LearnedIndex.of(arr);
+        assertEquals(4, index.search(5)); // Should return index 4
+        assertEquals(-1, index.search(10)); // Should return -1 (not found)
+        assertEquals(-1, index.search(0));
+    }
+
+    // Test case comparing against binarySearch on near-uniform keys with a small error bound
+    @Test
+    public void testUniformKeysMatchBinarySearch() {
+        Random random = new Random(5);
+        int[] arr = new int[100_000];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = i * 50 + random.nextInt(50);
+        }
+        LearnedIndex index = LearnedIndex.of(arr, 4);
+        assertTrue(index.segmentCount() > 0, "Uniform data should use the model");
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(arr.length * 50 + 100) - 50;
+            assertEquals(BinarySearch.binarySearch(arr, key), index.search(key), "key " + key);
+            assertEquals(BinarySearch.binarySearch(arr, key), LearnedIndex.interpolationSearch(arr, key), "key " + key);
+        }
+    }
+
+    // Test case for skewed data, which falls back to plain binary search
+    @Test
+    public void testSkewedKeysFallBack() {
+        // Gaps between keys vary from 1 to 2^40, so no line fits more than a few keys
+        Random random = new Random(1);
+        long[] arr = new long[1000];
+        for (int i = 1; i < arr.length; i++) {
+            arr[i] = arr[i - 1] + (1L << random.nextInt(41));
+        }
+        LearnedIndex index = LearnedIndex.of(arr, 1);
+        assertEquals(0, index.segmentCount());
+        for (int i = 0; i < arr.length; i++) {
+            assertEquals(i, index.search(arr[i]));
+        }
+        assertEquals(-1, index.search(arr[500] - 1));
+
+        int[] exponential = new int[31];
+        for (int i = 0; i < exponential.length; i++) {
+            exponential[i] = (1 << i) - 1;
+        }
+        for (int i = 0; i < exponential.length; i++) {
+            assertEquals(i, LearnedIndex.interpolationSearch(exponential, exponential[i]));
+        }
+        assertEquals(-1, LearnedIndex.interpolationSearch(exponential, 5));
+    }
+
+    // Test case for duplicates, which return the first occurrence
+    @Test
+    public void testDuplicates() {
+        int[] arr = new int[1000];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = i / 10;
+        }
+        LearnedIndex index = LearnedIndex.of(arr, 2);
+        for (int key = 0; key < 100; key++) {
+            assertEquals(key * 10, index.search(key));
+            assertEquals(key * 10, LearnedIndex.interpolationSearch(arr, key));
+        }
+    }
+
+    // Test case for long keys spanning the whole long range
+    @Test
+    public void testLongKeysAcrossFullRange() {
+        Random random = new Random(9);
+        long[] arr = new long[10_000];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = random.nextLong();
+        }
+        arr[0] = Long.MIN_VALUE;
+        arr[1] = Long.MAX_VALUE;
+        Arrays.sort(arr);
+        LearnedIndex index = LearnedIndex.of(arr);
+        for (int i = 0; i < arr.length; i++) {
+            assertEquals(BinarySearch.lowerBound(arr, arr[i]), index.search(arr[i]));
+        }
+        assertEquals(-1, index.search(arr[5] + 1 == arr[6] ? arr[5] - 1 : arr[5] + 1));
+    }
+
+    // Test case for a null or empty array
+    @Test
+    public void testNullOrEmptyArray() {
+        assertThrows(IllegalArgumentException.class, () -> LearnedIndex.of((int[]) null));
+        assertThrows(IllegalArgumentException.class, () -> LearnedIndex.of(new long[0]));
+        assertThrows(IllegalArgumentException.class, () -> LearnedIndex.interpolationSearch(new int[0], 1));
+    }
+}
@@ -0,0 +1,111 @@
+package binarySearch.test;
+
+import binarySearch.SegmentSearch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class SegmentSearchTest {
+
+    private static final ValueLayout.OfInt BIG_ENDIAN_INT = ValueLayout.JAVA_INT.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfLong BIG_ENDIAN_LONG = ValueLayout.JAVA_LONG.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private Path tempFile;
+    private Arena arena;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        tempFile = Files.createTempFile("sortedKeys", ".bin");
+        arena = Arena.ofConfined();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        arena.close();
+        Files.deleteIfExists(tempFile);
+    }
+
+    // Test case for int keys searched straight from a mapped file
+    @Test
+    public void testMappedIntKeys() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (int key : new int[] {-7, 1, 2, 2, 2, 9, 40}) {
+                out.writeInt(key); // DataOutputStream writes big-endian
+            }
+        }
+        Files.write(tempFile, bytes.toByteArray());
+
+        MemorySegment keys = SegmentSearch.mapReadOnly(tempFile, arena);
+        assertEquals(0, SegmentSearch.binarySearch(keys, BIG_ENDIAN_INT, -7));
+        assertEquals(2, SegmentSearch.binarySearch(keys, BIG_ENDIAN_INT, 2)); // First of the duplicates
+        assertEquals(6, SegmentSearch.binarySearch(keys, BIG_ENDIAN_INT, 40));
+        assertEquals(-1, SegmentSearch.binarySearch(keys, BIG_ENDIAN_INT, 3));
+        assertEquals(5, SegmentSearch.lowerBound(keys, BIG_ENDIAN_INT, 3));
+        assertEquals(7, SegmentSearch.lowerBound(keys, BIG_ENDIAN_INT, 41));
+    }
+
+    // Test case for long keys in off-heap memory
+    @Test
+    public void testOffHeapLongKeys() {
+        long[] values = {Long.MIN_VALUE, -1L, 0L, 1L << 40, Long.MAX_VALUE};
+        MemorySegment keys = arena.allocate(values.length * Long.BYTES, Long.BYTES);
+        for (int i = 0; i < values.length; i++) {
+            keys.setAtIndex(BIG_ENDIAN_LONG, i, values[i]);
+        }
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(i, SegmentSearch.binarySearch(keys, BIG_ENDIAN_LONG, values[i]));
+        }
+        assertEquals(-1, SegmentSearch.binarySearch(keys, BIG_ENDIAN_LONG, 5L));
+    }
+
+    // Test case for length-prefixed byte keys, including keys that are prefixes of each other
+    @Test
+    public void testLengthPrefixedKeys() throws IOException {
+        String[] sorted = {"", "app", "apple", "banana", "band", "éclair"};
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (String key : sorted) {
+                byte[] utf8 = key.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(utf8.length);
+                out.write(utf8);
+            }
+        }
+        Files.write(tempFile, bytes.toByteArray());
+
+        MemorySegment records = SegmentSearch.mapReadOnly(tempFile, arena);
+        MemorySegment offsets = SegmentSearch.recordOffsets(records, BIG_ENDIAN_INT, arena);
+        for (int i = 0; i < sorted.length; i++) {
+            assertEquals(i, SegmentSearch.binarySearch(records, BIG_ENDIAN_INT, offsets, utf8(sorted[i])));
+        }
+        assertEquals(-1, SegmentSearch.binarySearch(records, BIG_ENDIAN_INT, offsets, utf8("ap")));
+        assertEquals(1, SegmentSearch.lowerBound(records, BIG_ENDIAN_INT, offsets, utf8("ap")));
+        assertEquals(3, SegmentSearch.lowerBound(records, BIG_ENDIAN_INT, offsets, utf8("apples")));
+        assertEquals(6, SegmentSearch.lowerBound(records, BIG_ENDIAN_INT, offsets, utf8("ÿ")));
+    }
+
+    // Test case for a record whose length runs past the end of the segment
+    @Test
+    public void testCorruptRecords() {
+        MemorySegment records = arena.allocate(6, 1);
+        records.set(BIG_ENDIAN_INT.withByteAlignment(1), 0, 10);
+        assertThrows(IllegalArgumentException.class, () -> SegmentSearch.recordOffsets(records, BIG_ENDIAN_INT, arena));
+    }
+
+    private static MemorySegment utf8(String key) {
+        return MemorySegment.ofArray(key.getBytes(StandardCharsets.UTF_8));
+    }
+}
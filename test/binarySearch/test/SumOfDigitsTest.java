@@ -4,9 +4,21 @@ import binarySearch.SumOfDigits;
 
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 public class SumOfDigitsTest {
 
+    @TempDir
+    Path directory;
+
     // Test case for a positive integer
     @Test
     public void testSumOfDigitsPositive() {
@@ -31,4 +43,119 @@ public class SumOfDigitsTest {
     public void testSumOfDigitsLargeNumber() {
         assertEquals(45, SumOfDigits.sumOfDigits(987654321));  // 9+8+7+6+5+4+3+2+1 = 45
     }
+
+    // Test case for the most negative values, whose absolute value overflows
+    @Test
+    public void testSumOfDigitsMinValue() {
+        assertEquals(47, SumOfDigits.sumOfDigits(Integer.MIN_VALUE)); // 2147483648
+        assertEquals(46, SumOfDigits.sumOfDigits(Integer.MAX_VALUE)); // 2147483647
+        assertEquals(89, SumOfDigits.sumOfDigits(Long.MIN_VALUE)); // 9223372036854775808
+        assertEquals(88, SumOfDigits.sumOfDigits(Long.MAX_VALUE)); // 9223372036854775807
+    }
+
+    // Test case for long values
+    @Test
+    public void testSumOfDigitsLong() {
+        assertEquals(0, SumOfDigits.sumOfDigits(0L));
+        assertEquals(1, SumOfDigits.sumOfDigits(10_000_000_000L));
+        assertEquals(90, SumOfDigits.sumOfDigits(-9_999_999_999L));
+    }
+
+    // Test case for bulk arrays and streams against a digit-by-digit reference
+    @Test
+    public void testSumOfDigitsBulk() {
+        Random random = new Random(19);
+        long[] longs = random.longs(200_000).toArray(); // Large enough to run in parallel
+        int[] ints = random.ints(200_000).toArray();
+        int[] longSums = SumOfDigits.sumOfDigits(longs);
+        int[] intSums = SumOfDigits.sumOfDigits(ints);
+        for (int i = 0; i < longs.length; i++) {
+            assertEquals(reference(longs[i]), longSums[i]);
+            assertEquals(reference(ints[i]), intSums[i]);
+        }
+        assertArrayEquals(new int[] {6, 15}, SumOfDigits.sumOfDigits(IntStream.of(123, -456)).toArray());
+        assertArrayEquals(new int[] {1, 89}, SumOfDigits.sumOfDigits(LongStream.of(100, Long.MIN_VALUE)).toArray());
+        assertArrayEquals(intSums, SumOfDigits.sumOfDigits(IntStream.of(ints).parallel()).toArray());
+        assertThrows(IllegalArgumentException.class, () -> SumOfDigits.sumOfDigits((int[]) null));
+        assertThrows(IllegalArgumentException.class, () -> SumOfDigits.sumOfDigits((long[]) null));
+    }
+
+    private static int reference(long number) {
+        String digits = Long.toString(number);
+        int sum = 0;
+        for (char c : digits.toCharArray()) {
+            if (c != '-') {
+                sum += c - '0';
+            }
+        }
+        return sum;
+    }
+
+    // Test case for numbers with millions of digits as text, in a file and as a BigInteger
+    @Test
+    public void testSumOfDigitsHugeNumbers() throws IOException {
+        Random random = new Random(20);
+        StringBuilder digits = new StringBuilder("-");
+        long expected = 0;
+        for (int i = 0; i < 3_000_000; i++) { // Several parallel chunks
+            int digit = random.nextInt(10);
+            digits.append((char) ('0' + digit));
+            expected += digit;
+            if (i % 1000 == 999) {
+                digits.append('\n'); // Line breaks are skipped
+            }
+        }
+        assertEquals(expected, SumOfDigits.sumOfDigits(digits));
+        Path file = directory.resolve("digits.txt");
+        Files.writeString(file, digits);
+        assertEquals(expected, SumOfDigits.sumOfDigits(file));
+        assertEquals(1 + (expected - 1) % 9, SumOfDigits.digitalRoot(file));
+
+        // Parsing a decimal string is quadratic in the JDK, so the BigInteger is smaller
+        String prefix = digits.substring(0, 200_000).replace("\n", "");
+        BigInteger number = new BigInteger(prefix);
+        assertEquals(reference(prefix), SumOfDigits.sumOfDigits(number));
+        assertEquals(1 + (reference(prefix) - 1) % 9, SumOfDigits.digitalRoot(number));
+    }
+
+    // Test case for BigIntegers of every size against their decimal strings
+    @Test
+    public void testSumOfDigitsBigInteger() {
+        Random random = new Random(21);
+        for (int bits = 1; bits < 5000; bits += 37) {
+            BigInteger number = new BigInteger(bits, random);
+            assertEquals(reference(number.toString()), SumOfDigits.sumOfDigits(number), number.toString());
+            assertEquals(reference(number.toString()), SumOfDigits.sumOfDigits(number.negate()));
+        }
+        BigInteger powerOfTen = BigInteger.TEN.pow(1000); // Long runs of zeros in the lower parts
+        assertEquals(1, SumOfDigits.sumOfDigits(powerOfTen));
+        assertEquals(9000, SumOfDigits.sumOfDigits(powerOfTen.subtract(BigInteger.ONE)));
+        assertEquals(0, SumOfDigits.sumOfDigits(BigInteger.ZERO));
+    }
+
+    // Test case for digital roots and invalid digit strings
+    @Test
+    public void testDigitalRootAndInvalidDigits() {
+        assertEquals(0, SumOfDigits.digitalRoot(0));
+        assertEquals(9, SumOfDigits.digitalRoot(999_999_999_999L));
+        assertEquals(8, SumOfDigits.digitalRoot(Long.MIN_VALUE)); // 89, then 17, then 8
+        assertEquals(6, SumOfDigits.digitalRoot("123"));
+        assertEquals(0, SumOfDigits.digitalRoot(BigInteger.ZERO));
+        assertEquals(6, SumOfDigits.sumOfDigits("+123"));
+        assertThrows(IllegalArgumentException.class, () -> SumOfDigits.sumOfDigits("12a3"));
+        assertThrows(IllegalArgumentException.class, () -> SumOfDigits.sumOfDigits("1-2"));
+        assertThrows(IllegalArgumentException.class, () -> SumOfDigits.sumOfDigits(""));
+        assertThrows(IllegalArgumentException.class, () -> SumOfDigits.sumOfDigits("-"));
+        assertThrows(IllegalArgumentException.class, () -> SumOfDigits.sumOfDigits((CharSequence) null));
+    }
+
+    private static long reference(String digits) {
+        long sum = 0;
+        for (char c : digits.toCharArray()) {
+            if (c != '-') {
+                sum += c - '0';
+            }
+        }
+        return sum;
+    }
 }
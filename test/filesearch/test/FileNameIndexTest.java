@@ -0,0 +1,275 @@
+package filesearch.test;
+
+import filesearch.FileNameIndex;
+import filesearch.FileSearchEnhanced;
+import org.junit.jupiter.api.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileNameIndexTest {
+
+    private Path tempDir;
+    private Path indexDir;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        // Create a temporary directory to index, and one outside it for the index file
+        tempDir = Files.createTempDirectory("testDirIndex");
+        indexDir = Files.createTempDirectory("testIndexFile");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        // Delete the temporary directories and their contents after each test
+        deleteDirectoryRecursively(tempDir);
+        deleteDirectoryRecursively(indexDir);
+    }
+
+    @Test
+    public void testQueriesMatchFileSearch() throws IOException {
+        // Arrange
+        createTree();
+        List<String> fileNames = Arrays.asList("report.txt", "notes.md", "MIXED.case.TXT", "missing.txt");
+
+        try (FileNameIndex index = FileNameIndex.build(tempDir)) {
+            // Act & Assert: same paths as a walk, in either case mode
+            for (boolean caseSensitive : new boolean[] {true, false}) {
+                assertEquals(sorted(FileSearchEnhanced.searchFiles(tempDir.toFile(), fileNames, caseSensitive)),
+                        sorted(index.searchFiles(fileNames, caseSensitive)),
+                        "The index should find the same files as a walk.");
+                assertEquals(FileSearchEnhanced.countFileOccurrences(tempDir.toFile(), fileNames, caseSensitive),
+                        index.countFileOccurrences(fileNames, caseSensitive),
+                        "The index should count the same files as a walk.");
+            }
+            assertEquals(13, index.size(), "Every file should be indexed.");
+            assertEquals(tempDir.toAbsolutePath(), index.root());
+        }
+    }
+
+    @Test
+    public void testSaveAndOpen() throws IOException {
+        // Arrange
+        createTree();
+        Path indexFile = indexDir.resolve("names.idx");
+        try (FileNameIndex index = FileNameIndex.build(tempDir)) {
+            index.save(indexFile);
+        }
+        List<String> fileNames = Arrays.asList("REPORT.TXT", "mixed.CASE.txt");
+
+        // Act
+        try (FileNameIndex reopened = FileNameIndex.open(indexFile)) {
+            // Assert
+            assertEquals(sorted(FileSearchEnhanced.searchFiles(tempDir.toFile(), fileNames, false)),
+                    sorted(reopened.searchFiles(fileNames, false)),
+                    "A reopened index should answer like the one that was saved.");
+            assertEquals(0, reopened.refresh(), "Nothing changed since the index was saved.");
+        }
+    }
+
+    @Test
+    public void testOpenPicksUpChangesMadeWhileClosed() throws IOException {
+        // Arrange
+        createTree();
+        Path indexFile = indexDir.resolve("names.idx");
+        try (FileNameIndex index = FileNameIndex.build(tempDir)) {
+            index.save(indexFile);
+        }
+        Files.delete(tempDir.resolve("dir0").resolve("report.txt"));
+        deleteDirectoryRecursively(tempDir.resolve("dir1"));
+        Files.createDirectories(tempDir.resolve("dir2").resolve("new").resolve("deeper"));
+        Files.createFile(tempDir.resolve("dir2").resolve("new").resolve("deeper").resolve("report.txt"));
+
+        // Act
+        try (FileNameIndex reopened = FileNameIndex.open(indexFile)) {
+            // Assert
+            List<String> fileNames = Arrays.asList("report.txt", "notes.md");
+            assertEquals(sorted(FileSearchEnhanced.searchFiles(tempDir.toFile(), fileNames, true)),
+                    sorted(reopened.searchFiles(fileNames, true)),
+                    "Changes made while the index was closed should be picked up when it is opened.");
+
+            // A save after the changes writes them into the stored block
+            Path compacted = indexDir.resolve("compacted.idx");
+            reopened.save(compacted);
+            try (FileNameIndex again = FileNameIndex.open(compacted)) {
+                assertEquals(0, again.refresh(), "The compacted index should be current.");
+                assertEquals(reopened.size(), again.size());
+                assertEquals(sorted(reopened.searchFiles(fileNames, false)), sorted(again.searchFiles(fileNames, false)));
+            }
+        }
+    }
+
+    @Test
+    public void testRefreshAfterChanges() throws IOException {
+        // Arrange
+        createTree();
+        try (FileNameIndex index = FileNameIndex.build(tempDir)) {
+            Files.createFile(tempDir.resolve("dir0").resolve("added.txt"));
+            Files.move(tempDir.resolve("dir3"), tempDir.resolve("renamed"));
+
+            // Act
+            int changed = index.refresh();
+
+            // Assert
+            assertTrue(changed >= 2, "The changed directories should be listed again.");
+            List<String> fileNames = Arrays.asList("added.txt", "report.txt");
+            assertEquals(sorted(FileSearchEnhanced.searchFiles(tempDir.toFile(), fileNames, true)),
+                    sorted(index.searchFiles(fileNames, true)),
+                    "The index should follow files and directories that were added or renamed.");
+        }
+    }
+
+    @Test
+    public void testDirectoriesCreatedAndDeleted() throws IOException {
+        // Arrange
+        createTree();
+        Path indexFile = indexDir.resolve("names.idx");
+        try (FileNameIndex index = FileNameIndex.build(tempDir)) {
+            int size = index.size();
+
+            // Act: directories come and go, and the last one comes back at a path that was removed
+            for (int i = 0; i < 20; i++) {
+                Path scratch = Files.createDirectories(tempDir.resolve("scratch").resolve("sub" + i));
+                Files.createFile(scratch.resolve("report.txt"));
+                index.refresh();
+                deleteDirectoryRecursively(tempDir.resolve("scratch"));
+                index.refresh();
+            }
+            deleteDirectoryRecursively(tempDir.resolve("dir3"));
+            index.refresh();
+            Files.createDirectories(tempDir.resolve("dir3"));
+            Files.createFile(tempDir.resolve("dir3").resolve("report.txt"));
+            index.refresh();
+
+            // Assert
+            assertEquals(size - 2, index.size(), "dir3 lost its nested directory and one file.");
+            assertEquals(0, index.refresh(), "Nothing changed since the last refresh.");
+            List<String> fileNames = Arrays.asList("report.txt", "notes.md");
+            assertEquals(sorted(FileSearchEnhanced.searchFiles(tempDir.toFile(), fileNames, false)),
+                    sorted(index.searchFiles(fileNames, false)),
+                    "Removed directories should leave nothing behind.");
+            index.save(indexFile);
+            try (FileNameIndex reopened = FileNameIndex.open(indexFile)) {
+                assertEquals(index.size(), reopened.size());
+                assertEquals(sorted(index.searchFiles(fileNames, false)), sorted(reopened.searchFiles(fileNames, false)));
+            }
+        }
+    }
+
+    @Test
+    public void testWatchingUpdatesIndex() throws Exception {
+        // Arrange
+        createTree();
+        try (FileNameIndex index = FileNameIndex.build(tempDir)) {
+            index.startWatching(Duration.ofMillis(200));
+
+            // Act
+            Files.createDirectories(tempDir.resolve("watched"));
+            Files.createFile(tempDir.resolve("watched").resolve("fresh.txt"));
+            Files.delete(tempDir.resolve("report.txt"));
+
+            // Assert: events arrive asynchronously
+            List<String> fileNames = Arrays.asList("fresh.txt", "report.txt");
+            Map<String, List<String>> expected = sorted(FileSearchEnhanced.searchFiles(tempDir.toFile(), fileNames, true));
+            long deadline = System.nanoTime() + Duration.ofSeconds(20).toNanos();
+            while (!expected.equals(sorted(index.searchFiles(fileNames, true))) && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(expected, sorted(index.searchFiles(fileNames, true)),
+                    "The watcher should apply changes without an explicit refresh.");
+            assertThrows(IllegalStateException.class, () -> index.startWatching(Duration.ofSeconds(1)));
+        }
+    }
+
+    @Test
+    public void testInvalidArguments() throws IOException {
+        Path notAnIndex = Files.writeString(indexDir.resolve("other.txt"), "not an index");
+
+        assertThrows(IllegalArgumentException.class, () -> FileNameIndex.build(tempDir.resolve("missing")));
+        assertThrows(IllegalArgumentException.class, () -> FileNameIndex.build(null));
+        assertThrows(IOException.class, () -> FileNameIndex.open(notAnIndex));
+        try (FileNameIndex index = FileNameIndex.build(tempDir)) {
+            assertThrows(IllegalArgumentException.class, () -> index.startWatching(Duration.ZERO));
+            assertEquals(0, index.size(), "An empty directory has no files.");
+        }
+    }
+
+    /**
+     * Creates four directories with a report, notes and a name in mixed case, plus a root
+     * report.
+     */
+    @Test
+    public void testOpenCorruptIndex() throws IOException {
+        // Arrange
+        createTree();
+        Path indexFile = indexDir.resolve("names.idx");
+        try (FileNameIndex index = FileNameIndex.build(tempDir)) {
+            index.save(indexFile);
+        }
+        byte[] saved = Files.readAllBytes(indexFile);
+        int directoryCount = ByteBuffer.wrap(saved).order(ByteOrder.LITTLE_ENDIAN).getInt(8);
+        int firstFile = 16 + directoryCount * 20;
+        Path damaged = indexDir.resolve("damaged.idx");
+
+        // Act & Assert: a truncated pool, a parent after its child, a file in no directory and a
+        // folded name past the end of the pool
+        Files.write(damaged, Arrays.copyOf(saved, saved.length - 3));
+        assertThrows(IOException.class, () -> FileNameIndex.open(damaged), "A truncated index should be rejected.");
+        int[][] changes = {{20 + 16, directoryCount}, {firstFile, directoryCount}, {firstFile, -2},
+                {firstFile + 16, saved.length}, {firstFile + 12, -1}};
+        for (int[] change : changes) {
+            byte[] copy = saved.clone();
+            ByteBuffer.wrap(copy).order(ByteOrder.LITTLE_ENDIAN).putInt(change[0], change[1]);
+            Files.write(damaged, copy);
+            assertThrows(IOException.class, () -> FileNameIndex.open(damaged),
+                    "Writing " + change[1] + " at " + change[0] + " should be rejected.");
+        }
+        try (FileNameIndex reopened = FileNameIndex.open(indexFile)) {
+            assertEquals(13, reopened.size(), "The undamaged file should still open.");
+        }
+    }
+
+    private void createTree() throws IOException {
+        Files.createFile(tempDir.resolve("report.txt"));
+        for (int i = 0; i < 4; i++) {
+            Path dir = Files.createDirectories(tempDir.resolve("dir" + i).resolve("nested"));
+            Files.createFile(tempDir.resolve("dir" + i).resolve(i % 2 == 0 ? "report.txt" : "Report.TXT"));
+            Files.createFile(dir.resolve("notes.md"));
+            if (i < 3) {
+                Files.createFile(dir.resolve("Mixed.Case.txt"));
+            } else {
+                Files.createFile(dir.resolve("other.txt"));
+            }
+        }
+    }
+
+    private static Map<String, List<String>> sorted(Map<String, List<String>> results) {
+        Map<String, List<String>> sorted = new HashMap<>();
+        results.forEach((name, paths) -> {
+            List<String> copy = new ArrayList<>(paths);
+            Collections.sort(copy);
+            sorted.put(name, copy);
+        });
+        return sorted;
+    }
+
+    /**
+     * Helper method to delete a directory and its contents recursively.
+     *
+     * @param path The path to the directory to delete.
+     * @throws IOException If an I/O error occurs.
+     */
+    private void deleteDirectoryRecursively(Path path) throws IOException {
+        Files.walk(path)
+                .sorted(Comparator.reverseOrder())
+                .map(Path::toFile)
+                .forEach(File::delete);
+    }
+}
@@ -0,0 +1,231 @@
+package filesearch.test;
+
+import filesearch.FileNameMatcher;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileNameMatcherTest {
+
+    @Test
+    public void testExactNames() {
+        // Arrange
+        FileNameMatcher matcher = FileNameMatcher.exactNames(Arrays.asList("report.txt", "Notes.md", "report.txt"), true);
+
+        // Act & Assert
+        assertEquals(3, matcher.size());
+        assertArrayEquals(new int[] {0, 2}, matcher.match("report.txt"), "A repeated name should match at each index.");
+        assertArrayEquals(new int[] {1}, matcher.match("Notes.md"));
+        assertArrayEquals(new int[0], matcher.match("notes.md"), "A case-sensitive match should respect case.");
+        assertFalse(matcher.matchesAny("other.txt"));
+    }
+
+    @Test
+    public void testExactNamesIgnoringCase() {
+        // Arrange
+        FileNameMatcher matcher = FileNameMatcher.exactNames(Arrays.asList("REPORT.txt", "\u00c9t\u00e9.md"), false);
+
+        // Act & Assert
+        assertArrayEquals(new int[] {0}, matcher.match("report.TXT"), "Case should be ignored.");
+        assertTrue(matcher.matchesAny("\u00e9T\u00c9.MD"), "Case should be ignored beyond ASCII.");
+        assertFalse(matcher.matchesAny("report.txt.bak"));
+    }
+
+    @Test
+    public void testGlobs() {
+        // Arrange
+        List<String> patterns = Arrays.asList("glob:*.log", "glob:*.{gz,zip}", "glob:[a-c]?.txt", "glob:[!x]*",
+                "glob:data\\*.csv");
+        FileNameMatcher matcher = FileNameMatcher.compile(patterns, true);
+
+        // Act & Assert
+        assertArrayEquals(new int[] {0, 3}, matcher.match("server.log"));
+        assertArrayEquals(new int[] {1, 3}, matcher.match("backup.zip"));
+        assertArrayEquals(new int[] {1, 3}, matcher.match("archive.tar.gz"));
+        assertArrayEquals(new int[] {2, 3}, matcher.match("b1.txt"));
+        assertArrayEquals(new int[] {3}, matcher.match("d1.txt"), "Only letters a to c should match the class.");
+        assertArrayEquals(new int[0], matcher.match("x.log.old"), "A negated class should exclude its letters.");
+        assertArrayEquals(new int[] {0}, matcher.match("x.log"));
+        assertArrayEquals(new int[] {3, 4}, matcher.match("data*.csv"), "An escaped star should match itself.");
+        assertArrayEquals(new int[] {3}, matcher.match("data1.csv"));
+        assertArrayEquals(new int[] {3}, matcher.match("Server.LOG"), "A case-sensitive glob should respect case.");
+    }
+
+    @Test
+    public void testGlobsIgnoringCase() {
+        // Arrange
+        FileNameMatcher matcher = FileNameMatcher.compile(Arrays.asList("glob:*.LOG", "glob:Report-?.txt"), false);
+
+        // Act & Assert
+        assertArrayEquals(new int[] {0}, matcher.match("server.log"));
+        assertArrayEquals(new int[] {1}, matcher.match("REPORT-7.TXT"));
+        assertFalse(matcher.matchesAny("report-17.txt"), "A question mark should match one character.");
+    }
+
+    @Test
+    public void testGlobsOnSupplementaryCharacters() {
+        // U+1F600 and U+1F64F are each one code point but two chars
+        String grinning = "\uD83D\uDE00";
+        String praying = "\uD83D\uDE4F";
+        for (boolean caseSensitive : new boolean[] {true, false}) {
+            FileNameMatcher matcher = FileNameMatcher.compile(Arrays.asList("glob:?", "glob:?.txt",
+                    "glob:[" + grinning + "-" + praying + "]*", "glob:" + praying + "??"), caseSensitive);
+
+            // Act & Assert
+            assertArrayEquals(new int[] {0, 2}, matcher.match(grinning), "A question mark should match a whole code point.");
+            assertArrayEquals(new int[] {1, 2}, matcher.match(grinning + ".txt"));
+            assertArrayEquals(new int[] {2, 3}, matcher.match(praying + "ab"));
+            assertArrayEquals(new int[] {2, 3}, matcher.match(praying + grinning + "b"));
+            assertArrayEquals(new int[] {2}, matcher.match(grinning + grinning + "b"), "Two code points should not match one ?.");
+            assertArrayEquals(new int[0], matcher.match("\uD83D\uDE50x"), "U+1F650 is past the end of the range.");
+            assertArrayEquals(new int[0], matcher.match(grinning.substring(0, 1) + "x"),
+                    "A lone surrogate is one code point of its own.");
+        }
+    }
+
+    @Test
+    public void testRegexes() {
+        // Arrange
+        List<String> patterns = Arrays.asList("regex:report-\\d+\\.txt", "regex:(?i)notes.*", "regex:a|b",
+                "name:report-1.txt", "report-2.txt");
+        FileNameMatcher matcher = FileNameMatcher.compile(patterns, true);
+
+        // Act & Assert
+        assertArrayEquals(new int[] {0, 3}, matcher.match("report-1.txt"));
+        assertArrayEquals(new int[] {0, 4}, matcher.match("report-2.txt"));
+        assertArrayEquals(new int[] {0}, matcher.match("report-30.txt"));
+        assertArrayEquals(new int[] {1}, matcher.match("NOTES.md"), "Inline flags should be honoured.");
+        assertArrayEquals(new int[] {2}, matcher.match("b"));
+        assertArrayEquals(new int[0], matcher.match("report-x.txt"));
+        assertArrayEquals(new int[0], matcher.match("ab"), "A regex should match the whole name.");
+    }
+
+    @Test
+    public void testRegexesIgnoringCase() {
+        // Arrange
+        FileNameMatcher matcher = FileNameMatcher.compile(Collections.singletonList("regex:Report-[0-9]+\\.TXT"), false);
+
+        // Act & Assert
+        assertTrue(matcher.matchesAny("report-12.txt"));
+        assertTrue(matcher.matchesAny("REPORT-3.txt"));
+        assertFalse(matcher.matchesAny("report-.txt"));
+    }
+
+    @Test
+    public void testRegexEscapesWithArguments() {
+        // Each escape takes an argument that is not literal text, so no required literal may be taken from it
+        String[][] cases = {
+            {"\\x41\\.txt", "A.txt"},
+            {"\\p{Lu}", "A"},
+            {"\\u0041b", "Ab"},
+            {"\\0101", "A"},
+            {"\\cAx", "\u0001x"},
+            {"\\N{LATIN CAPITAL LETTER A}bc", "Abc"},
+            {"(a)\\1bc", "aabc"},
+            {"(?<x>a)\\k<x>bc", "aabc"},
+            {"\\Qa.b\\E", "a.b"},
+        };
+        for (String[] pair : cases) {
+            assertTrue(Pattern.matches(pair[0], pair[1]), "Test data: " + pair[0]);
+            for (boolean caseSensitive : new boolean[] {true, false}) {
+                FileNameMatcher matcher = FileNameMatcher.compile(Collections.singletonList("regex:" + pair[0]), caseSensitive);
+                assertTrue(matcher.matchesAny(pair[1]), pair[0] + " should match " + pair[1]);
+                assertArrayEquals(new int[] {0}, matcher.match(pair[1]));
+            }
+        }
+        assertFalse(FileNameMatcher.compile(Collections.singletonList("regex:\\x41\\.txt"), true).matchesAny("B.txt"));
+    }
+
+    @Test
+    public void testRegexesWithCountedQuantifiers() {
+        // Arrange: the bounds of {n} and {n,m} are not text a name must contain
+        List<String> patterns = Arrays.asList("regex:[0-9]{10}", "regex:x{12}", "regex:a{2,3}b",
+                "regex:log-\\d{1,4}\\.txt");
+        FileNameMatcher matcher = FileNameMatcher.compile(patterns, true);
+
+        // Act & Assert
+        assertArrayEquals(new int[] {0}, matcher.match("0123456789"));
+        assertArrayEquals(new int[] {1}, matcher.match("xxxxxxxxxxxx"));
+        assertArrayEquals(new int[] {2}, matcher.match("aab"));
+        assertArrayEquals(new int[] {2}, matcher.match("aaab"));
+        assertArrayEquals(new int[] {3}, matcher.match("log-2024.txt"));
+        assertArrayEquals(new int[0], matcher.match("ab"), "One repetition is below the lower bound.");
+        assertArrayEquals(new int[0], matcher.match("012345678"));
+        assertFalse(matcher.matchesAny("log-12345.txt"), "Five digits are above the upper bound.");
+        for (String name : Arrays.asList("0123456789", "xxxxxxxxxxxx", "aab", "aaab", "log-2024.txt")) {
+            assertTrue(FileNameMatcher.compile(patterns, false).matchesAny(name), name + " should match ignoring case");
+        }
+    }
+
+    @Test
+    public void testMatchesNaiveLoop() {
+        // Arrange: a few hundred names, some differing only in case
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            names.add((i % 3 == 0 ? "File" : "file") + i + (i % 2 == 0 ? ".txt" : ".LOG"));
+        }
+        List<String> candidates = new ArrayList<>(names);
+        for (int i = 0; i < 400; i++) {
+            candidates.add("FILE" + i + ".txt");
+            candidates.add("file" + i + ".log");
+        }
+
+        for (boolean caseSensitive : new boolean[] {true, false}) {
+            FileNameMatcher matcher = FileNameMatcher.exactNames(names, caseSensitive);
+            FileNameMatcher globs = FileNameMatcher.compile(Arrays.asList("glob:*1?.txt", "glob:file*"), caseSensitive);
+            Pattern first = Pattern.compile(".*1.\\.txt", caseSensitive ? 0 : Pattern.CASE_INSENSITIVE);
+            for (String candidate : candidates) {
+                // Act
+                List<Integer> expected = new ArrayList<>();
+                for (int j = 0; j < names.size(); j++) {
+                    if (caseSensitive ? candidate.equals(names.get(j)) : candidate.equalsIgnoreCase(names.get(j))) {
+                        expected.add(j);
+                    }
+                }
+
+                // Assert
+                assertEquals(expected, toList(matcher.match(candidate)), "Mismatch for " + candidate);
+                assertEquals(first.matcher(candidate).matches(), toList(globs.match(candidate)).contains(0),
+                        "Glob mismatch for " + candidate);
+                assertEquals(caseSensitive ? candidate.startsWith("file") : candidate.toLowerCase().startsWith("file"),
+                        toList(globs.match(candidate)).contains(1), "Glob mismatch for " + candidate);
+            }
+        }
+    }
+
+    @Test
+    public void testMatchResultIsACopy() {
+        // Arrange
+        FileNameMatcher matcher = FileNameMatcher.compile(Arrays.asList("a.txt", "regex:a\\..*"), true);
+
+        // Act
+        int[] first = matcher.match("a.txt");
+        first[0] = 7;
+
+        // Assert
+        assertArrayEquals(new int[] {0, 1}, matcher.match("a.txt"), "Changing a result should not affect the matcher.");
+    }
+
+    @Test
+    public void testInvalidPatterns() {
+        assertThrows(IllegalArgumentException.class,
+                () -> FileNameMatcher.compile(Collections.singletonList("glob:[abc"), true));
+        assertThrows(IllegalArgumentException.class,
+                () -> FileNameMatcher.compile(Collections.singletonList("glob:{a,b"), true));
+        assertThrows(IllegalArgumentException.class,
+                () -> FileNameMatcher.compile(Collections.singletonList("regex:(unclosed"), true));
+        assertEquals(0, FileNameMatcher.compile(Collections.emptyList(), true).size());
+        assertFalse(FileNameMatcher.compile(Collections.emptyList(), true).matchesAny("a.txt"));
+    }
+
+    private static List<Integer> toList(int[] indices) {
+        List<Integer> list = new ArrayList<>();
+        for (int index : indices) {
+            list.add(index);
+        }
+        return list;
+    }
+}
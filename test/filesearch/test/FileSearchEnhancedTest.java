@@ -7,7 +7,14 @@ import org.junit.jupiter.api.*;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.*;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -172,6 +179,215 @@ public class FileSearchEnhancedTest {
                 "An invalid directory should return zero count for the file.");
     }
 
+    @Test
+    public void testParallelSearchMatchesSequential() throws IOException {
+        // Arrange: a few levels of directories with repeated names in different cases
+        for (int i = 0; i < 6; i++) {
+            Path dir = Files.createDirectories(tempDir.resolve("dir" + i).resolve("nested" + i % 2));
+            Files.createFile(tempDir.resolve("dir" + i).resolve("report.txt"));
+            Files.createFile(dir.resolve(i % 2 == 0 ? "Report.TXT" : "report.txt"));
+            Files.createFile(dir.resolve("notes" + i + ".md"));
+        }
+        Files.createFile(tempDir.resolve("report.txt"));
+        List<String> fileNames = Arrays.asList("report.txt", "notes3.md", "report.txt", "missing.txt");
+
+        for (boolean caseSensitive : new boolean[] {true, false}) {
+            for (int parallelism : new int[] {1, 4}) {
+                // Act & Assert: same paths in the same order, and the same counts
+                assertEquals(FileSearchEnhanced.searchFiles(tempDir.toFile(), fileNames, caseSensitive),
+                        FileSearchEnhanced.searchFiles(tempDir.toFile(), fileNames, caseSensitive, parallelism),
+                        "Parallel search should return the same paths as the sequential search.");
+                assertEquals(FileSearchEnhanced.countFileOccurrences(tempDir.toFile(), fileNames, caseSensitive),
+                        FileSearchEnhanced.countFileOccurrences(tempDir.toFile(), fileNames, caseSensitive, parallelism),
+                        "Parallel count should return the same counts as the sequential count.");
+            }
+        }
+        assertEquals(26, FileSearchEnhanced.searchFiles(tempDir.toFile(), fileNames, false, 2).get("report.txt").size(),
+                "Each of the 13 matches is listed twice because the name is requested twice.");
+    }
+
+    @Test
+    public void testParallelSearchInvalidArguments() {
+        List<String> fileNames = Collections.singletonList("anyFile.txt");
+
+        assertTrue(FileSearchEnhanced.searchFiles(new File("invalidPath"), fileNames, true, 2).get("anyFile.txt").isEmpty(),
+                "An invalid directory should result in an empty search result.");
+        assertEquals(0, FileSearchEnhanced.countFileOccurrences(null, fileNames, true, 2).get("anyFile.txt"),
+                "A null directory should return zero count for the file.");
+        assertThrows(IllegalArgumentException.class,
+                () -> FileSearchEnhanced.searchFiles(tempDir.toFile(), fileNames, true, 0));
+    }
+
+    @Test
+    public void testSymbolicLinks() throws IOException {
+        // Arrange: a link back to the root, a link to a sibling directory and a broken link
+        Path subDir = Files.createDirectory(tempDir.resolve("subDir"));
+        Path other = Files.createDirectory(tempDir.resolve("other"));
+        Files.createFile(subDir.resolve("target.txt"));
+        Files.createFile(other.resolve("target.txt"));
+        Files.createSymbolicLink(subDir.resolve("loop"), tempDir);
+        Files.createSymbolicLink(subDir.resolve("shortcut"), other);
+        Files.createSymbolicLink(tempDir.resolve("target.txt"), tempDir.resolve("missing"));
+
+        List<String> fileNames = Collections.singletonList("target.txt");
+        Map<String, List<String>> results = FileSearchEnhanced.searchFiles(tempDir.toFile(), fileNames, true);
+
+        // Assert: the cycle is skipped, the sibling is reached twice and the broken link is a file
+        assertEquals(4, results.get("target.txt").size(), "Links should be followed except back to an ancestor.");
+        assertTrue(results.get("target.txt").contains(subDir.resolve("shortcut").resolve("target.txt").toAbsolutePath().toString()),
+                "Paths should be absolute and go through the link.");
+        assertEquals(results, FileSearchEnhanced.searchFiles(tempDir.toFile(), fileNames, true, 3),
+                "Parallel search should see the same tree.");
+        assertEquals(4, FileSearchEnhanced.countFileOccurrences(tempDir.toFile(), fileNames, true, 3).get("target.txt"));
+    }
+
+    @Test
+    public void testStreamFiles() throws IOException {
+        // Arrange
+        createNestedReports();
+        List<String> fileNames = Arrays.asList("report.txt", "REPORT.TXT");
+        List<String> expected = FileSearchEnhanced.searchFiles(tempDir.toFile(), fileNames, false).get("report.txt");
+
+        // Act & Assert: the stream walks in the same order, and each file appears once
+        try (Stream<Path> files = FileSearchEnhanced.streamFiles(tempDir.toFile(), fileNames, false)) {
+            assertEquals(expected, files.map(Path::toString).collect(Collectors.toList()),
+                    "The stream should produce the files of searchFiles in the same order.");
+        }
+        try (Stream<Path> files = FileSearchEnhanced.streamFiles(tempDir.toFile(), fileNames, false)) {
+            assertEquals(expected.subList(0, 3), files.limit(3).map(Path::toString).collect(Collectors.toList()),
+                    "A limited stream should produce the first files.");
+        }
+        try (Stream<Path> files = FileSearchEnhanced.streamFiles(tempDir.toFile(), fileNames, false, Duration.ZERO)) {
+            assertEquals(0, files.count(), "A walk whose time is up should produce nothing.");
+        }
+        try (Stream<Path> files = FileSearchEnhanced.streamFiles(null, fileNames, false)) {
+            assertEquals(0, files.count(), "A null directory should produce nothing.");
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> FileSearchEnhanced.streamFiles(tempDir.toFile(), fileNames, false, Duration.ofSeconds(-1)));
+    }
+
+    @Test
+    public void testPublishFilesWithBackpressure() throws Exception {
+        // Arrange
+        createNestedReports();
+        List<String> fileNames = Collections.singletonList("report.txt");
+        List<String> expected = FileSearchEnhanced.searchFiles(tempDir.toFile(), fileNames, true).get("report.txt");
+        Flow.Publisher<Path> publisher = FileSearchEnhanced.publishFiles(tempDir.toFile(), fileNames, true,
+                ForkJoinPool.commonPool());
+
+        // Act: request two files, then cancel
+        RecordingSubscriber partial = new RecordingSubscriber();
+        publisher.subscribe(partial);
+        partial.subscription.request(2);
+        assertTrue(partial.waitForItems(2), "Two files should arrive.");
+        partial.subscription.cancel();
+        Thread.sleep(50);
+
+        // Assert: nothing beyond the demand, and no terminal signal after cancelling
+        assertEquals(expected.subList(0, 2), partial.paths());
+        assertFalse(partial.completed.getCount() == 0, "A cancelled subscription should not complete.");
+
+        // Act & Assert: unbounded demand delivers everything, then completes
+        RecordingSubscriber all = new RecordingSubscriber();
+        publisher.subscribe(all);
+        all.subscription.request(Long.MAX_VALUE);
+        assertTrue(all.completed.await(10, TimeUnit.SECONDS), "The walk should complete.");
+        assertEquals(expected, all.paths());
+        assertNull(all.error);
+
+        // Act & Assert: a request that is not positive is an error
+        RecordingSubscriber invalid = new RecordingSubscriber();
+        publisher.subscribe(invalid);
+        invalid.subscription.request(0);
+        assertTrue(invalid.completed.await(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, invalid.error);
+    }
+
+    @Test
+    public void testSearchPatterns() throws IOException {
+        // Arrange
+        createNestedReports();
+        Files.createFile(tempDir.resolve("dir1").resolve("server.log"));
+        Files.createFile(tempDir.resolve("dir2").resolve("report-12.txt"));
+        List<String> patterns = Arrays.asList("glob:*.log", "regex:report-\\d+\\.txt", "report.txt", "glob:*.txt");
+
+        // Act
+        Map<String, List<String>> results = FileSearchEnhanced.searchPatterns(tempDir.toFile(), patterns, true);
+        Map<String, Integer> counts = FileSearchEnhanced.countPatternOccurrences(tempDir.toFile(), patterns, false);
+
+        // Assert
+        assertEquals(Collections.singletonList(tempDir.resolve("dir1").resolve("server.log").toAbsolutePath().toString()),
+                results.get("glob:*.log"), "A glob should match by extension.");
+        assertEquals(1, results.get("regex:report-\\d+\\.txt").size(), "A regex should match the numbered report.");
+        assertEquals(FileSearchEnhanced.searchFiles(tempDir.toFile(), Collections.singletonList("report.txt"), true).get("report.txt"),
+                results.get("report.txt"), "A plain name should match as searchFiles does.");
+        assertEquals(8, results.get("glob:*.txt").size(), "A case-sensitive glob should skip upper-case names.");
+        assertEquals(11, counts.get("glob:*.txt"), "A case-insensitive glob should match every text file.");
+        assertEquals(10, counts.get("report.txt"));
+        assertThrows(IllegalArgumentException.class,
+                () -> FileSearchEnhanced.searchPatterns(tempDir.toFile(), Collections.singletonList("glob:[a"), true));
+    }
+
+    /**
+     * Creates a report in the root and in three levels of nested directories, in two cases.
+     */
+    private void createNestedReports() throws IOException {
+        Files.createFile(tempDir.resolve("report.txt"));
+        for (int i = 0; i < 3; i++) {
+            Path dir = Files.createDirectories(tempDir.resolve("dir" + i).resolve("nested").resolve("deeper"));
+            Files.createFile(tempDir.resolve("dir" + i).resolve("report.txt"));
+            Files.createFile(dir.resolve("report.txt"));
+            Files.createFile(dir.getParent().resolve("REPORT.TXT"));
+        }
+    }
+
+    /**
+     * Records what a publisher sends.
+     */
+    private static class RecordingSubscriber implements Flow.Subscriber<Path> {
+
+        final List<Path> items = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch completed = new CountDownLatch(1);
+        volatile Flow.Subscription subscription;
+        volatile Throwable error;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Path item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+
+        boolean waitForItems(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (items.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            return items.size() >= count;
+        }
+
+        List<String> paths() {
+            synchronized (items) {
+                return items.stream().map(Path::toString).collect(Collectors.toList());
+            }
+        }
+    }
+
     /**
      * Helper method to delete a directory and its contents recursively.
      *
@@ -8,6 +8,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.*;
 import java.util.Comparator;
+import java.util.Optional;
 
 public class FileSearchTest {
 
@@ -68,6 +69,52 @@ public class FileSearchTest {
                 "Invalid directory should return file not found.");
     }
 
+    @Test
+    public void testRegularFileAsDirectory() throws IOException {
+        // Arrange: a file, not a directory, as the starting point
+        Path file = Files.createFile(tempDir.resolve("testFile.txt"));
+
+        // Act & Assert
+        assertFalse(FileSearch.searchFile(file.toFile(), "testFile.txt"),
+                "A file is not searched as a directory.");
+    }
+
+    @Test
+    public void testFileFoundThroughSymbolicLinks() throws IOException {
+        // Arrange: a link cycle that must not trap the search, and the file behind a link
+        Path subDir = Files.createDirectory(tempDir.resolve("subDir"));
+        Path hidden = Files.createTempDirectory("linkedDir");
+        try {
+            Files.createFile(hidden.resolve("linked.txt"));
+            Files.createSymbolicLink(subDir.resolve("loop"), tempDir);
+            Files.createSymbolicLink(subDir.resolve("link"), hidden);
+
+            // Act & Assert
+            assertTrue(FileSearch.searchFile(tempDir.toFile(), "linked.txt"),
+                    "File should be found through a symbolic link.");
+            assertFalse(FileSearch.searchFile(tempDir.toFile(), "nonExistentFile.txt"),
+                    "File should not be found, and the cycle should not be followed forever.");
+        } finally {
+            deleteDirectoryRecursively(hidden);
+        }
+    }
+
+    @Test
+    public void testFindFileWithoutPrinting() throws IOException {
+        // Arrange: the file in a subdirectory, with other directories around it
+        Files.createDirectory(tempDir.resolve("empty"));
+        Path subDir = Files.createDirectory(tempDir.resolve("subDir"));
+        Path file = Files.createFile(subDir.resolve("testFile.txt"));
+
+        // Act & Assert
+        assertEquals(Optional.of(file.toAbsolutePath()), FileSearch.findFile(tempDir.toFile(), "testFile.txt"),
+                "The path of the file should be returned.");
+        assertEquals(Optional.empty(), FileSearch.findFile(tempDir.toFile(), "nonExistentFile.txt"),
+                "A missing file should give an empty result.");
+        assertEquals(Optional.empty(), FileSearch.findFile(new File("invalidPath"), "testFile.txt"),
+                "An invalid directory should give an empty result.");
+    }
+
     /**
      * Helper method to delete a directory and its contents recursively.
      *